@@ -0,0 +1,243 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static hu.blackbelt.judo.dao.api.Payload.asPayload;
+
+/**
+ * Base class of {@link Payload} implementations.
+ * <p>
+ * Subclasses have to provide the map operations only, typed accessors, equality (ignoring transient keys) and
+ * JSON representation are shared.
+ */
+public abstract class AbstractPayload extends AbstractMap<String, Object> implements Payload {
+
+    public static final String TRANSIENT_PREFIX = "__$";
+
+    private int hash;
+
+    /**
+     * Convert a raw value to the representation used in payloads: maps are converted to payloads, lists to lists and
+     * any other collection to sets of which map elements are converted to payloads (other elements are kept).
+     *
+     * @param value raw value
+     * @return converted value
+     */
+    protected static Object toPayloadValue(Object value) {
+        if (value instanceof List) {
+            return ((List<Object>) value).stream().map(
+                    e -> e instanceof Map ? asPayload((Map<String, Object>) e) : e).collect(Collectors.toList());
+        } else if (value instanceof Collection) {
+            return ((Collection<Object>) value).stream().map(
+                    e -> e instanceof Map ? asPayload((Map<String, Object>) e) : e).collect(Collectors.toSet());
+        } else if (value instanceof Map) {
+            return asPayload((Map<String, Object>) value);
+        } else {
+            return value;
+        }
+    }
+
+    public String toString() {
+        return PayloadJsonCodec.getInstance().toPrettyJson(this);
+    }
+
+    /**
+     * Check if a given key is transient (hidden) key, transient keys are ignored by equality and hash code.
+     *
+     * @param key key
+     * @return <code>true</code> if key is transient
+     */
+    public static boolean isTransientKey(Object key) {
+        return key != null && key.toString().startsWith(TRANSIENT_PREFIX);
+    }
+
+    /**
+     * Payloads of which content cannot be changed can cache their hash code.
+     *
+     * @return <code>true</code> if payload is immutable
+     */
+    protected boolean isImmutable() {
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof Map)) {
+            return false;
+        }
+        Map<?, ?> other = (Map<?, ?>) obj;
+        if (obj instanceof AbstractPayload && isImmutable() && ((AbstractPayload) obj).isImmutable()
+                && hashCode() != obj.hashCode()) {
+            return false;
+        }
+
+        int count = 0;
+        for (Entry<String, Object> entry : entrySet()) {
+            String key = entry.getKey();
+            if (isTransientKey(key)) {
+                continue;
+            }
+            count++;
+            Object value = entry.getValue();
+            if (value == null) {
+                if (other.get(key) != null || !other.containsKey(key)) {
+                    return false;
+                }
+            } else if (!value.equals(other.get(key))) {
+                return false;
+            }
+        }
+
+        int otherCount = 0;
+        for (Object key : other.keySet()) {
+            if (!isTransientKey(key)) {
+                otherCount++;
+            }
+        }
+        return count == otherCount;
+    }
+
+    /**
+     * Hash code of payload, transient keys are ignored so it is consistent with {@link #equals(Object)}. Hash code is
+     * cached if payload is immutable.
+     *
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 || !isImmutable()) {
+            h = 0;
+            for (Entry<String, Object> entry : entrySet()) {
+                if (!isTransientKey(entry.getKey())) {
+                    h += entry.getKey().hashCode() ^ Objects.hashCode(entry.getValue());
+                }
+            }
+            if (isImmutable()) {
+                hash = h;
+            }
+        }
+        return h;
+    }
+
+    @Override
+    public Payload getAsPayload(String name) {
+        Object value = get(name);
+        if (!containsKey(name) || value == null) {
+            return null;
+        } else if (value instanceof Payload) {
+            return (Payload) value;
+        } else {
+            throw new IllegalArgumentException("The payload element with key '" + name + "' is expected to be a payload" +
+                                               " but is a " + value.getClass().getName());
+        }
+    }
+
+    @Override
+    public Collection<Payload> getAsCollectionPayload(String name) {
+        Object value = get(name);
+        if (!containsKey(name) || value == null) {
+            return null;
+        } else if (value instanceof Collection) {
+            return (Collection<Payload>) value;
+        } else {
+            throw new IllegalArgumentException("The payload element with key '" + name + "' is expected to be a payload collection" +
+                                               " but is a " + value.getClass().getName());
+        }
+    }
+
+    @Override
+    public <T> T getAs(Class<T> type, String name) {
+        Object value = get(name);
+        if (!containsKey(name) || value == null) {
+            return null;
+        } else if (type.isAssignableFrom(value.getClass())) {
+            return (T) value;
+        } else {
+            throw new IllegalArgumentException("The payload element with key '" + name + "' is expected to be a " + type.getName() +
+                                               " but is a " + value.getClass().getName());
+        }
+    }
+
+    static Number requireNumber(String name, Object value) {
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        throw new IllegalArgumentException("The payload element with key '" + name + "' is expected to be a number" +
+                                           " but is " + (value != null ? "a " + value.getClass().getName() : "null"));
+    }
+
+    static long requireLong(String name, Object value) {
+        Number number = requireNumber(name, value);
+        if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte) {
+            return number.longValue();
+        }
+        try {
+            if (number instanceof BigInteger) {
+                return ((BigInteger) number).longValueExact();
+            } else if (number instanceof BigDecimal) {
+                return ((BigDecimal) number).longValueExact();
+            }
+        } catch (ArithmeticException e) {
+            throw lossyConversion(name, number, "long");
+        }
+        return toLong(name, number.doubleValue());
+    }
+
+    static int requireInt(String name, Object value) {
+        return toInt(name, requireLong(name, value));
+    }
+
+    static long toLong(String name, double value) {
+        if (value >= -0x1p63 && value < 0x1p63 && value == Math.rint(value)) {
+            return (long) value;
+        }
+        throw lossyConversion(name, value, "long");
+    }
+
+    static int toInt(String name, long value) {
+        if ((int) value == value) {
+            return (int) value;
+        }
+        throw lossyConversion(name, value, "int");
+    }
+
+    private static IllegalArgumentException lossyConversion(String name, Object value, String type) {
+        return new IllegalArgumentException("The payload element with key '" + name + "' cannot be converted to " +
+                                            type + " without loss: " + value);
+    }
+
+    static boolean requireBoolean(String name, Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        throw new IllegalArgumentException("The payload element with key '" + name + "' is expected to be a boolean" +
+                                           " but is " + (value != null ? "a " + value.getClass().getName() : "null"));
+    }
+}
@@ -0,0 +1,563 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Asynchronous companion of {@link DAO}. Operations return immediately, results are completed when the underlying
+ * operation is finished, so independent queries can run concurrently. Multi-row queries are published with
+ * backpressure, rows are fetched as the subscriber requests them.
+ * <p>
+ * Every single-call read and write operation of {@link DAO} has an asynchronous variant. Streams, batches
+ * ({@link PayloadBatch}), pages, prepared queries, units of work and the bulk defaults built on single operations
+ * (i.e. {@link DAO#setReferenceAll(EReference, Map)}) have none, streams are replaced by publishers.
+ * <p>
+ * See {@link ExecutorAsyncDAO} to run a synchronous {@link DAO} on an executor.
+ *
+ * @param <ID> type of identifiers
+ */
+public interface AsyncDAO<ID> {
+
+    /**
+     * Asynchronous variant of {@link DAO#getStaticFeatures(EClass)}.
+     *
+     * @param clazz unmapped transfer object type
+     * @return payload of loaded static data
+     */
+    CompletableFuture<Payload> getStaticFeatures(EClass clazz);
+
+    /**
+     * Asynchronous variant of {@link DAO#getStaticData(EAttribute)}.
+     *
+     * @param attribute transfer attribute
+     * @return value of static data
+     */
+    CompletableFuture<Payload> getStaticData(EAttribute attribute);
+
+    /**
+     * Asynchronous variant of {@link DAO#getParameterizedStaticData(EAttribute, Map)}.
+     *
+     * @param attribute  transfer attribute
+     * @param parameters query parameters
+     * @return value of static data
+     */
+    CompletableFuture<Payload> getParameterizedStaticData(EAttribute attribute, Map<String, Object> parameters);
+
+    /**
+     * Asynchronous variant of {@link DAO#getDefaultsOf(EClass)}.
+     *
+     * @param clazz transfer object type
+     * @return payload of default values
+     */
+    CompletableFuture<Payload> getDefaultsOf(EClass clazz);
+
+    /**
+     * Asynchronous variant of {@link DAO#getRangeOf(EReference, Payload, DAO.QueryCustomizer, boolean)}.
+     *
+     * @param reference       transfer objet relation
+     * @param payload         owner data of relation
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @param stateful        allow create a new instance or update the existing instance of the 'payload'
+     * @return list of possible item(s)
+     */
+    CompletableFuture<Collection<Payload>> getRangeOf(EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer, boolean stateful);
+
+    /**
+     * Asynchronous variant of {@link DAO#countRangeOf(EReference, Payload, DAO.QueryCustomizer, boolean)}.
+     *
+     * @param reference       transfer objet relation
+     * @param payload         owner data of relation
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @param stateful        allow create a new instance or update the existing instance of the 'payload'
+     * @return number of possible item(s)
+     */
+    CompletableFuture<Long> countRangeOf(EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer, boolean stateful);
+
+    /**
+     * Asynchronous variant of {@link DAO#getAllOf(EClass)}.
+     *
+     * @param clazz mapped transfer object type
+     * @return list of instances
+     */
+    CompletableFuture<List<Payload>> getAllOf(EClass clazz);
+
+    /**
+     * Asynchronous variant of {@link DAO#countAllOf(EClass)}.
+     *
+     * @param clazz mapped transfer object type
+     * @return number of instances
+     */
+    CompletableFuture<Long> countAllOf(EClass clazz);
+
+    /**
+     * Asynchronous variant of {@link DAO#search(EClass, DAO.QueryCustomizer)}.
+     *
+     * @param clazz           mapped transfer object type
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return list of instances
+     */
+    CompletableFuture<List<Payload>> search(EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Asynchronous variant of {@link DAO#count(EClass, DAO.QueryCustomizer)}.
+     *
+     * @param clazz           mapped transfer object type
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return number of instances
+     */
+    CompletableFuture<Long> count(EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Asynchronous variant of {@link DAO#getByIdentifier(EClass, Object)}.
+     *
+     * @param clazz      mapped transfer object type
+     * @param identifier mapped transfer object
+     * @return return the optional payload
+     */
+    CompletableFuture<Optional<Payload>> getByIdentifier(EClass clazz, ID identifier);
+
+    /**
+     * Asynchronous variant of {@link DAO#searchByIdentifier(EClass, Object, DAO.QueryCustomizer)}.
+     *
+     * @param clazz           mapped transfer object type
+     * @param identifier      mapped transfer object
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return return the optional payload
+     */
+    CompletableFuture<Optional<Payload>> searchByIdentifier(EClass clazz, ID identifier, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Asynchronous variant of {@link DAO#existsById(EClass, Object)}.
+     *
+     * @param clazz      mapped transfer object type
+     * @param identifier mapped transfer object
+     * @return returns whether the given instance exists
+     */
+    CompletableFuture<Boolean> existsById(EClass clazz, ID identifier);
+
+    /**
+     * Asynchronous variant of {@link DAO#getMetadata(EClass, Object)}.
+     *
+     * @param clazz      mapped transfer object type
+     * @param identifier mapped transfer object
+     * @return payload containing metadata
+     */
+    CompletableFuture<Optional<Payload>> getMetadata(EClass clazz, ID identifier);
+
+    /**
+     * Asynchronous variant of {@link DAO#getByIdentifiers(EClass, Collection)}.
+     *
+     * @param clazz       mapped transfer object type
+     * @param identifiers mapped transfer object
+     * @return list of instances
+     */
+    CompletableFuture<List<Payload>> getByIdentifiers(EClass clazz, Collection<ID> identifiers);
+
+    /**
+     * Asynchronous variant of {@link DAO#searchByIdentifiers(EClass, Collection, DAO.QueryCustomizer)}.
+     *
+     * @param clazz           mapped transfer object type
+     * @param identifiers     mapped transfer object
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return list of instances
+     */
+    CompletableFuture<List<Payload>> searchByIdentifiers(EClass clazz, Collection<ID> identifiers, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Asynchronous variant of {@link DAO#create(EClass, Payload, DAO.QueryCustomizer)}.
+     *
+     * @param clazz           mapped transfer object type
+     * @param payload         instance to create
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return created instance
+     */
+    CompletableFuture<Payload> create(EClass clazz, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Asynchronous variant of {@link DAO#createAll(EClass, Iterable, DAO.QueryCustomizer)}.
+     *
+     * @param clazz           mapped transfer object type
+     * @param payloads        instances to create
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return created instance
+     */
+    CompletableFuture<List<Payload>> createAll(EClass clazz, Iterable<Payload> payloads, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Asynchronous variant of {@link DAO#update(EClass, Payload, DAO.QueryCustomizer)}.
+     *
+     * @param clazz           mapped transfer object type
+     * @param payload         instance to update
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return updated instance
+     */
+    CompletableFuture<Payload> update(EClass clazz, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Asynchronous variant of {@link DAO#updateAll(EClass, Iterable, DAO.QueryCustomizer)}.
+     *
+     * @param clazz           mapped transfer object type
+     * @param payloads        instances to update
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return updated instance
+     */
+    CompletableFuture<List<Payload>> updateAll(EClass clazz, Iterable<Payload> payloads, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Asynchronous variant of {@link DAO#updateDelta(EClass, Object, Payload, DAO.QueryCustomizer)}.
+     *
+     * @param clazz           mapped transfer object type
+     * @param identifier      instance ID to update
+     * @param delta           changed features
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return updated instance
+     */
+    CompletableFuture<Payload> updateDelta(EClass clazz, ID identifier, Payload delta, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Asynchronous variant of {@link DAO#delete(EClass, Object)}.
+     *
+     * @param clazz mapped transfer object type
+     * @param id    instance ID to delete
+     * @return completed when instance is deleted
+     */
+    CompletableFuture<Void> delete(EClass clazz, ID id);
+
+    /**
+     * Asynchronous variant of {@link DAO#deleteAll(EClass, Iterable)}.
+     *
+     * @param clazz mapped transfer object type
+     * @param ids   instance IDs to delete
+     * @return completed when instances are deleted
+     */
+    CompletableFuture<Void> deleteAll(EClass clazz, Iterable<ID> ids);
+
+    /**
+     * Asynchronous variant of {@link DAO#setReference(EReference, Object, Collection)}.
+     *
+     * @param reference     mapped transfer object relation
+     * @param id            instance ID
+     * @param referencedIds referenced instances
+     * @return completed when reference is set
+     */
+    CompletableFuture<Void> setReference(EReference reference, ID id, Collection<ID> referencedIds);
+
+    /**
+     * Asynchronous variant of {@link DAO#unsetReference(EReference, Object)}.
+     *
+     * @param reference mapped transfer object relation
+     * @param id        instance ID
+     * @return completed when reference is unset
+     */
+    CompletableFuture<Void> unsetReference(EReference reference, ID id);
+
+    /**
+     * Asynchronous variant of {@link DAO#addReferences(EReference, Object, Collection)}.
+     *
+     * @param reference     mapped transfer object relation
+     * @param id            instance ID
+     * @param referencedIds referenced instances
+     * @return completed when references are added
+     */
+    CompletableFuture<Void> addReferences(EReference reference, ID id, Collection<ID> referencedIds);
+
+    /**
+     * Asynchronous variant of {@link DAO#removeReferences(EReference, Object, Collection)}.
+     *
+     * @param reference     mapped transfer object relation
+     * @param id            instance ID
+     * @param referencedIds referenced instances
+     * @return completed when references are removed
+     */
+    CompletableFuture<Void> removeReferences(EReference reference, ID id, Collection<ID> referencedIds);
+
+    /**
+     * Asynchronous variant of {@link DAO#getAllReferencedInstancesOf(EReference, EClass)}.
+     *
+     * @param reference static navigation
+     * @param clazz     mapped transfer object type
+     * @return instances that are matching a static navigation
+     */
+    CompletableFuture<List<Payload>> getAllReferencedInstancesOf(EReference reference, EClass clazz);
+
+    /**
+     * Asynchronous variant of {@link DAO#countAllReferencedInstancesOf(EReference, EClass)}.
+     *
+     * @param reference static navigation
+     * @param clazz     mapped transfer object type
+     * @return number of instances that are matching a static navigation
+     */
+    CompletableFuture<Long> countAllReferencedInstancesOf(EReference reference, EClass clazz);
+
+    /**
+     * Asynchronous variant of {@link DAO#searchReferencedInstancesOf(EReference, EClass, DAO.QueryCustomizer)}.
+     *
+     * @param reference       static navigation
+     * @param clazz           mapped transfer object type
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return instances that are matching a static navigation
+     */
+    CompletableFuture<List<Payload>> searchReferencedInstancesOf(EReference reference, EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Asynchronous variant of {@link DAO#countReferencedInstancesOf(EReference, EClass, DAO.QueryCustomizer)}.
+     *
+     * @param reference       static navigation
+     * @param clazz           mapped transfer object type
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return number of instances that are matching a static navigation
+     */
+    CompletableFuture<Long> countReferencedInstancesOf(EReference reference, EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Asynchronous variant of {@link DAO#updateReferencedInstancesOf(EClass, EReference, Payload, DAO.QueryCustomizer)}.
+     *
+     * @param clazz           mapped transfer object type
+     * @param reference       static navigation
+     * @param payload         instance to update
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return updated instance
+     */
+    CompletableFuture<Payload> updateReferencedInstancesOf(EClass clazz, EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Asynchronous variant of {@link DAO#deleteReferencedInstancesOf(EClass, EReference, Payload)}.
+     *
+     * @param clazz     mapped transfer object type
+     * @param reference static navigation
+     * @param payload   instance to delete
+     * @return completed when instance is deleted
+     */
+    CompletableFuture<Void> deleteReferencedInstancesOf(EClass clazz, EReference reference, Payload payload);
+
+    /**
+     * Asynchronous variant of {@link DAO#setReferencesOfReferencedInstancesOf(EReference, EReference, Object, Collection)}.
+     *
+     * @param reference      static navigation
+     * @param referenceToSet transfer object relation to set
+     * @param instanceId     instance to update
+     * @param referencedIds  referenced instances
+     * @return completed when reference is set
+     */
+    CompletableFuture<Void> setReferencesOfReferencedInstancesOf(EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds);
+
+    /**
+     * Asynchronous variant of {@link DAO#unsetReferencesOfReferencedInstancesOf(EReference, EReference, Object)}.
+     *
+     * @param reference      static navigation
+     * @param referenceToSet transfer object relation to set
+     * @param instanceId     instance to update
+     * @return completed when reference is unset
+     */
+    CompletableFuture<Void> unsetReferencesOfReferencedInstancesOf(EReference reference, EReference referenceToSet, ID instanceId);
+
+    /**
+     * Asynchronous variant of {@link DAO#addAllReferencesOfReferencedInstancesOf(EReference, EReference, Object, Collection)}.
+     *
+     * @param reference      static navigation
+     * @param referenceToSet transfer object relation to set
+     * @param instanceId     instance to update
+     * @param referencedIds  referenced instances
+     * @return completed when references are added
+     */
+    CompletableFuture<Void> addAllReferencesOfReferencedInstancesOf(EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds);
+
+    /**
+     * Asynchronous variant of {@link DAO#removeAllReferencesOfReferencedInstancesOf(EReference, EReference, Object, Collection)}.
+     *
+     * @param reference      static navigation
+     * @param referenceToSet transfer object relation to set
+     * @param instanceId     instance to update
+     * @param referencedIds  referenced instances
+     * @return completed when references are removed
+     */
+    CompletableFuture<Void> removeAllReferencesOfReferencedInstancesOf(EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds);
+
+    /**
+     * Asynchronous variant of {@link DAO#getNavigationResultAt(Object, EReference)}.
+     *
+     * @param id        ID of source mapped transfer object
+     * @param reference transfer object reference
+     * @return list of instances
+     */
+    CompletableFuture<List<Payload>> getNavigationResultAt(ID id, EReference reference);
+
+    /**
+     * Asynchronous variant of {@link DAO#countNavigationResultAt(Object, EReference)}.
+     *
+     * @param id        ID of source mapped transfer object
+     * @param reference transfer object reference
+     * @return number of instances
+     */
+    CompletableFuture<Long> countNavigationResultAt(ID id, EReference reference);
+
+    /**
+     * Asynchronous variant of {@link DAO#searchNavigationResultAt(Object, EReference, DAO.QueryCustomizer)}.
+     *
+     * @param id              ID of source mapped transfer object
+     * @param reference       transfer object reference
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return list of instances
+     */
+    CompletableFuture<List<Payload>> searchNavigationResultAt(ID id, EReference reference, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Asynchronous variant of {@link DAO#countNavigationResultAt(Object, EReference, DAO.QueryCustomizer)}.
+     *
+     * @param id              ID of source mapped transfer object
+     * @param reference       transfer object reference
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return number of instances
+     */
+    CompletableFuture<Long> countNavigationResultAt(ID id, EReference reference, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Asynchronous variant of {@link DAO#createNavigationInstanceAt(Object, EReference, Payload, DAO.QueryCustomizer)}.
+     *
+     * @param id              mapped transfer object ID in which the new instance will be created
+     * @param reference       transfer object relation that the new instance will be linked to
+     * @param payload         instance to create
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return created instance
+     */
+    CompletableFuture<Payload> createNavigationInstanceAt(ID id, EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Asynchronous variant of {@link DAO#updateNavigationInstanceAt(Object, EReference, Payload, DAO.QueryCustomizer)}.
+     *
+     * @param id              mapped transfer object ID in which the instance to update can be found
+     * @param reference       transfer object relation that the instance to update is linked in (pre condition)
+     * @param payload         instance to update
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return updated instance
+     */
+    CompletableFuture<Payload> updateNavigationInstanceAt(ID id, EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Asynchronous variant of {@link DAO#deleteNavigationInstanceAt(Object, EReference, Payload)}.
+     *
+     * @param id        mapped transfer object ID in which the instance to delete can be found
+     * @param reference transfer object relation that the instance to delete is linked in (pre condition)
+     * @param payload   instance to delete
+     * @return completed when instance is deleted
+     */
+    CompletableFuture<Void> deleteNavigationInstanceAt(ID id, EReference reference, Payload payload);
+
+    /**
+     * Asynchronous variant of {@link DAO#setReferencesOfNavigationInstanceAt(Object, EReference, EReference, Object, Collection)}.
+     *
+     * @param id             mapped transfer object ID in which the instance to update can be found
+     * @param reference      transfer object relation that the instance to update is linked in (pre condition)
+     * @param referenceToSet transfer object relation to set
+     * @param instanceId     instance to update
+     * @param referencedIds  referenced instances
+     * @return completed when reference is set
+     */
+    CompletableFuture<Void> setReferencesOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds);
+
+    /**
+     * Asynchronous variant of {@link DAO#unsetReferenceOfNavigationInstanceAt(Object, EReference, EReference, Object)}.
+     *
+     * @param id             mapped transfer object ID in which the instance to update can be found
+     * @param reference      transfer object relation that the instance to update is linked in (pre condition)
+     * @param referenceToSet transfer object relation to set
+     * @param instanceId     instance to update
+     * @return completed when reference is unset
+     */
+    CompletableFuture<Void> unsetReferenceOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId);
+
+    /**
+     * Asynchronous variant of {@link DAO#addAllReferencesOfNavigationInstanceAt(Object, EReference, EReference, Object, Collection)}.
+     *
+     * @param id             mapped transfer object ID in which the instance to update can be found
+     * @param reference      transfer object relation that the instance to update is linked in (pre condition)
+     * @param referenceToSet transfer object relation to set
+     * @param instanceId     instance to update
+     * @param referencedIds  referenced instances
+     * @return completed when references are added
+     */
+    CompletableFuture<Void> addAllReferencesOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds);
+
+    /**
+     * Asynchronous variant of {@link DAO#removeAllReferencesOfNavigationInstanceAt(Object, EReference, EReference, Object, Collection)}.
+     *
+     * @param id             mapped transfer object ID in which the instance to update can be found
+     * @param reference      transfer object relation that the instance to update is linked in (pre condition)
+     * @param referenceToSet transfer object relation to set
+     * @param instanceId     instance to update
+     * @param referencedIds  referenced instances
+     * @return completed when references are removed
+     */
+    CompletableFuture<Void> removeAllReferencesOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds);
+
+    /**
+     * Publish instances of a given mapped transfer object type, rows are fetched as requested by the subscriber.
+     *
+     * @param clazz     mapped transfer object type
+     * @param fetchSize number of rows fetched at once
+     * @return publisher of instances, query is executed for each subscriber
+     */
+    Flow.Publisher<Payload> publishAllOf(EClass clazz, int fetchSize);
+
+    /**
+     * Publish result of search, rows are fetched as requested by the subscriber.
+     *
+     * @param clazz           mapped transfer object type
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @param fetchSize       number of rows fetched at once
+     * @return publisher of instances, query is executed for each subscriber
+     */
+    Flow.Publisher<Payload> publishSearch(EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer, int fetchSize);
+
+    /**
+     * Publish instances of a given reference from a given mapped transfer object, rows are fetched as requested by the
+     * subscriber.
+     *
+     * @param id              ID of source mapped transfer object
+     * @param reference       transfer object reference
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @param fetchSize       number of rows fetched at once
+     * @return publisher of instances, query is executed for each subscriber
+     */
+    Flow.Publisher<Payload> publishNavigationResultAt(ID id, EReference reference, DAO.QueryCustomizer<ID> queryCustomizer, int fetchSize);
+
+    /**
+     * Publish mapped transfer objects of a given reference (static navigation), rows are fetched as requested by the
+     * subscriber.
+     *
+     * @param reference       static navigation
+     * @param clazz           mapped transfer object type
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @param fetchSize       number of rows fetched at once
+     * @return publisher of instances, query is executed for each subscriber
+     */
+    Flow.Publisher<Payload> publishReferencedInstancesOf(EReference reference, EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer, int fetchSize);
+}
@@ -0,0 +1,271 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link UnitOfWork} executing operations by bulk operations of a {@link DAO}, used by default implementation of
+ * {@link DAO#beginBatch(int)}.
+ *
+ * @param <ID> type of identifiers
+ */
+final class BatchingUnitOfWork<ID> implements UnitOfWork<ID> {
+
+    private final DAO<ID> dao;
+
+    private final int batchSize;
+
+    private final List<Operation<ID>> operations = new ArrayList<>();
+
+    private boolean closed;
+
+    BatchingUnitOfWork(DAO<ID> dao, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.dao = dao;
+        this.batchSize = batchSize;
+    }
+
+    private <T> CompletableFuture<T> register(Operation<ID> operation) {
+        if (closed) {
+            throw new IllegalStateException("Unit of work is closed");
+        }
+        operations.add(operation);
+        return (CompletableFuture<T>) (CompletableFuture<?>) operation.result;
+    }
+
+    @Override
+    public CompletableFuture<Payload> create(EClass clazz, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return register(new Operation<>(Kind.CREATE, clazz, null, queryCustomizer, payload, null, null));
+    }
+
+    @Override
+    public CompletableFuture<Payload> update(EClass clazz, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return register(new Operation<>(Kind.UPDATE, clazz, null, queryCustomizer, payload, null, null));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(EClass clazz, ID id) {
+        return register(new Operation<>(Kind.DELETE, clazz, null, null, null, id, null));
+    }
+
+    @Override
+    public CompletableFuture<Void> setReference(EReference reference, ID id, Collection<ID> referencedIds) {
+        return register(new Operation<>(Kind.SET_REFERENCE, null, reference, null, null, id, referencedIds));
+    }
+
+    @Override
+    public CompletableFuture<Void> unsetReference(EReference reference, ID id) {
+        return register(new Operation<>(Kind.UNSET_REFERENCE, null, reference, null, null, id, null));
+    }
+
+    @Override
+    public CompletableFuture<Void> addReferences(EReference reference, ID id, Collection<ID> referencedIds) {
+        return register(new Operation<>(Kind.ADD_REFERENCES, null, reference, null, null, id, referencedIds));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeReferences(EReference reference, ID id, Collection<ID> referencedIds) {
+        return register(new Operation<>(Kind.REMOVE_REFERENCES, null, reference, null, null, id, referencedIds));
+    }
+
+    @Override
+    public int size() {
+        return operations.size();
+    }
+
+    @Override
+    public void flush() {
+        List<Operation<ID>> pending = new ArrayList<>(operations);
+        operations.clear();
+
+        List<List<Operation<ID>>> groups = new ArrayList<>();
+        for (Operation<ID> operation : pending) {
+            List<Operation<ID>> target = null;
+            for (int i = groups.size() - 1; i >= 0; i--) {
+                Operation<ID> last = groups.get(i).get(0);
+                if (last.groupKey().equals(operation.groupKey())) {
+                    target = groups.get(i);
+                    break;
+                } else if (!last.isIndependentOf(operation)) {
+                    break;
+                }
+            }
+            if (target == null) {
+                target = new ArrayList<>();
+                groups.add(target);
+            }
+            target.add(operation);
+        }
+
+        int executed = 0;
+        try {
+            for (List<Operation<ID>> group : groups) {
+                for (int from = 0; from < group.size(); from += batchSize) {
+                    List<Operation<ID>> chunk = group.subList(from, Math.min(from + batchSize, group.size()));
+                    execute(chunk);
+                    executed += chunk.size();
+                }
+            }
+        } catch (RuntimeException e) {
+            List<Operation<ID>> failed = new ArrayList<>();
+            groups.forEach(failed::addAll);
+            for (Operation<ID> operation : failed.subList(executed, failed.size())) {
+                operation.result.completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+
+    private void execute(List<Operation<ID>> chunk) {
+        Operation<ID> first = chunk.get(0);
+        switch (first.kind) {
+            case CREATE:
+            case UPDATE: {
+                List<Payload> payloads = new ArrayList<>(chunk.size());
+                for (Operation<ID> operation : chunk) {
+                    payloads.add(operation.payload);
+                }
+                List<Payload> results = first.kind == Kind.CREATE
+                        ? dao.createAll(first.clazz, payloads, first.queryCustomizer)
+                        : dao.updateAll(first.clazz, payloads, first.queryCustomizer);
+                if (results == null || results.size() != chunk.size()) {
+                    throw new IllegalStateException("Number of results does not match number of instances: "
+                            + (results != null ? results.size() : null) + " <> " + chunk.size());
+                }
+                for (int i = 0; i < chunk.size(); i++) {
+                    chunk.get(i).result.complete(results.get(i));
+                }
+                return;
+            }
+            case DELETE: {
+                List<ID> ids = new ArrayList<>(chunk.size());
+                for (Operation<ID> operation : chunk) {
+                    ids.add(operation.id);
+                }
+                dao.deleteAll(first.clazz, ids);
+                break;
+            }
+            case UNSET_REFERENCE:
+                for (Operation<ID> operation : chunk) {
+                    dao.unsetReference(operation.reference, operation.id);
+                }
+                break;
+            default: {
+                Map<ID, Collection<ID>> referencedIds = new LinkedHashMap<>();
+                for (Operation<ID> operation : chunk) {
+                    if (first.kind == Kind.SET_REFERENCE) {
+                        referencedIds.put(operation.id, operation.referencedIds);
+                    } else {
+                        referencedIds.computeIfAbsent(operation.id, id -> new LinkedHashSet<>()).addAll(operation.referencedIds);
+                    }
+                }
+                executeReferences(first.kind, first.reference, referencedIds);
+            }
+        }
+        for (Operation<ID> operation : chunk) {
+            operation.result.complete(null);
+        }
+    }
+
+    private void executeReferences(Kind kind, EReference reference, Map<ID, Collection<ID>> referencedIds) {
+        switch (kind) {
+            case SET_REFERENCE:
+                dao.setReferenceAll(reference, referencedIds);
+                break;
+            case ADD_REFERENCES:
+                dao.addReferencesAll(reference, referencedIds);
+                break;
+            case REMOVE_REFERENCES:
+                dao.removeReferencesAll(reference, referencedIds);
+                break;
+            default:
+                throw new IllegalStateException("Unsupported operation: " + kind);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            flush();
+        }
+    }
+
+    private enum Kind {
+        CREATE, UPDATE, SET_REFERENCE, UNSET_REFERENCE, ADD_REFERENCES, REMOVE_REFERENCES, DELETE
+    }
+
+    private static final class Operation<ID> {
+
+        private final Kind kind;
+
+        private final EClass clazz;
+
+        private final EReference reference;
+
+        private final DAO.QueryCustomizer<ID> queryCustomizer;
+
+        private final Payload payload;
+
+        private final ID id;
+
+        private final Collection<ID> referencedIds;
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Operation(Kind kind, EClass clazz, EReference reference, DAO.QueryCustomizer<ID> queryCustomizer,
+                          Payload payload, ID id, Collection<ID> referencedIds) {
+            this.kind = kind;
+            this.clazz = clazz;
+            this.reference = reference;
+            this.queryCustomizer = queryCustomizer;
+            this.payload = payload;
+            this.id = id;
+            this.referencedIds = referencedIds;
+        }
+
+        private List<Object> groupKey() {
+            return Arrays.asList(kind, clazz, reference, queryCustomizer);
+        }
+
+        /**
+         * Check if operations can be executed in any order. Only creates of unrelated types are independent, other
+         * operations may touch the same instances (i.e. by another transfer object type or by reference).
+         */
+        private boolean isIndependentOf(Operation<ID> other) {
+            return kind == Kind.CREATE && other.kind == Kind.CREATE
+                    && !clazz.isSuperTypeOf(other.clazz) && !other.clazz.isSuperTypeOf(clazz);
+        }
+    }
+}
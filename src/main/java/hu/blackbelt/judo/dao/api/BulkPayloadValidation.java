@@ -0,0 +1,151 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EClass;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Parallel validation of a collection of payloads, see
+ * {@link PayloadValidator#validatePayloads(EClass, Iterable, Map, int, Executor, Consumer)}.
+ * <p>
+ * Input is read on the calling thread and split into chunks validated by the executor. Number of chunks in progress
+ * is limited so huge inputs are not loaded into memory at once. Results are passed to the sink one at a time
+ * (calls are serialized), results of a row are passed together. Maximum number of errors is checked after each row,
+ * so all results of the row reaching it are passed. Validation stops if a chunk fails.
+ */
+class BulkPayloadValidation {
+
+    static final int CHUNK_SIZE = 256;
+
+    static final int MAX_CHUNKS_IN_PROGRESS = 16;
+
+    private final PayloadValidator validator;
+
+    private final EClass transferObjectType;
+
+    private final Map<String, Object> validationContext;
+
+    private final int maxErrors;
+
+    private final Consumer<ValidationResult> sink;
+
+    private long errors;
+
+    private volatile boolean stopped;
+
+    BulkPayloadValidation(PayloadValidator validator, EClass transferObjectType, Map<String, Object> validationContext,
+                          int maxErrors, Consumer<ValidationResult> sink) {
+        if (maxErrors <= 0) {
+            throw new IllegalArgumentException("Maximum number of errors must be positive: " + maxErrors);
+        }
+        this.validator = validator;
+        this.transferObjectType = transferObjectType;
+        this.validationContext = validationContext;
+        this.maxErrors = maxErrors;
+        this.sink = sink;
+    }
+
+    long run(Iterable<Payload> inputs, Executor executor) {
+        Semaphore permits = new Semaphore(MAX_CHUNKS_IN_PROGRESS);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        List<Payload> chunk = new ArrayList<>(CHUNK_SIZE);
+        int row = 0;
+        int chunkStart = 0;
+        for (Payload input : inputs) {
+            if (stopped) {
+                break;
+            }
+            chunk.add(input);
+            row++;
+            if (chunk.size() == CHUNK_SIZE) {
+                futures.add(submit(chunk, chunkStart, executor, permits));
+                chunk = new ArrayList<>(CHUNK_SIZE);
+                chunkStart = row;
+            }
+        }
+        if (!chunk.isEmpty() && !stopped) {
+            futures.add(submit(chunk, chunkStart, executor, permits));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+        synchronized (this) {
+            return errors;
+        }
+    }
+
+    private CompletableFuture<Void> submit(List<Payload> chunk, int chunkStart, Executor executor, Semaphore permits) {
+        permits.acquireUninterruptibly();
+        try {
+            return CompletableFuture.runAsync(() -> validate(chunk, chunkStart), executor)
+                    .whenComplete((result, throwable) -> {
+                        if (throwable != null) {
+                            stopped = true;
+                        }
+                        permits.release();
+                    });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void validate(List<Payload> chunk, int chunkStart) {
+        for (int i = 0; i < chunk.size() && !stopped; i++) {
+            Collection<ValidationResult> results = validator.validatePayload(transferObjectType, chunk.get(i), validationContext, false);
+            if (!results.isEmpty()) {
+                publish(results, chunkStart + i);
+            }
+        }
+    }
+
+    private synchronized void publish(Collection<ValidationResult> results, int row) {
+        if (stopped) {
+            return;
+        }
+        for (ValidationResult result : results) {
+            sink.accept(result.toBuilder().row(row).build());
+            if (result.getLevel() == ValidationResult.Level.ERROR) {
+                errors++;
+            }
+        }
+        if (errors >= maxErrors) {
+            stopped = true;
+        }
+    }
+}
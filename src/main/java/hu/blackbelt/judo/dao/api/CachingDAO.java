@@ -0,0 +1,608 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import lombok.NonNull;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * {@link DAO} decorator caching instances by identifier: {@link #getByIdentifier(EClass, Object)},
+ * {@link #getByIdentifiers(EClass, Collection)}, {@link #existsById(EClass, Object)} and
+ * {@link #getMetadata(EClass, Object)} are served from caches of mapped transfer object types. Missing instances
+ * are cached too. Caches are bounded by size and entries expire after a given time.
+ * <p>
+ * Mutating operations evict the instances they touch (by identifier) from the caches of all types, so instances
+ * mapped by several transfer object types are evicted consistently. Embedded (contained) instances of payloads passed
+ * to or returned by mutating operations (and of the cached versions of updated and deleted instances) are evicted too.
+ * Each eviction increments the generation of the identifier (generations are striped), instances loaded
+ * concurrently with a mutation are not cached if the generation is changed while loading, so stale instances are not
+ * stored after eviction. Changes made bypassing this DAO (i.e. by other cluster nodes) are visible only after
+ * expiration.
+ * <p>
+ * Cached payloads are frozen (see {@link Payload#freeze()}), they must not be modified by callers. Payloads returned
+ * by the delegate must contain identifier (see {@link IdentifierProvider#getName()}).
+ *
+ * @param <ID> type of identifiers
+ */
+public class CachingDAO<ID> extends ForwardingDAO<ID> {
+
+    private final IdentifierProvider<ID> identifierProvider;
+
+    private final long maximumSize;
+
+    private final Duration expireAfterWrite;
+
+    private final Map<EClass, TypeCache<ID>> caches = new ConcurrentHashMap<>();
+
+    private static final int GENERATION_STRIPES = 256;
+
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final Object[] generationLocks = new Object[GENERATION_STRIPES];
+
+    /**
+     * Create a caching DAO.
+     *
+     * @param delegate           DAO to cache
+     * @param identifierProvider identifier provider (name of identifier key in payloads)
+     * @param maximumSize        maximum number of cached instances per mapped transfer object type
+     * @param expireAfterWrite   time after instances are reloaded
+     */
+    public CachingDAO(@NonNull DAO<ID> delegate, @NonNull IdentifierProvider<ID> identifierProvider,
+                      long maximumSize, @NonNull Duration expireAfterWrite) {
+        super(delegate);
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        this.identifierProvider = identifierProvider;
+        this.maximumSize = maximumSize;
+        this.expireAfterWrite = expireAfterWrite;
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generationLocks[i] = new Object();
+        }
+    }
+
+    private TypeCache<ID> cacheOf(EClass clazz) {
+        return caches.computeIfAbsent(clazz, c -> new TypeCache<>(maximumSize, expireAfterWrite));
+    }
+
+    private static int stripeOf(Object id) {
+        int h = id.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private Optional<Payload> load(Cache<ID, Optional<Payload>> cache, ID id, Supplier<Optional<Payload>> loader) {
+        Optional<Payload> cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = generations.get(stripeOf(id));
+        Optional<Payload> loaded = loader.get();
+        store(cache, id, loaded, generation);
+        return loaded;
+    }
+
+    /**
+     * Store an instance loaded when generation of its identifier was a given value, instance is dropped if it is
+     * evicted (generation is changed) since then.
+     */
+    private void store(Cache<ID, Optional<Payload>> cache, ID id, Optional<Payload> loaded, long generation) {
+        int stripe = stripeOf(id);
+        synchronized (generationLocks[stripe]) {
+            if (generations.get(stripe) == generation) {
+                cache.put(id, loaded);
+            }
+        }
+    }
+
+    private ID identifierOf(Payload payload) {
+        return payload != null ? (ID) payload.get(identifierProvider.getName()) : null;
+    }
+
+    /**
+     * Get cache statistics of a given mapped transfer object type.
+     *
+     * @param clazz mapped transfer object type
+     * @return statistics of instance cache
+     */
+    public CacheStats getStats(EClass clazz) {
+        return cacheOf(clazz).instances.stats();
+    }
+
+    /**
+     * Evict instances from the caches of all mapped transfer object types.
+     *
+     * @param ids instance IDs
+     */
+    public void invalidate(Collection<ID> ids) {
+        if (ids == null) {
+            return;
+        }
+        for (ID id : ids) {
+            invalidate(id);
+        }
+    }
+
+    /**
+     * Evict all instances of a given mapped transfer object type.
+     *
+     * @param clazz mapped transfer object type
+     */
+    public void invalidateAll(EClass clazz) {
+        caches.remove(clazz);
+    }
+
+    /**
+     * Evict all instances.
+     */
+    public void invalidateAll() {
+        caches.clear();
+    }
+
+    private void invalidate(ID id) {
+        if (id != null) {
+            int stripe = stripeOf(id);
+            synchronized (generationLocks[stripe]) {
+                generations.incrementAndGet(stripe);
+                for (TypeCache<ID> cache : caches.values()) {
+                    cache.instances.invalidate(id);
+                    cache.metadata.invalidate(id);
+                }
+            }
+        }
+    }
+
+    private void invalidate(ID id, Collection<ID> referencedIds) {
+        Set<ID> ids = new LinkedHashSet<>();
+        if (id != null) {
+            ids.add(id);
+        }
+        if (referencedIds != null) {
+            ids.addAll(referencedIds);
+        }
+        invalidate(ids);
+    }
+
+    private void invalidate(Map<ID, Collection<ID>> referencedIds) {
+        Set<ID> ids = new LinkedHashSet<>(referencedIds.keySet());
+        referencedIds.values().forEach(ids::addAll);
+        invalidate(ids);
+    }
+
+    private void invalidatePayloads(EClass clazz, Iterable<Payload> payloads) {
+        Set<ID> ids = new LinkedHashSet<>();
+        if (payloads != null) {
+            for (Payload payload : payloads) {
+                collectIdentifiers(clazz, payload, ids);
+                collectIdentifiers(clazz, cachedInstanceOf(clazz, identifierOf(payload)), ids);
+            }
+        }
+        invalidate(ids);
+    }
+
+    private void invalidatePayload(EClass clazz, Payload payload) {
+        Set<ID> ids = new LinkedHashSet<>();
+        collectIdentifiers(clazz, payload, ids);
+        collectIdentifiers(clazz, cachedInstanceOf(clazz, identifierOf(payload)), ids);
+        invalidate(ids);
+    }
+
+    private void invalidateInstance(EClass clazz, ID id) {
+        Set<ID> ids = new LinkedHashSet<>();
+        if (id != null) {
+            ids.add(id);
+        }
+        collectIdentifiers(clazz, cachedInstanceOf(clazz, id), ids);
+        invalidate(ids);
+    }
+
+    private Payload cachedInstanceOf(EClass clazz, ID id) {
+        TypeCache<ID> cache = id != null ? caches.get(clazz) : null;
+        Optional<Payload> cached = cache != null ? cache.instances.asMap().get(id) : null;
+        return cached != null ? cached.orElse(null) : null;
+    }
+
+    /**
+     * Collect identifiers of a payload and its embedded (contained) instances.
+     */
+    private void collectIdentifiers(EClass clazz, Payload payload, Set<ID> ids) {
+        if (payload == null) {
+            return;
+        }
+        ID id = identifierOf(payload);
+        if (id != null) {
+            ids.add(id);
+        }
+        if (clazz == null) {
+            return;
+        }
+        for (EReference reference : clazz.getEAllReferences()) {
+            if (!reference.isContainment()) {
+                continue;
+            }
+            Object value = payload.get(reference.getName());
+            if (value instanceof Payload) {
+                collectIdentifiers(reference.getEReferenceType(), (Payload) value, ids);
+            } else if (value instanceof Collection) {
+                for (Object item : (Collection<?>) value) {
+                    if (item instanceof Payload) {
+                        collectIdentifiers(reference.getEReferenceType(), (Payload) item, ids);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public Optional<Payload> getByIdentifier(EClass clazz, ID identifier) {
+        return load(cacheOf(clazz).instances, identifier,
+                () -> getDelegate().getByIdentifier(clazz, identifier).map(Payload::freeze));
+    }
+
+    @Override
+    public boolean existsById(EClass clazz, ID identifier) {
+        Optional<Payload> cached = cacheOf(clazz).instances.getIfPresent(identifier);
+        return cached != null ? cached.isPresent() : getDelegate().existsById(clazz, identifier);
+    }
+
+    @Override
+    public Optional<Payload> getMetadata(EClass clazz, ID identifier) {
+        return load(cacheOf(clazz).metadata, identifier,
+                () -> getDelegate().getMetadata(clazz, identifier).map(Payload::freeze));
+    }
+
+    @Override
+    public List<Payload> getByIdentifiers(EClass clazz, Collection<ID> identifiers) {
+        Cache<ID, Optional<Payload>> cache = cacheOf(clazz).instances;
+        Map<ID, Optional<Payload>> found = new LinkedHashMap<>();
+        Map<ID, Long> misses = new LinkedHashMap<>();
+        for (ID identifier : identifiers) {
+            Optional<Payload> cached = cache.getIfPresent(identifier);
+            found.put(identifier, cached);
+            if (cached == null) {
+                misses.put(identifier, generations.get(stripeOf(identifier)));
+            }
+        }
+        if (!misses.isEmpty()) {
+            for (Payload payload : getDelegate().getByIdentifiers(clazz, new ArrayList<>(misses.keySet()))) {
+                ID identifier = identifierOf(payload);
+                if (identifier != null) {
+                    found.put(identifier, Optional.of(payload.freeze()));
+                }
+            }
+            for (Map.Entry<ID, Long> miss : misses.entrySet()) {
+                Optional<Payload> loaded = found.get(miss.getKey());
+                if (loaded == null) {
+                    loaded = Optional.empty();
+                    found.put(miss.getKey(), loaded);
+                }
+                store(cache, miss.getKey(), loaded, miss.getValue());
+            }
+        }
+        List<Payload> result = new ArrayList<>(found.size());
+        for (Optional<Payload> payload : found.values()) {
+            payload.ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public Payload create(EClass clazz, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        Payload result = getDelegate().create(clazz, payload, queryCustomizer);
+        invalidatePayload(clazz, result);
+        return result;
+    }
+
+    @Override
+    public List<Payload> createAll(EClass clazz, Iterable<Payload> payloads, DAO.QueryCustomizer<ID> queryCustomizer) {
+        List<Payload> result = getDelegate().createAll(clazz, payloads, queryCustomizer);
+        invalidatePayloads(clazz, result);
+        return result;
+    }
+
+    @Override
+    public Payload update(EClass clazz, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        try {
+            return getDelegate().update(clazz, payload, queryCustomizer);
+        } finally {
+            invalidatePayload(clazz, payload);
+        }
+    }
+
+    @Override
+    public List<Payload> updateAll(EClass clazz, Iterable<Payload> payloads, DAO.QueryCustomizer<ID> queryCustomizer) {
+        try {
+            return getDelegate().updateAll(clazz, payloads, queryCustomizer);
+        } finally {
+            invalidatePayloads(clazz, payloads);
+        }
+    }
+
+    @Override
+    public Payload updateDelta(EClass clazz, ID identifier, Payload delta, DAO.QueryCustomizer<ID> queryCustomizer) {
+        try {
+            return getDelegate().updateDelta(clazz, identifier, delta, queryCustomizer);
+        } finally {
+            invalidatePayload(clazz, delta);
+            invalidateInstance(clazz, identifier);
+        }
+    }
+
+    @Override
+    public void delete(EClass clazz, ID id) {
+        try {
+            getDelegate().delete(clazz, id);
+        } finally {
+            invalidateInstance(clazz, id);
+        }
+    }
+
+    @Override
+    public void deleteAll(EClass clazz, Iterable<ID> ids) {
+        try {
+            getDelegate().deleteAll(clazz, ids);
+        } finally {
+            for (ID id : ids) {
+                invalidateInstance(clazz, id);
+            }
+        }
+    }
+
+    @Override
+    public UnitOfWork<ID> beginBatch(int batchSize) {
+        return new BatchingUnitOfWork<>(this, batchSize);
+    }
+
+    @Override
+    public void setReference(EReference reference, ID id, Collection<ID> referencedIds) {
+        try {
+            getDelegate().setReference(reference, id, referencedIds);
+        } finally {
+            invalidate(id, referencedIds);
+        }
+    }
+
+    @Override
+    public void unsetReference(EReference reference, ID id) {
+        try {
+            getDelegate().unsetReference(reference, id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public void addReferences(EReference reference, ID id, Collection<ID> referencedIds) {
+        try {
+            getDelegate().addReferences(reference, id, referencedIds);
+        } finally {
+            invalidate(id, referencedIds);
+        }
+    }
+
+    @Override
+    public void removeReferences(EReference reference, ID id, Collection<ID> referencedIds) {
+        try {
+            getDelegate().removeReferences(reference, id, referencedIds);
+        } finally {
+            invalidate(id, referencedIds);
+        }
+    }
+
+    @Override
+    public void setReferenceAll(EReference reference, Map<ID, Collection<ID>> referencedIds) {
+        try {
+            getDelegate().setReferenceAll(reference, referencedIds);
+        } finally {
+            invalidate(referencedIds);
+        }
+    }
+
+    @Override
+    public void addReferencesAll(EReference reference, Map<ID, Collection<ID>> referencedIds) {
+        try {
+            getDelegate().addReferencesAll(reference, referencedIds);
+        } finally {
+            invalidate(referencedIds);
+        }
+    }
+
+    @Override
+    public void removeReferencesAll(EReference reference, Map<ID, Collection<ID>> referencedIds) {
+        try {
+            getDelegate().removeReferencesAll(reference, referencedIds);
+        } finally {
+            invalidate(referencedIds);
+        }
+    }
+
+    @Override
+    public Payload updateReferencedInstancesOf(EClass clazz, EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        try {
+            return getDelegate().updateReferencedInstancesOf(clazz, reference, payload, queryCustomizer);
+        } finally {
+            invalidatePayload(reference.getEReferenceType(), payload);
+        }
+    }
+
+    @Override
+    public void deleteReferencedInstancesOf(EClass clazz, EReference reference, Payload payload) {
+        try {
+            getDelegate().deleteReferencedInstancesOf(clazz, reference, payload);
+        } finally {
+            invalidatePayload(reference.getEReferenceType(), payload);
+        }
+    }
+
+    @Override
+    public void setReferencesOfReferencedInstancesOf(EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        try {
+            getDelegate().setReferencesOfReferencedInstancesOf(reference, referenceToSet, instanceId, referencedIds);
+        } finally {
+            invalidate(instanceId, referencedIds);
+        }
+    }
+
+    @Override
+    public void unsetReferencesOfReferencedInstancesOf(EReference reference, EReference referenceToSet, ID instanceId) {
+        try {
+            getDelegate().unsetReferencesOfReferencedInstancesOf(reference, referenceToSet, instanceId);
+        } finally {
+            invalidate(instanceId);
+        }
+    }
+
+    @Override
+    public void addAllReferencesOfReferencedInstancesOf(EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        try {
+            getDelegate().addAllReferencesOfReferencedInstancesOf(reference, referenceToSet, instanceId, referencedIds);
+        } finally {
+            invalidate(instanceId, referencedIds);
+        }
+    }
+
+    @Override
+    public void removeAllReferencesOfReferencedInstancesOf(EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        try {
+            getDelegate().removeAllReferencesOfReferencedInstancesOf(reference, referenceToSet, instanceId, referencedIds);
+        } finally {
+            invalidate(instanceId, referencedIds);
+        }
+    }
+
+    @Override
+    public Payload createNavigationInstanceAt(ID id, EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        Payload result = getDelegate().createNavigationInstanceAt(id, reference, payload, queryCustomizer);
+        invalidate(id);
+        invalidatePayload(reference.getEReferenceType(), result);
+        return result;
+    }
+
+    @Override
+    public Payload updateNavigationInstanceAt(ID id, EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        try {
+            return getDelegate().updateNavigationInstanceAt(id, reference, payload, queryCustomizer);
+        } finally {
+            invalidate(id);
+            invalidatePayload(reference.getEReferenceType(), payload);
+        }
+    }
+
+    @Override
+    public void deleteNavigationInstanceAt(ID id, EReference reference, Payload payload) {
+        try {
+            getDelegate().deleteNavigationInstanceAt(id, reference, payload);
+        } finally {
+            invalidate(id);
+            invalidatePayload(reference.getEReferenceType(), payload);
+        }
+    }
+
+    @Override
+    public void setReferencesOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        try {
+            getDelegate().setReferencesOfNavigationInstanceAt(id, reference, referenceToSet, instanceId, referencedIds);
+        } finally {
+            invalidate(instanceId, referencedIds);
+        }
+    }
+
+    @Override
+    public void unsetReferenceOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId) {
+        try {
+            getDelegate().unsetReferenceOfNavigationInstanceAt(id, reference, referenceToSet, instanceId);
+        } finally {
+            invalidate(instanceId);
+        }
+    }
+
+    @Override
+    public void addAllReferencesOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        try {
+            getDelegate().addAllReferencesOfNavigationInstanceAt(id, reference, referenceToSet, instanceId, referencedIds);
+        } finally {
+            invalidate(instanceId, referencedIds);
+        }
+    }
+
+    @Override
+    public void addAllReferencesOfNavigationInstancesAt(ID id, EReference reference, EReference referenceToSet, Map<ID, Collection<ID>> referencedIds) {
+        try {
+            getDelegate().addAllReferencesOfNavigationInstancesAt(id, reference, referenceToSet, referencedIds);
+        } finally {
+            invalidate(referencedIds);
+        }
+    }
+
+    @Override
+    public void removeAllReferencesOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        try {
+            getDelegate().removeAllReferencesOfNavigationInstanceAt(id, reference, referenceToSet, instanceId, referencedIds);
+        } finally {
+            invalidate(instanceId, referencedIds);
+        }
+    }
+
+    @Override
+    public void removeAllReferencesOfNavigationInstancesAt(ID id, EReference reference, EReference referenceToSet, Map<ID, Collection<ID>> referencedIds) {
+        try {
+            getDelegate().removeAllReferencesOfNavigationInstancesAt(id, reference, referenceToSet, referencedIds);
+        } finally {
+            invalidate(referencedIds);
+        }
+    }
+
+    private static final class TypeCache<ID> {
+
+        private final Cache<ID, Optional<Payload>> instances;
+
+        private final Cache<ID, Optional<Payload>> metadata;
+
+        private TypeCache(long maximumSize, Duration expireAfterWrite) {
+            instances = CacheBuilder.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(expireAfterWrite)
+                    .recordStats()
+                    .build();
+            metadata = CacheBuilder.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(expireAfterWrite)
+                    .build();
+        }
+    }
+}
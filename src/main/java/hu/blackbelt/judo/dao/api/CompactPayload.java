@@ -0,0 +1,522 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EClass;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * {@link Payload} of a given transfer object type storing values in a flat array indexed by {@link PayloadSchema}.
+ * <p>
+ * Keys defined by the transfer object type are resolved to slots of the shared schema, other keys (i.e. transient
+ * and metadata keys) are stored in an additional sorted map. Iteration order is the natural order of keys, the same
+ * as of {@link PayloadImpl}.
+ * <p>
+ * Values of numeric and boolean attributes (see {@link PayloadSchema#primitiveTypeAt(int)}) are stored unboxed in a
+ * primitive array when set to a value of the attribute's own (wrapper) type. Typed accessors (i.e.
+ * {@link #getLong(String)}) and setters (i.e. {@link #putLong(String, long)}) of these attributes do not box, the
+ * {@link Map} view returns boxed values of the attribute's type.
+ */
+public class CompactPayload extends AbstractPayload {
+
+    private static final Object ABSENT = new Object();
+
+    private static final Object PRIMITIVE = new Object();
+
+    private final PayloadSchema schema;
+
+    private final Object[] values;
+
+    private final long[] primitives;
+
+    private int slotCount;
+
+    private TreeMap<String, Object> extension;
+
+    public CompactPayload(EClass type) {
+        this(PayloadSchema.of(type));
+    }
+
+    public CompactPayload(PayloadSchema schema) {
+        this.schema = schema;
+        this.values = new Object[schema.size()];
+        this.primitives = schema.hasPrimitiveSlots() ? new long[schema.size()] : null;
+        Arrays.fill(values, ABSENT);
+    }
+
+    public CompactPayload(EClass type, Map<String, Object> map) {
+        this(PayloadSchema.of(type), map);
+    }
+
+    public CompactPayload(PayloadSchema schema, Map<String, Object> map) {
+        this(schema);
+        for (Entry<String, Object> entry : map.entrySet()) {
+            String key = entry.getKey();
+            if (key == null) {
+                throw new IllegalArgumentException("Payload contains null key(s)");
+            }
+            int slot = schema.slotOf(key);
+            if (slot >= 0) {
+                setSlot(slot, toPayloadValue(schema.referencedSchemaAt(slot), entry.getValue()));
+            } else {
+                extension().put(key, toPayloadValue(entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Set value of a given key, nested maps and collections are converted the same way as by the constructor.
+     *
+     * @param key   key
+     * @param value value
+     */
+    void putConverted(String key, Object value) {
+        int slot = schema.slotOf(key);
+        if (slot >= 0) {
+            setSlot(slot, toPayloadValue(schema.referencedSchemaAt(slot), value));
+        } else {
+            extension().put(key, toPayloadValue(value));
+        }
+    }
+
+    static Object toPayloadValue(PayloadSchema referencedSchema, Object value) {
+        if (referencedSchema == null) {
+            return toPayloadValue(value);
+        } else if (value instanceof List) {
+            return ((List<Map<String, Object>>) value).stream().map(
+                    e -> asCompactPayload(referencedSchema, e)).collect(Collectors.toList());
+        } else if (value instanceof Collection) {
+            return ((Collection<Map<String, Object>>) value).stream().map(
+                    e -> asCompactPayload(referencedSchema, e)).collect(Collectors.toSet());
+        } else if (value instanceof Map) {
+            return asCompactPayload(referencedSchema, (Map<String, Object>) value);
+        } else {
+            return value;
+        }
+    }
+
+    private static Payload asCompactPayload(PayloadSchema schema, Map<String, Object> map) {
+        return map != null ? new CompactPayload(schema, map) : null;
+    }
+
+    private TreeMap<String, Object> extension() {
+        if (extension == null) {
+            extension = new TreeMap<>();
+        }
+        return extension;
+    }
+
+    public PayloadSchema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public int size() {
+        return slotCount + (extension != null ? extension.size() : 0);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int slot = schema.slotOf(key);
+        if (slot >= 0) {
+            return values[slot] != ABSENT;
+        }
+        return extension != null && key instanceof String && extension.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        int slot = schema.slotOf(key);
+        if (slot >= 0) {
+            return slotValue(slot);
+        }
+        return extension != null && key instanceof String ? extension.get(key) : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Payload contains null key(s)");
+        }
+        int slot = schema.slotOf(key);
+        if (slot >= 0) {
+            Object previous = slotValue(slot);
+            setSlot(slot, value);
+            return previous;
+        }
+        return extension().put(key, value);
+    }
+
+    /**
+     * Set value of a given slot of the schema. Values of the slot's primitive type are unboxed.
+     *
+     * @param slot  slot index
+     * @param value value
+     */
+    void setSlot(int slot, Object value) {
+        if (values[slot] == ABSENT) {
+            slotCount++;
+        }
+        Class<?> primitiveType = primitives != null && value != null ? schema.primitiveTypeAt(slot) : null;
+        if (primitiveType != null && value.getClass() == primitiveType) {
+            if (value instanceof Boolean) {
+                primitives[slot] = (Boolean) value ? 1L : 0L;
+            } else if (value instanceof Double || value instanceof Float) {
+                primitives[slot] = Double.doubleToRawLongBits(((Number) value).doubleValue());
+            } else {
+                primitives[slot] = ((Number) value).longValue();
+            }
+            values[slot] = PRIMITIVE;
+        } else {
+            values[slot] = value;
+        }
+    }
+
+    private Object slotValue(int slot) {
+        Object value = values[slot];
+        if (value == PRIMITIVE) {
+            return box(slot);
+        }
+        return value != ABSENT ? value : null;
+    }
+
+    private Object box(int slot) {
+        Class<?> primitiveType = schema.primitiveTypeAt(slot);
+        long primitive = primitives[slot];
+        if (primitiveType == Long.class) {
+            return primitive;
+        } else if (primitiveType == Integer.class) {
+            return (int) primitive;
+        } else if (primitiveType == Double.class) {
+            return Double.longBitsToDouble(primitive);
+        } else if (primitiveType == Boolean.class) {
+            return primitive != 0L;
+        } else if (primitiveType == Float.class) {
+            return (float) Double.longBitsToDouble(primitive);
+        } else if (primitiveType == Short.class) {
+            return (short) primitive;
+        } else {
+            return (byte) primitive;
+        }
+    }
+
+    private int primitiveSlotOf(String name) {
+        if (primitives == null) {
+            return -1;
+        }
+        int slot = schema.slotOf(name);
+        return slot >= 0 && values[slot] == PRIMITIVE ? slot : -1;
+    }
+
+    private static boolean isFloatingPoint(Class<?> primitiveType) {
+        return primitiveType == Double.class || primitiveType == Float.class;
+    }
+
+    @Override
+    public int getInt(String name) {
+        int slot = primitiveSlotOf(name);
+        if (slot >= 0) {
+            Class<?> primitiveType = schema.primitiveTypeAt(slot);
+            if (isFloatingPoint(primitiveType)) {
+                return toInt(name, toLong(name, Double.longBitsToDouble(primitives[slot])));
+            } else if (primitiveType != Boolean.class) {
+                return toInt(name, primitives[slot]);
+            }
+        }
+        return requireInt(name, get(name));
+    }
+
+    @Override
+    public int getInt(String name, int defaultValue) {
+        return primitiveSlotOf(name) >= 0 ? getInt(name) : super.getInt(name, defaultValue);
+    }
+
+    @Override
+    public long getLong(String name) {
+        int slot = primitiveSlotOf(name);
+        if (slot >= 0) {
+            Class<?> primitiveType = schema.primitiveTypeAt(slot);
+            if (isFloatingPoint(primitiveType)) {
+                return toLong(name, Double.longBitsToDouble(primitives[slot]));
+            } else if (primitiveType != Boolean.class) {
+                return primitives[slot];
+            }
+        }
+        return requireLong(name, get(name));
+    }
+
+    @Override
+    public long getLong(String name, long defaultValue) {
+        return primitiveSlotOf(name) >= 0 ? getLong(name) : super.getLong(name, defaultValue);
+    }
+
+    @Override
+    public double getDouble(String name) {
+        int slot = primitiveSlotOf(name);
+        if (slot >= 0) {
+            Class<?> primitiveType = schema.primitiveTypeAt(slot);
+            if (isFloatingPoint(primitiveType)) {
+                return Double.longBitsToDouble(primitives[slot]);
+            } else if (primitiveType != Boolean.class) {
+                return primitives[slot];
+            }
+        }
+        return requireNumber(name, get(name)).doubleValue();
+    }
+
+    @Override
+    public double getDouble(String name, double defaultValue) {
+        return primitiveSlotOf(name) >= 0 ? getDouble(name) : super.getDouble(name, defaultValue);
+    }
+
+    @Override
+    public boolean getBoolean(String name) {
+        int slot = primitiveSlotOf(name);
+        if (slot >= 0 && schema.primitiveTypeAt(slot) == Boolean.class) {
+            return primitives[slot] != 0L;
+        }
+        return requireBoolean(name, get(name));
+    }
+
+    @Override
+    public boolean getBoolean(String name, boolean defaultValue) {
+        return primitiveSlotOf(name) >= 0 ? getBoolean(name) : super.getBoolean(name, defaultValue);
+    }
+
+    /**
+     * Set <code>long</code> value without boxing if key is a <code>long</code> attribute of the type.
+     *
+     * @param name  key
+     * @param value value
+     */
+    public void putLong(String name, long value) {
+        if (!putPrimitive(name, Long.class, value)) {
+            put(name, value);
+        }
+    }
+
+    /**
+     * Set <code>int</code> value without boxing if key is an <code>int</code> attribute of the type.
+     *
+     * @param name  key
+     * @param value value
+     */
+    public void putInt(String name, int value) {
+        if (!putPrimitive(name, Integer.class, value)) {
+            put(name, value);
+        }
+    }
+
+    /**
+     * Set <code>double</code> value without boxing if key is a <code>double</code> attribute of the type.
+     *
+     * @param name  key
+     * @param value value
+     */
+    public void putDouble(String name, double value) {
+        if (!putPrimitive(name, Double.class, Double.doubleToRawLongBits(value))) {
+            put(name, value);
+        }
+    }
+
+    /**
+     * Set <code>boolean</code> value without boxing if key is a <code>boolean</code> attribute of the type.
+     *
+     * @param name  key
+     * @param value value
+     */
+    public void putBoolean(String name, boolean value) {
+        if (!putPrimitive(name, Boolean.class, value ? 1L : 0L)) {
+            put(name, value);
+        }
+    }
+
+    private boolean putPrimitive(String name, Class<?> primitiveType, long primitive) {
+        if (primitives == null) {
+            return false;
+        }
+        int slot = schema.slotOf(name);
+        if (slot < 0 || schema.primitiveTypeAt(slot) != primitiveType) {
+            return false;
+        }
+        if (values[slot] == ABSENT) {
+            slotCount++;
+        }
+        primitives[slot] = primitive;
+        values[slot] = PRIMITIVE;
+        return true;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int slot = schema.slotOf(key);
+        if (slot >= 0) {
+            if (values[slot] == ABSENT) {
+                return null;
+            }
+            Object previous = slotValue(slot);
+            values[slot] = ABSENT;
+            slotCount--;
+            return previous;
+        }
+        return extension != null && key instanceof String ? extension.remove(key) : null;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, ABSENT);
+        slotCount = 0;
+        extension = null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return CompactPayload.this.size();
+            }
+
+            @Override
+            public void clear() {
+                CompactPayload.this.clear();
+            }
+        };
+    }
+
+    private int nextSlot(int from) {
+        int slot = from;
+        while (slot < values.length && values[slot] == ABSENT) {
+            slot++;
+        }
+        return slot;
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+        private int nextSlot = nextSlot(0);
+
+        private String nextExtensionKey = extension != null && !extension.isEmpty() ? extension.firstKey() : null;
+
+        private String lastKey;
+
+        @Override
+        public boolean hasNext() {
+            return nextSlot < values.length || nextExtensionKey != null;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (nextExtensionKey == null
+                    || nextSlot < values.length && schema.keyAt(nextSlot).compareTo(nextExtensionKey) < 0) {
+                lastKey = schema.keyAt(nextSlot);
+                Entry<String, Object> entry = new SlotEntry(nextSlot);
+                nextSlot = nextSlot(nextSlot + 1);
+                return entry;
+            } else {
+                lastKey = nextExtensionKey;
+                Entry<String, Object> entry = new ExtensionEntry(nextExtensionKey);
+                nextExtensionKey = extension.higherKey(nextExtensionKey);
+                return entry;
+            }
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            CompactPayload.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    private final class SlotEntry implements Entry<String, Object> {
+
+        private final int slot;
+
+        private SlotEntry(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public String getKey() {
+            return schema.keyAt(slot);
+        }
+
+        @Override
+        public Object getValue() {
+            return slotValue(slot);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            return put(getKey(), value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return getKey().equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    private final class ExtensionEntry extends SimpleEntry<String, Object> {
+
+        private ExtensionEntry(String key) {
+            super(key, extension.get(key));
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            super.setValue(value);
+            return extension().put(getKey(), value);
+        }
+    }
+}
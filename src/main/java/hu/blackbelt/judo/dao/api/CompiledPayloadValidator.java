@@ -0,0 +1,83 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import lombok.Getter;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link PayloadValidator} using {@link ValidationPlan}s compiled once per transfer object type, model is not
+ * traversed on validation. Plans are cached by a {@link ValidationPlanRegistry} that must be invalidated when the
+ * model is reloaded.
+ */
+public class CompiledPayloadValidator implements PayloadValidator {
+
+    @Getter
+    private final ValidationPlanRegistry registry;
+
+    public CompiledPayloadValidator() {
+        this(new ValidationPlanRegistry());
+    }
+
+    public CompiledPayloadValidator(ValidationPlanRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Collection<ValidationResult> validatePayload(EClass transferObjectType, Payload input, Map<String, Object> validationContext, boolean throwValidationException) {
+        List<ValidationResult> results = registry.getPlan(transferObjectType).validate(input);
+        if (throwValidationException && results.stream().anyMatch(r -> r.getLevel() == ValidationResult.Level.ERROR)) {
+            throw new ValidationException("Invalid " + transferObjectType.getName() + " payload", results);
+        }
+        return results;
+    }
+
+    @Override
+    public Collection<ValidationResult> validateChanges(EClass transferObjectType, Payload input, Set<String> changedKeys, Map<String, Object> validationContext, boolean throwValidationException) {
+        List<ValidationResult> results = registry.getPlan(transferObjectType).validate(input, changedKeys);
+        if (throwValidationException && results.stream().anyMatch(r -> r.getLevel() == ValidationResult.Level.ERROR)) {
+            throw new ValidationException("Invalid " + transferObjectType.getName() + " payload", results);
+        }
+        return results;
+    }
+
+    /**
+     * Validate a reference of an instance. Invalid values are the values of embedded (containment) instances, so they
+     * are validated (with the constraints of the referenced type) only if they are not ignored, otherwise only the
+     * constraints of the reference itself (required, cardinality) are checked.
+     */
+    @Override
+    public Collection<ValidationResult> validateReference(EReference reference, Payload instance, Map<String, Object> validationContext, boolean ignoreInvalidValues) {
+        return registry.getPlan(reference.getEContainingClass()).validateReference(reference, instance, !ignoreInvalidValues);
+    }
+
+    @Override
+    public Collection<ValidationResult> validateAttribute(EAttribute attribute, Payload instance, Map<String, Object> validationContext) {
+        return registry.getPlan(attribute.getEContainingClass()).validateAttribute(attribute, instance);
+    }
+}
@@ -20,7 +20,9 @@ package hu.blackbelt.judo.dao.api;
  * #L%
  */
 
+import lombok.AccessLevel;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Singular;
@@ -29,6 +31,8 @@ import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EReference;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 public interface DAO<ID> {
 
@@ -76,6 +80,24 @@ public interface DAO<ID> {
      */
     Collection<Payload> getRangeOf(EReference reference, Payload payload, QueryCustomizer<ID> queryCustomizer, boolean stateful);
 
+    /**
+     * Get range of a given transfer object relation as a stream fetching rows lazily.
+     * <p>
+     * Stream holds backend resources until it is closed, so it must be closed (i.e. by try-with-resources).
+     * Default implementation fetches pages using {@link #getRangeOf(EReference, Payload, QueryCustomizer, boolean)}.
+     *
+     * @param reference       transfer objet relation
+     * @param payload         owner data of relation
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @param stateful        allow create a new instance or update the existing instance of the 'payload'
+     * @param fetchSize       number of rows fetched at once
+     * @return stream of possible item(s)
+     */
+    default Stream<Payload> streamRangeOf(EReference reference, Payload payload, QueryCustomizer<ID> queryCustomizer, boolean stateful, int fetchSize) {
+        return new PagingPayloadCursor<>(queryCustomizer, fetchSize,
+                page -> getRangeOf(reference, payload, page, stateful)).stream();
+    }
+
     /**
      * Get range's count of a given transfer object relation.
      *
@@ -87,6 +109,28 @@ public interface DAO<ID> {
      */
     long countRangeOf(EReference reference, Payload payload, QueryCustomizer<ID> queryCustomizer, boolean stateful);
 
+    /**
+     * Get possible item(s) of a given reference with the total number of possible items.
+     * <p>
+     * Implementations should query items and total number in one backend execution (or estimate the total number),
+     * default implementation calls {@link #getRangeOf(EReference, Payload, QueryCustomizer, boolean)} and
+     * {@link #countRangeOf(EReference, Payload, QueryCustomizer, boolean)} (only if the total number cannot be
+     * derived from the page). Default implementation does not estimate, {@link Page.CountMode#ESTIMATE} is counted
+     * exactly.
+     *
+     * @param reference       transfer objet relation
+     * @param payload         owner data of relation
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @param stateful        allow create a new instance or update the existing instance of the 'payload'
+     * @param countMode       counting of total number of items
+     * @return page of possible item(s)
+     */
+    default Page getRangePage(EReference reference, Payload payload, QueryCustomizer<ID> queryCustomizer, boolean stateful, Page.CountMode countMode) {
+        return Page.of(new ArrayList<>(getRangeOf(reference, payload, queryCustomizer, stateful)),
+                queryCustomizer != null ? queryCustomizer.getSeek() : null, countMode,
+                () -> countRangeOf(reference, payload, queryCustomizer, stateful));
+    }
+
     /**
      * Get instances of a given mapped transfer object type.
      * <p>
@@ -97,6 +141,33 @@ public interface DAO<ID> {
      */
     List<Payload> getAllOf(EClass clazz);
 
+    /**
+     * Get instances of a given mapped transfer object type as a stream fetching rows lazily.
+     * <p>
+     * Stream holds backend resources until it is closed, so it must be closed (i.e. by try-with-resources).
+     * Default implementation fetches pages using {@link #search(EClass, QueryCustomizer)}.
+     *
+     * @param clazz     mapped transfer object type
+     * @param fetchSize number of rows fetched at once
+     * @return stream of instances
+     */
+    default Stream<Payload> streamAllOf(EClass clazz, int fetchSize) {
+        return streamSearch(clazz, null, fetchSize);
+    }
+
+    /**
+     * Get instances of a given mapped transfer object type as columnar batch.
+     * <p>
+     * Implementations should fill the columns directly, default implementation converts result of
+     * {@link #getAllOf(EClass)}.
+     *
+     * @param clazz mapped transfer object type
+     * @return batch of instances
+     */
+    default PayloadBatch getAllOfAsBatch(EClass clazz) {
+        return PayloadBatch.of(clazz, getAllOf(clazz));
+    }
+
     /**
      * Count instances of a given mapped transfer object type.
      * <p>
@@ -118,6 +189,35 @@ public interface DAO<ID> {
      */
     List<Payload> search(EClass clazz, QueryCustomizer<ID> queryCustomizer);
 
+    /**
+     * Search instances of a given mapped transfer object type, result is returned as a stream fetching rows lazily.
+     * <p>
+     * Stream holds backend resources until it is closed, so it must be closed (i.e. by try-with-resources).
+     * Default implementation fetches pages using {@link #search(EClass, QueryCustomizer)}.
+     *
+     * @param clazz           mapped transfer object type
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @param fetchSize       number of rows fetched at once
+     * @return stream of instances
+     */
+    default Stream<Payload> streamSearch(EClass clazz, QueryCustomizer<ID> queryCustomizer, int fetchSize) {
+        return new PagingPayloadCursor<>(queryCustomizer, fetchSize, page -> search(clazz, page)).stream();
+    }
+
+    /**
+     * Search instances of a given mapped transfer object type, result is returned as columnar batch.
+     * <p>
+     * Implementations should fill the columns directly, default implementation converts result of
+     * {@link #search(EClass, QueryCustomizer)}.
+     *
+     * @param clazz           mapped transfer object type
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return batch of instances
+     */
+    default PayloadBatch searchAsBatch(EClass clazz, QueryCustomizer<ID> queryCustomizer) {
+        return PayloadBatch.of(clazz, search(clazz, queryCustomizer));
+    }
+
     /**
      * Count instances of a given mapped transfer object type.
      * <p>
@@ -129,6 +229,41 @@ public interface DAO<ID> {
      */
     long count(EClass clazz, QueryCustomizer<ID> queryCustomizer);
 
+    /**
+     * Search instances of a given mapped transfer object type with the total number of matching instances.
+     * <p>
+     * Implementations should query instances and total number in one backend execution (or estimate the total
+     * number), default implementation calls {@link #search(EClass, QueryCustomizer)} and
+     * {@link #count(EClass, QueryCustomizer)} (only if the total number cannot be derived from the page). Default
+     * implementation does not estimate, {@link Page.CountMode#ESTIMATE} is counted exactly.
+     *
+     * @param clazz           mapped transfer object type
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @param countMode       counting of total number of instances
+     * @return page of instances
+     */
+    default Page searchPage(EClass clazz, QueryCustomizer<ID> queryCustomizer, Page.CountMode countMode) {
+        return Page.of(new ArrayList<>(search(clazz, queryCustomizer)),
+                queryCustomizer != null ? queryCustomizer.getSeek() : null, countMode,
+                () -> count(clazz, queryCustomizer));
+    }
+
+    /**
+     * Prepare a reusable query of a given mapped transfer object type. Filter, ordering and mask of the query
+     * customizer are parsed and planned once, parameters and seek are bound per execution.
+     * <p>
+     * Implementations should cache plans by {@link QueryShape} (i.e. using {@link QueryPlanCache}), default
+     * implementation delegates executions to {@link #search(EClass, QueryCustomizer)} and
+     * {@link #count(EClass, QueryCustomizer)}.
+     *
+     * @param clazz           mapped transfer object type
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return prepared query
+     */
+    default PreparedQuery<ID> prepare(EClass clazz, QueryCustomizer<ID> queryCustomizer) {
+        return new DefaultPreparedQuery<>(this, clazz, queryCustomizer);
+    }
+
 
     /**
      * Get instance of a given mapped transfer object type by the given identifier.
@@ -186,6 +321,20 @@ public interface DAO<ID> {
      */
     List<Payload> getByIdentifiers(EClass clazz, Collection<ID> identifiers);
 
+    /**
+     * Get instances of a given mapped transfer object type by the given identifiers as columnar batch.
+     * <p>
+     * Implementations should fill the columns directly, default implementation converts result of
+     * {@link #getByIdentifiers(EClass, Collection)}.
+     *
+     * @param clazz       mapped transfer object type
+     * @param identifiers mapped transfer object
+     * @return batch of instances
+     */
+    default PayloadBatch getByIdentifiersAsBatch(EClass clazz, Collection<ID> identifiers) {
+        return PayloadBatch.of(clazz, getByIdentifiers(clazz, identifiers));
+    }
+
     /**
      * Get instances of a given mapped transfer object type by the given identifiers.
      * <p>
@@ -249,6 +398,25 @@ public interface DAO<ID> {
      */
     List<Payload> updateAll(EClass clazz, Iterable<Payload> payloads, QueryCustomizer<ID> queryCustomizer);
 
+    /**
+     * Update changed features of a mapped transfer object only.
+     * <p>
+     * Delta contains changed keys only (i.e. {@link TrackingPayload#getDelta()}), features not included in delta are
+     * left unchanged. Implementations should write and validate the changed features only, default implementation
+     * loads the instance, applies delta and updates the whole instance.
+     *
+     * @param clazz           mapped transfer object type
+     * @param identifier      instance ID to update
+     * @param delta           changed features
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return updated instance
+     */
+    default Payload updateDelta(EClass clazz, ID identifier, Payload delta, QueryCustomizer<ID> queryCustomizer) {
+        Payload payload = getByIdentifier(clazz, identifier)
+                .orElseThrow(() -> new IllegalArgumentException("Instance of " + clazz.getName() + " not found: " + identifier));
+        return update(clazz, TrackingPayload.applyDelta(payload, delta), queryCustomizer);
+    }
+
     /**
      * Delete a mapped transfer object.
      * <p>
@@ -269,6 +437,30 @@ public interface DAO<ID> {
      */
     void deleteAll(EClass clazz, Iterable<ID> id);
 
+    /**
+     * Begin a unit of work buffering mutating operations with default batch size
+     * ({@link UnitOfWork#DEFAULT_BATCH_SIZE}).
+     *
+     * @return unit of work
+     */
+    default UnitOfWork<ID> beginBatch() {
+        return beginBatch(UnitOfWork.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Begin a unit of work buffering mutating operations, they are executed in batches when unit of work is flushed
+     * or closed.
+     * <p>
+     * Default implementation executes creates, updates and deletes by bulk operations (i.e.
+     * {@link #createAll(EClass, Iterable, QueryCustomizer)}), implementations can execute grouped statements.
+     *
+     * @param batchSize maximum number of instances in a bulk operation
+     * @return unit of work
+     */
+    default UnitOfWork<ID> beginBatch(int batchSize) {
+        return new BatchingUnitOfWork<>(this, batchSize);
+    }
+
     /**
      * Set references of a given mapped transfer object.
      * <p>
@@ -312,6 +504,48 @@ public interface DAO<ID> {
      */
     void removeReferences(EReference reference, ID id, Collection<ID> referencedIds);
 
+    /**
+     * Set reference of several mapped transfer objects.
+     * <p>
+     * Implementations should execute set-based statements, default implementation calls
+     * {@link #setReference(EReference, Object, Collection)} for each instance.
+     *
+     * @param reference     transfer object relation
+     * @param referencedIds referenced element IDs (to set) by mapped transfer object IDs (in which the reference to
+     *                      set is), collections must contain only one instance if reference is single.
+     */
+    default void setReferenceAll(EReference reference, Map<ID, Collection<ID>> referencedIds) {
+        referencedIds.forEach((id, ids) -> setReference(reference, id, ids));
+    }
+
+    /**
+     * Add references to several mapped transfer objects.
+     * <p>
+     * Implementations should execute set-based statements, default implementation calls
+     * {@link #addReferences(EReference, Object, Collection)} for each instance.
+     *
+     * @param reference     transfer object relation, it must be many
+     * @param referencedIds referenced element IDs (to add) by mapped transfer object IDs (in which the reference to
+     *                      add is)
+     */
+    default void addReferencesAll(EReference reference, Map<ID, Collection<ID>> referencedIds) {
+        referencedIds.forEach((id, ids) -> addReferences(reference, id, ids));
+    }
+
+    /**
+     * Remove references from several mapped transfer objects.
+     * <p>
+     * Implementations should execute set-based statements, default implementation calls
+     * {@link #removeReferences(EReference, Object, Collection)} for each instance.
+     *
+     * @param reference     transfer object relation, it must be many
+     * @param referencedIds referenced element IDs (to remove) by mapped transfer object IDs (in which the reference
+     *                      to remove is)
+     */
+    default void removeReferencesAll(EReference reference, Map<ID, Collection<ID>> referencedIds) {
+        referencedIds.forEach((id, ids) -> removeReferences(reference, id, ids));
+    }
+
     /**
      * Get mapped transfer objects of a given reference (static navigation).
      * <p>
@@ -346,6 +580,24 @@ public interface DAO<ID> {
      */
     List<Payload> searchReferencedInstancesOf(EReference reference, EClass clazz, QueryCustomizer<ID> queryCustomizer);
 
+    /**
+     * Search mapped transfer objects of a given reference (static navigation), result is returned as a stream
+     * fetching rows lazily.
+     * <p>
+     * Stream holds backend resources until it is closed, so it must be closed (i.e. by try-with-resources).
+     * Default implementation fetches pages using {@link #searchReferencedInstancesOf(EReference, EClass, QueryCustomizer)}.
+     *
+     * @param reference       static navigation
+     * @param clazz           mapped transfer object type
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @param fetchSize       number of rows fetched at once
+     * @return stream of instances that are matching a static navigation
+     */
+    default Stream<Payload> streamReferencedInstancesOf(EReference reference, EClass clazz, QueryCustomizer<ID> queryCustomizer, int fetchSize) {
+        return new PagingPayloadCursor<>(queryCustomizer, fetchSize,
+                page -> searchReferencedInstancesOf(reference, clazz, page)).stream();
+    }
+
     /**
      * Count mapped transfer objects of a given reference (static navigation).
      * <p>
@@ -444,6 +696,25 @@ public interface DAO<ID> {
      */
     List<Payload> getNavigationResultAt(ID id, EReference reference);
 
+    /**
+     * Get instances of a given reference from several mapped transfer objects.
+     * <p>
+     * Implementations should load all instances by one query, default implementation calls
+     * {@link #getNavigationResultAt(Object, EReference)} for each mapped transfer object. See {@link NavigationLoader}
+     * to collect navigations of separate callers.
+     *
+     * @param ids       IDs of source mapped transfer objects
+     * @param reference transfer object reference
+     * @return list of instances by source IDs
+     */
+    default Map<ID, List<Payload>> getNavigationResultsAt(Collection<ID> ids, EReference reference) {
+        Map<ID, List<Payload>> result = new LinkedHashMap<>();
+        for (ID id : ids) {
+            result.put(id, getNavigationResultAt(id, reference));
+        }
+        return result;
+    }
+
     /**
      * Count instances of a given reference from a given mapped transfer object.
      * <p>
@@ -455,6 +726,24 @@ public interface DAO<ID> {
      */
     long countNavigationResultAt(ID id, EReference reference);
 
+    /**
+     * Count instances of a given reference from several mapped transfer objects.
+     * <p>
+     * Implementations should count all instances by one query, default implementation calls
+     * {@link #countNavigationResultAt(Object, EReference)} for each mapped transfer object.
+     *
+     * @param ids       IDs of source mapped transfer objects
+     * @param reference transfer object reference
+     * @return number of instances by source IDs
+     */
+    default Map<ID, Long> countNavigationResultsAt(Collection<ID> ids, EReference reference) {
+        Map<ID, Long> result = new LinkedHashMap<>();
+        for (ID id : ids) {
+            result.put(id, countNavigationResultAt(id, reference));
+        }
+        return result;
+    }
+
     /**
      * Search instances of a given reference from a given mapped transfer object.
      * <p>
@@ -467,6 +756,24 @@ public interface DAO<ID> {
      */
     List<Payload> searchNavigationResultAt(ID id, EReference reference, QueryCustomizer<ID> queryCustomizer);
 
+    /**
+     * Search instances of a given reference from a given mapped transfer object, result is returned as a stream
+     * fetching rows lazily.
+     * <p>
+     * Stream holds backend resources until it is closed, so it must be closed (i.e. by try-with-resources).
+     * Default implementation fetches pages using {@link #searchNavigationResultAt(Object, EReference, QueryCustomizer)}.
+     *
+     * @param id              ID of source mapped transfer object
+     * @param reference       transfer object reference
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @param fetchSize       number of rows fetched at once
+     * @return stream of instances
+     */
+    default Stream<Payload> streamNavigationResultAt(ID id, EReference reference, QueryCustomizer<ID> queryCustomizer, int fetchSize) {
+        return new PagingPayloadCursor<>(queryCustomizer, fetchSize,
+                page -> searchNavigationResultAt(id, reference, page)).stream();
+    }
+
     /**
      * Count instances of a given reference from a given mapped transfer object.
      * <p>
@@ -557,6 +864,22 @@ public interface DAO<ID> {
      */
     void addAllReferencesOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds);
 
+    /**
+     * Add all references in several mapped transfer objects of a given reference from a given mapped transfer object.
+     * <p>
+     * Implementations should execute set-based statements, default implementation calls
+     * {@link #addAllReferencesOfNavigationInstanceAt(Object, EReference, EReference, Object, Collection)} for each
+     * instance.
+     *
+     * @param id             mapped transfer object ID in which the instances to update can be found
+     * @param reference      transfer object relation that the instances to update are linked in (pre condition)
+     * @param referenceToSet transfer object relation to set
+     * @param referencedIds  referenced instances by instances to update
+     */
+    default void addAllReferencesOfNavigationInstancesAt(ID id, EReference reference, EReference referenceToSet, Map<ID, Collection<ID>> referencedIds) {
+        referencedIds.forEach((instanceId, ids) -> addAllReferencesOfNavigationInstanceAt(id, reference, referenceToSet, instanceId, ids));
+    }
+
     /**
      * Remove all references in a mapped transfer object of a given reference from a given mapped transfer object.
      * <p>
@@ -571,47 +894,120 @@ public interface DAO<ID> {
      */
     void removeAllReferencesOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds);
 
+    /**
+     * Remove all references in several mapped transfer objects of a given reference from a given mapped transfer
+     * object.
+     * <p>
+     * Implementations should execute set-based statements, default implementation calls
+     * {@link #removeAllReferencesOfNavigationInstanceAt(Object, EReference, EReference, Object, Collection)} for each
+     * instance.
+     *
+     * @param id             mapped transfer object ID in which the instances to update can be found
+     * @param reference      transfer object relation that the instances to update are linked in (pre condition)
+     * @param referenceToSet transfer object relation to set
+     * @param referencedIds  referenced instances by instances to update
+     */
+    default void removeAllReferencesOfNavigationInstancesAt(ID id, EReference reference, EReference referenceToSet, Map<ID, Collection<ID>> referencedIds) {
+        referencedIds.forEach((instanceId, ids) -> removeAllReferencesOfNavigationInstanceAt(id, reference, referenceToSet, instanceId, ids));
+    }
+
+    /**
+     * Ordering of a query. Order by definitions are immutable values.
+     */
     @Getter
     @Builder
+    @EqualsAndHashCode
     class OrderBy {
 
         @NonNull
-        private EAttribute attribute;
+        private final EAttribute attribute;
 
-        private boolean descending;
+        private final boolean descending;
     }
 
+    /**
+     * Seeking (paging) of a query. Seeks are immutable values, last item is frozen.
+     */
     @Getter
     @Builder
+    @EqualsAndHashCode(cacheStrategy = EqualsAndHashCode.CacheStrategy.LAZY)
     class Seek {
 
-        private int limit;
+        private final int limit;
 
         @Builder.Default
-        private int offset = -1;
+        private final int offset = -1;
 
-        private boolean reverse;
+        private final boolean reverse;
 
-        private Payload lastItem;
+        private final Payload lastItem;
+
+        Seek(int limit, int offset, boolean reverse, Payload lastItem) {
+            this.limit = limit;
+            this.offset = offset;
+            this.reverse = reverse;
+            this.lastItem = FrozenPayload.of(lastItem);
+        }
     }
 
+    /**
+     * Query customizer (filtering, ordering, seeking, masking). Query customizers are deeply immutable values, so
+     * they can be used as cache keys: mask, parameters and last item of seek are frozen (in canonical key order),
+     * instance IDs are stored as unmodifiable set. Hash code is computed once.
+     * <p>
+     * Use {@link #fingerprint()} to get a key that is stable across JVMs.
+     */
     @Getter
-    @Builder
+    @Builder(toBuilder = true)
+    @EqualsAndHashCode(cacheStrategy = EqualsAndHashCode.CacheStrategy.LAZY)
     class QueryCustomizer<ID> {
 
-        private String filter;
+        private final String filter;
 
         @Singular("orderBy")
-        private List<OrderBy> orderByList;
-
-        private Seek seek;
-
-        private boolean withoutFeatures;
-
-        private Map<String, Object> mask;
-
-        private Map<String, Object> parameters;
-
-        private Collection<ID> instanceIds;
+        private final List<OrderBy> orderByList;
+
+        private final Seek seek;
+
+        private final boolean withoutFeatures;
+
+        private final Map<String, Object> mask;
+
+        private final Map<String, Object> parameters;
+
+        private final Collection<ID> instanceIds;
+
+        @Getter(AccessLevel.NONE)
+        @EqualsAndHashCode.Exclude
+        private final transient AtomicReference<String> fingerprint = new AtomicReference<>();
+
+        QueryCustomizer(String filter, List<OrderBy> orderByList, Seek seek, boolean withoutFeatures,
+                        Map<String, Object> mask, Map<String, Object> parameters, Collection<ID> instanceIds) {
+            this.filter = filter;
+            this.orderByList = orderByList;
+            this.seek = seek;
+            this.withoutFeatures = withoutFeatures;
+            this.mask = FrozenPayload.of(mask);
+            this.parameters = FrozenPayload.of(parameters);
+            this.instanceIds = instanceIds != null ? Collections.unmodifiableSet(new LinkedHashSet<>(instanceIds)) : null;
+        }
+
+        /**
+         * Get fingerprint of query customizer: SHA-256 hash (as hex string) of canonical binary form. Equal query
+         * customizers have equal fingerprints on all JVMs as long as parameter values have stable string
+         * representation (i.e. strings, numbers, <code>java.time</code> values, enums).
+         * <p>
+         * Fingerprint is computed once.
+         *
+         * @return fingerprint
+         */
+        public String fingerprint() {
+            String result = fingerprint.get();
+            if (result == null) {
+                result = QueryFingerprint.of(this);
+                fingerprint.set(result);
+            }
+            return result;
+        }
     }
 }
@@ -0,0 +1,79 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import lombok.Getter;
+import org.eclipse.emf.ecore.EClass;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link PreparedQuery} delegating executions to {@link DAO#search(EClass, DAO.QueryCustomizer)} and
+ * {@link DAO#count(EClass, DAO.QueryCustomizer)}, used by default implementation of
+ * {@link DAO#prepare(EClass, DAO.QueryCustomizer)}.
+ *
+ * @param <ID> type of identifiers
+ */
+final class DefaultPreparedQuery<ID> implements PreparedQuery<ID> {
+
+    private final DAO<ID> dao;
+
+    @Getter
+    private final EClass clazz;
+
+    @Getter
+    private final QueryShape shape;
+
+    private final DAO.QueryCustomizer<ID> queryCustomizer;
+
+    DefaultPreparedQuery(DAO<ID> dao, EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer) {
+        this.dao = dao;
+        this.clazz = clazz;
+        this.shape = QueryShape.of(clazz, queryCustomizer);
+        this.queryCustomizer = queryCustomizer != null ? queryCustomizer : DAO.QueryCustomizer.<ID>builder().build();
+    }
+
+    @Override
+    public DAO.QueryCustomizer<ID> bind(Map<String, Object> parameters, DAO.Seek seek) {
+        if (parameters == null && seek == null) {
+            return queryCustomizer;
+        }
+        DAO.QueryCustomizer.QueryCustomizerBuilder<ID> builder = queryCustomizer.toBuilder();
+        if (parameters != null) {
+            builder.parameters(parameters);
+        }
+        if (seek != null) {
+            builder.seek(seek);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public List<Payload> search(Map<String, Object> parameters, DAO.Seek seek) {
+        return dao.search(clazz, bind(parameters, seek));
+    }
+
+    @Override
+    public long count(Map<String, Object> parameters) {
+        return dao.count(clazz, bind(parameters, null));
+    }
+}
@@ -0,0 +1,458 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * {@link AsyncDAO} running operations of a synchronous {@link DAO} on a given executor.
+ * <p>
+ * Each operation is submitted to the executor as a separate task, so independent operations run concurrently as
+ * far as the executor allows. Blocking backends are best served by an executor with many cheap threads (i.e. a
+ * virtual thread per task executor).
+ * <p>
+ * Publishers are cold, each subscriber executes the query using the streaming methods of {@link DAO} (i.e.
+ * {@link DAO#streamSearch(EClass, DAO.QueryCustomizer, int)}). Rows are emitted on the executor only when requested
+ * by the subscriber (the stream is not read ahead, so completion is signalled when a row is requested after the last
+ * one), the stream is closed when completed, failed or cancelled.
+ *
+ * @param <ID> type of identifiers
+ */
+public class ExecutorAsyncDAO<ID> implements AsyncDAO<ID> {
+
+    @Getter
+    private final DAO<ID> dao;
+
+    private final Executor executor;
+
+    public ExecutorAsyncDAO(@NonNull DAO<ID> dao, @NonNull Executor executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(operation, executor);
+    }
+
+    private CompletableFuture<Void> run(Runnable operation) {
+        return CompletableFuture.runAsync(operation, executor);
+    }
+
+    private Flow.Publisher<Payload> publish(Supplier<Stream<Payload>> query) {
+        return subscriber -> {
+            StreamSubscription subscription = new StreamSubscription(query, subscriber);
+            subscriber.onSubscribe(subscription);
+        };
+    }
+
+    @Override
+    public CompletableFuture<Payload> getStaticFeatures(EClass clazz) {
+        return supply(() -> dao.getStaticFeatures(clazz));
+    }
+
+    @Override
+    public CompletableFuture<Payload> getStaticData(EAttribute attribute) {
+        return supply(() -> dao.getStaticData(attribute));
+    }
+
+    @Override
+    public CompletableFuture<Payload> getParameterizedStaticData(EAttribute attribute, Map<String, Object> parameters) {
+        return supply(() -> dao.getParameterizedStaticData(attribute, parameters));
+    }
+
+    @Override
+    public CompletableFuture<Payload> getDefaultsOf(EClass clazz) {
+        return supply(() -> dao.getDefaultsOf(clazz));
+    }
+
+    @Override
+    public CompletableFuture<Collection<Payload>> getRangeOf(EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer, boolean stateful) {
+        return supply(() -> dao.getRangeOf(reference, payload, queryCustomizer, stateful));
+    }
+
+    @Override
+    public CompletableFuture<Long> countRangeOf(EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer, boolean stateful) {
+        return supply(() -> dao.countRangeOf(reference, payload, queryCustomizer, stateful));
+    }
+
+    @Override
+    public CompletableFuture<List<Payload>> getAllOf(EClass clazz) {
+        return supply(() -> dao.getAllOf(clazz));
+    }
+
+    @Override
+    public CompletableFuture<Long> countAllOf(EClass clazz) {
+        return supply(() -> dao.countAllOf(clazz));
+    }
+
+    @Override
+    public CompletableFuture<List<Payload>> search(EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return supply(() -> dao.search(clazz, queryCustomizer));
+    }
+
+    @Override
+    public CompletableFuture<Long> count(EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return supply(() -> dao.count(clazz, queryCustomizer));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Payload>> getByIdentifier(EClass clazz, ID identifier) {
+        return supply(() -> dao.getByIdentifier(clazz, identifier));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Payload>> searchByIdentifier(EClass clazz, ID identifier, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return supply(() -> dao.searchByIdentifier(clazz, identifier, queryCustomizer));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> existsById(EClass clazz, ID identifier) {
+        return supply(() -> dao.existsById(clazz, identifier));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Payload>> getMetadata(EClass clazz, ID identifier) {
+        return supply(() -> dao.getMetadata(clazz, identifier));
+    }
+
+    @Override
+    public CompletableFuture<List<Payload>> getByIdentifiers(EClass clazz, Collection<ID> identifiers) {
+        return supply(() -> dao.getByIdentifiers(clazz, identifiers));
+    }
+
+    @Override
+    public CompletableFuture<List<Payload>> searchByIdentifiers(EClass clazz, Collection<ID> identifiers, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return supply(() -> dao.searchByIdentifiers(clazz, identifiers, queryCustomizer));
+    }
+
+    @Override
+    public CompletableFuture<Payload> create(EClass clazz, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return supply(() -> dao.create(clazz, payload, queryCustomizer));
+    }
+
+    @Override
+    public CompletableFuture<List<Payload>> createAll(EClass clazz, Iterable<Payload> payloads, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return supply(() -> dao.createAll(clazz, payloads, queryCustomizer));
+    }
+
+    @Override
+    public CompletableFuture<Payload> update(EClass clazz, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return supply(() -> dao.update(clazz, payload, queryCustomizer));
+    }
+
+    @Override
+    public CompletableFuture<List<Payload>> updateAll(EClass clazz, Iterable<Payload> payloads, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return supply(() -> dao.updateAll(clazz, payloads, queryCustomizer));
+    }
+
+    @Override
+    public CompletableFuture<Payload> updateDelta(EClass clazz, ID identifier, Payload delta, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return supply(() -> dao.updateDelta(clazz, identifier, delta, queryCustomizer));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(EClass clazz, ID id) {
+        return run(() -> dao.delete(clazz, id));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAll(EClass clazz, Iterable<ID> ids) {
+        return run(() -> dao.deleteAll(clazz, ids));
+    }
+
+    @Override
+    public CompletableFuture<Void> setReference(EReference reference, ID id, Collection<ID> referencedIds) {
+        return run(() -> dao.setReference(reference, id, referencedIds));
+    }
+
+    @Override
+    public CompletableFuture<Void> unsetReference(EReference reference, ID id) {
+        return run(() -> dao.unsetReference(reference, id));
+    }
+
+    @Override
+    public CompletableFuture<Void> addReferences(EReference reference, ID id, Collection<ID> referencedIds) {
+        return run(() -> dao.addReferences(reference, id, referencedIds));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeReferences(EReference reference, ID id, Collection<ID> referencedIds) {
+        return run(() -> dao.removeReferences(reference, id, referencedIds));
+    }
+
+    @Override
+    public CompletableFuture<List<Payload>> getAllReferencedInstancesOf(EReference reference, EClass clazz) {
+        return supply(() -> dao.getAllReferencedInstancesOf(reference, clazz));
+    }
+
+    @Override
+    public CompletableFuture<Long> countAllReferencedInstancesOf(EReference reference, EClass clazz) {
+        return supply(() -> dao.countAllReferencedInstancesOf(reference, clazz));
+    }
+
+    @Override
+    public CompletableFuture<List<Payload>> searchReferencedInstancesOf(EReference reference, EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return supply(() -> dao.searchReferencedInstancesOf(reference, clazz, queryCustomizer));
+    }
+
+    @Override
+    public CompletableFuture<Long> countReferencedInstancesOf(EReference reference, EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return supply(() -> dao.countReferencedInstancesOf(reference, clazz, queryCustomizer));
+    }
+
+    @Override
+    public CompletableFuture<Payload> updateReferencedInstancesOf(EClass clazz, EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return supply(() -> dao.updateReferencedInstancesOf(clazz, reference, payload, queryCustomizer));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteReferencedInstancesOf(EClass clazz, EReference reference, Payload payload) {
+        return run(() -> dao.deleteReferencedInstancesOf(clazz, reference, payload));
+    }
+
+    @Override
+    public CompletableFuture<Void> setReferencesOfReferencedInstancesOf(EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        return run(() -> dao.setReferencesOfReferencedInstancesOf(reference, referenceToSet, instanceId, referencedIds));
+    }
+
+    @Override
+    public CompletableFuture<Void> unsetReferencesOfReferencedInstancesOf(EReference reference, EReference referenceToSet, ID instanceId) {
+        return run(() -> dao.unsetReferencesOfReferencedInstancesOf(reference, referenceToSet, instanceId));
+    }
+
+    @Override
+    public CompletableFuture<Void> addAllReferencesOfReferencedInstancesOf(EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        return run(() -> dao.addAllReferencesOfReferencedInstancesOf(reference, referenceToSet, instanceId, referencedIds));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeAllReferencesOfReferencedInstancesOf(EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        return run(() -> dao.removeAllReferencesOfReferencedInstancesOf(reference, referenceToSet, instanceId, referencedIds));
+    }
+
+    @Override
+    public CompletableFuture<List<Payload>> getNavigationResultAt(ID id, EReference reference) {
+        return supply(() -> dao.getNavigationResultAt(id, reference));
+    }
+
+    @Override
+    public CompletableFuture<Long> countNavigationResultAt(ID id, EReference reference) {
+        return supply(() -> dao.countNavigationResultAt(id, reference));
+    }
+
+    @Override
+    public CompletableFuture<List<Payload>> searchNavigationResultAt(ID id, EReference reference, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return supply(() -> dao.searchNavigationResultAt(id, reference, queryCustomizer));
+    }
+
+    @Override
+    public CompletableFuture<Long> countNavigationResultAt(ID id, EReference reference, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return supply(() -> dao.countNavigationResultAt(id, reference, queryCustomizer));
+    }
+
+    @Override
+    public CompletableFuture<Payload> createNavigationInstanceAt(ID id, EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return supply(() -> dao.createNavigationInstanceAt(id, reference, payload, queryCustomizer));
+    }
+
+    @Override
+    public CompletableFuture<Payload> updateNavigationInstanceAt(ID id, EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return supply(() -> dao.updateNavigationInstanceAt(id, reference, payload, queryCustomizer));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteNavigationInstanceAt(ID id, EReference reference, Payload payload) {
+        return run(() -> dao.deleteNavigationInstanceAt(id, reference, payload));
+    }
+
+    @Override
+    public CompletableFuture<Void> setReferencesOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        return run(() -> dao.setReferencesOfNavigationInstanceAt(id, reference, referenceToSet, instanceId, referencedIds));
+    }
+
+    @Override
+    public CompletableFuture<Void> unsetReferenceOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId) {
+        return run(() -> dao.unsetReferenceOfNavigationInstanceAt(id, reference, referenceToSet, instanceId));
+    }
+
+    @Override
+    public CompletableFuture<Void> addAllReferencesOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        return run(() -> dao.addAllReferencesOfNavigationInstanceAt(id, reference, referenceToSet, instanceId, referencedIds));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeAllReferencesOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        return run(() -> dao.removeAllReferencesOfNavigationInstanceAt(id, reference, referenceToSet, instanceId, referencedIds));
+    }
+
+    @Override
+    public Flow.Publisher<Payload> publishAllOf(EClass clazz, int fetchSize) {
+        return publish(() -> dao.streamAllOf(clazz, fetchSize));
+    }
+
+    @Override
+    public Flow.Publisher<Payload> publishSearch(EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer, int fetchSize) {
+        return publish(() -> dao.streamSearch(clazz, queryCustomizer, fetchSize));
+    }
+
+    @Override
+    public Flow.Publisher<Payload> publishNavigationResultAt(ID id, EReference reference, DAO.QueryCustomizer<ID> queryCustomizer, int fetchSize) {
+        return publish(() -> dao.streamNavigationResultAt(id, reference, queryCustomizer, fetchSize));
+    }
+
+    @Override
+    public Flow.Publisher<Payload> publishReferencedInstancesOf(EReference reference, EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer, int fetchSize) {
+        return publish(() -> dao.streamReferencedInstancesOf(reference, clazz, queryCustomizer, fetchSize));
+    }
+
+    /**
+     * Subscription emitting rows of a stream on the executor. Signals are serialized by a work-in-progress counter,
+     * only one drain task is running at a time.
+     */
+    private final class StreamSubscription implements Flow.Subscription, Runnable {
+
+        private final Supplier<Stream<Payload>> query;
+
+        private final Flow.Subscriber<? super Payload> subscriber;
+
+        private final AtomicLong requested = new AtomicLong();
+
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean cancelled;
+
+        private volatile Throwable invalidRequest;
+
+        private Stream<Payload> stream;
+
+        private Iterator<Payload> iterator;
+
+        private boolean done;
+
+        private StreamSubscription(Supplier<Stream<Payload>> query, Flow.Subscriber<? super Payload> subscriber) {
+            this.query = query;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Number of requested rows must be positive: " + n);
+            } else {
+                requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RuntimeException e) {
+                    done = true;
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (!done) {
+                    drain();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            try {
+                if (cancelled) {
+                    terminate();
+                    return;
+                }
+                if (invalidRequest != null) {
+                    terminate();
+                    subscriber.onError(invalidRequest);
+                    return;
+                }
+                if (iterator == null) {
+                    stream = query.get();
+                    iterator = stream.iterator();
+                }
+                long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand) {
+                    if (cancelled) {
+                        terminate();
+                        return;
+                    }
+                    if (!iterator.hasNext()) {
+                        terminate();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    subscriber.onNext(iterator.next());
+                    emitted++;
+                }
+                if (demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+            } catch (Throwable e) {
+                if (!done) {
+                    terminate();
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        private void terminate() {
+            done = true;
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+}
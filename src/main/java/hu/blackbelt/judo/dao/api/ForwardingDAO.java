@@ -0,0 +1,384 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * {@link DAO} forwarding all operations to another DAO, base class of DAO decorators. Default methods are forwarded
+ * too, so optimized implementations of the delegate are used.
+ *
+ * @param <ID> type of identifiers
+ */
+public abstract class ForwardingDAO<ID> implements DAO<ID> {
+
+    @Getter
+    private final DAO<ID> delegate;
+
+    protected ForwardingDAO(@NonNull DAO<ID> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Payload getStaticFeatures(EClass clazz) {
+        return delegate.getStaticFeatures(clazz);
+    }
+
+    @Override
+    public Payload getStaticData(EAttribute attribute) {
+        return delegate.getStaticData(attribute);
+    }
+
+    @Override
+    public Payload getParameterizedStaticData(EAttribute attribute, Map<String, Object> parameters) {
+        return delegate.getParameterizedStaticData(attribute, parameters);
+    }
+
+    @Override
+    public Payload getDefaultsOf(EClass clazz) {
+        return delegate.getDefaultsOf(clazz);
+    }
+
+    @Override
+    public Collection<Payload> getRangeOf(EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer, boolean stateful) {
+        return delegate.getRangeOf(reference, payload, queryCustomizer, stateful);
+    }
+
+    @Override
+    public Stream<Payload> streamRangeOf(EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer, boolean stateful, int fetchSize) {
+        return delegate.streamRangeOf(reference, payload, queryCustomizer, stateful, fetchSize);
+    }
+
+    @Override
+    public Page getRangePage(EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer, boolean stateful, Page.CountMode countMode) {
+        return delegate.getRangePage(reference, payload, queryCustomizer, stateful, countMode);
+    }
+
+    @Override
+    public long countRangeOf(EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer, boolean stateful) {
+        return delegate.countRangeOf(reference, payload, queryCustomizer, stateful);
+    }
+
+    @Override
+    public List<Payload> getAllOf(EClass clazz) {
+        return delegate.getAllOf(clazz);
+    }
+
+    @Override
+    public Stream<Payload> streamAllOf(EClass clazz, int fetchSize) {
+        return delegate.streamAllOf(clazz, fetchSize);
+    }
+
+    @Override
+    public PayloadBatch getAllOfAsBatch(EClass clazz) {
+        return delegate.getAllOfAsBatch(clazz);
+    }
+
+    @Override
+    public long countAllOf(EClass clazz) {
+        return delegate.countAllOf(clazz);
+    }
+
+    @Override
+    public List<Payload> search(EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.search(clazz, queryCustomizer);
+    }
+
+    @Override
+    public Stream<Payload> streamSearch(EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer, int fetchSize) {
+        return delegate.streamSearch(clazz, queryCustomizer, fetchSize);
+    }
+
+    @Override
+    public PayloadBatch searchAsBatch(EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.searchAsBatch(clazz, queryCustomizer);
+    }
+
+    @Override
+    public long count(EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.count(clazz, queryCustomizer);
+    }
+
+    @Override
+    public Page searchPage(EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer, Page.CountMode countMode) {
+        return delegate.searchPage(clazz, queryCustomizer, countMode);
+    }
+
+    @Override
+    public PreparedQuery<ID> prepare(EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.prepare(clazz, queryCustomizer);
+    }
+
+    @Override
+    public Optional<Payload> getByIdentifier(EClass clazz, ID identifier) {
+        return delegate.getByIdentifier(clazz, identifier);
+    }
+
+    @Override
+    public Optional<Payload> searchByIdentifier(EClass clazz, ID identifier, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.searchByIdentifier(clazz, identifier, queryCustomizer);
+    }
+
+    @Override
+    public boolean existsById(EClass clazz, ID identifier) {
+        return delegate.existsById(clazz, identifier);
+    }
+
+    @Override
+    public Optional<Payload> getMetadata(EClass clazz, ID identifier) {
+        return delegate.getMetadata(clazz, identifier);
+    }
+
+    @Override
+    public List<Payload> getByIdentifiers(EClass clazz, Collection<ID> identifiers) {
+        return delegate.getByIdentifiers(clazz, identifiers);
+    }
+
+    @Override
+    public PayloadBatch getByIdentifiersAsBatch(EClass clazz, Collection<ID> identifiers) {
+        return delegate.getByIdentifiersAsBatch(clazz, identifiers);
+    }
+
+    @Override
+    public List<Payload> searchByIdentifiers(EClass clazz, Collection<ID> identifiers, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.searchByIdentifiers(clazz, identifiers, queryCustomizer);
+    }
+
+    @Override
+    public Payload create(EClass clazz, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.create(clazz, payload, queryCustomizer);
+    }
+
+    @Override
+    public List<Payload> createAll(EClass clazz, Iterable<Payload> payloads, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.createAll(clazz, payloads, queryCustomizer);
+    }
+
+    @Override
+    public Payload update(EClass clazz, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.update(clazz, payload, queryCustomizer);
+    }
+
+    @Override
+    public List<Payload> updateAll(EClass clazz, Iterable<Payload> payloads, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.updateAll(clazz, payloads, queryCustomizer);
+    }
+
+    @Override
+    public Payload updateDelta(EClass clazz, ID identifier, Payload delta, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.updateDelta(clazz, identifier, delta, queryCustomizer);
+    }
+
+    @Override
+    public void delete(EClass clazz, ID ids) {
+        delegate.delete(clazz, ids);
+    }
+
+    @Override
+    public void deleteAll(EClass clazz, Iterable<ID> id) {
+        delegate.deleteAll(clazz, id);
+    }
+
+    @Override
+    public UnitOfWork<ID> beginBatch(int batchSize) {
+        return delegate.beginBatch(batchSize);
+    }
+
+    @Override
+    public void setReference(EReference reference, ID id, Collection<ID> referencedIds) {
+        delegate.setReference(reference, id, referencedIds);
+    }
+
+    @Override
+    public void unsetReference(EReference reference, ID id) {
+        delegate.unsetReference(reference, id);
+    }
+
+    @Override
+    public void addReferences(EReference reference, ID id, Collection<ID> referencedIds) {
+        delegate.addReferences(reference, id, referencedIds);
+    }
+
+    @Override
+    public void removeReferences(EReference reference, ID id, Collection<ID> referencedIds) {
+        delegate.removeReferences(reference, id, referencedIds);
+    }
+
+    @Override
+    public void setReferenceAll(EReference reference, Map<ID, Collection<ID>> referencedIds) {
+        delegate.setReferenceAll(reference, referencedIds);
+    }
+
+    @Override
+    public void addReferencesAll(EReference reference, Map<ID, Collection<ID>> referencedIds) {
+        delegate.addReferencesAll(reference, referencedIds);
+    }
+
+    @Override
+    public void removeReferencesAll(EReference reference, Map<ID, Collection<ID>> referencedIds) {
+        delegate.removeReferencesAll(reference, referencedIds);
+    }
+
+    @Override
+    public List<Payload> getAllReferencedInstancesOf(EReference reference, EClass clazz) {
+        return delegate.getAllReferencedInstancesOf(reference, clazz);
+    }
+
+    @Override
+    public long countAllReferencedInstancesOf(EReference reference, EClass clazz) {
+        return delegate.countAllReferencedInstancesOf(reference, clazz);
+    }
+
+    @Override
+    public List<Payload> searchReferencedInstancesOf(EReference reference, EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.searchReferencedInstancesOf(reference, clazz, queryCustomizer);
+    }
+
+    @Override
+    public Stream<Payload> streamReferencedInstancesOf(EReference reference, EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer, int fetchSize) {
+        return delegate.streamReferencedInstancesOf(reference, clazz, queryCustomizer, fetchSize);
+    }
+
+    @Override
+    public long countReferencedInstancesOf(EReference reference, EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.countReferencedInstancesOf(reference, clazz, queryCustomizer);
+    }
+
+    @Override
+    public Payload updateReferencedInstancesOf(EClass clazz, EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.updateReferencedInstancesOf(clazz, reference, payload, queryCustomizer);
+    }
+
+    @Override
+    public void deleteReferencedInstancesOf(EClass clazz, EReference reference, Payload payload) {
+        delegate.deleteReferencedInstancesOf(clazz, reference, payload);
+    }
+
+    @Override
+    public void setReferencesOfReferencedInstancesOf(EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        delegate.setReferencesOfReferencedInstancesOf(reference, referenceToSet, instanceId, referencedIds);
+    }
+
+    @Override
+    public void unsetReferencesOfReferencedInstancesOf(EReference reference, EReference referenceToSet, ID instanceId) {
+        delegate.unsetReferencesOfReferencedInstancesOf(reference, referenceToSet, instanceId);
+    }
+
+    @Override
+    public void addAllReferencesOfReferencedInstancesOf(EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        delegate.addAllReferencesOfReferencedInstancesOf(reference, referenceToSet, instanceId, referencedIds);
+    }
+
+    @Override
+    public void removeAllReferencesOfReferencedInstancesOf(EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        delegate.removeAllReferencesOfReferencedInstancesOf(reference, referenceToSet, instanceId, referencedIds);
+    }
+
+    @Override
+    public List<Payload> getNavigationResultAt(ID id, EReference reference) {
+        return delegate.getNavigationResultAt(id, reference);
+    }
+
+    @Override
+    public Map<ID, List<Payload>> getNavigationResultsAt(Collection<ID> ids, EReference reference) {
+        return delegate.getNavigationResultsAt(ids, reference);
+    }
+
+    @Override
+    public long countNavigationResultAt(ID id, EReference reference) {
+        return delegate.countNavigationResultAt(id, reference);
+    }
+
+    @Override
+    public Map<ID, Long> countNavigationResultsAt(Collection<ID> ids, EReference reference) {
+        return delegate.countNavigationResultsAt(ids, reference);
+    }
+
+    @Override
+    public List<Payload> searchNavigationResultAt(ID id, EReference reference, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.searchNavigationResultAt(id, reference, queryCustomizer);
+    }
+
+    @Override
+    public Stream<Payload> streamNavigationResultAt(ID id, EReference reference, DAO.QueryCustomizer<ID> queryCustomizer, int fetchSize) {
+        return delegate.streamNavigationResultAt(id, reference, queryCustomizer, fetchSize);
+    }
+
+    @Override
+    public long countNavigationResultAt(ID id, EReference reference, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.countNavigationResultAt(id, reference, queryCustomizer);
+    }
+
+    @Override
+    public Payload createNavigationInstanceAt(ID id, EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.createNavigationInstanceAt(id, reference, payload, queryCustomizer);
+    }
+
+    @Override
+    public Payload updateNavigationInstanceAt(ID id, EReference reference, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer) {
+        return delegate.updateNavigationInstanceAt(id, reference, payload, queryCustomizer);
+    }
+
+    @Override
+    public void deleteNavigationInstanceAt(ID id, EReference reference, Payload payload) {
+        delegate.deleteNavigationInstanceAt(id, reference, payload);
+    }
+
+    @Override
+    public void setReferencesOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        delegate.setReferencesOfNavigationInstanceAt(id, reference, referenceToSet, instanceId, referencedIds);
+    }
+
+    @Override
+    public void unsetReferenceOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId) {
+        delegate.unsetReferenceOfNavigationInstanceAt(id, reference, referenceToSet, instanceId);
+    }
+
+    @Override
+    public void addAllReferencesOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        delegate.addAllReferencesOfNavigationInstanceAt(id, reference, referenceToSet, instanceId, referencedIds);
+    }
+
+    @Override
+    public void addAllReferencesOfNavigationInstancesAt(ID id, EReference reference, EReference referenceToSet, Map<ID, Collection<ID>> referencedIds) {
+        delegate.addAllReferencesOfNavigationInstancesAt(id, reference, referenceToSet, referencedIds);
+    }
+
+    @Override
+    public void removeAllReferencesOfNavigationInstanceAt(ID id, EReference reference, EReference referenceToSet, ID instanceId, Collection<ID> referencedIds) {
+        delegate.removeAllReferencesOfNavigationInstanceAt(id, reference, referenceToSet, instanceId, referencedIds);
+    }
+
+    @Override
+    public void removeAllReferencesOfNavigationInstancesAt(ID id, EReference reference, EReference referenceToSet, Map<ID, Collection<ID>> referencedIds) {
+        delegate.removeAllReferencesOfNavigationInstancesAt(id, reference, referenceToSet, referencedIds);
+    }
+}
@@ -0,0 +1,351 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import java.util.*;
+
+/**
+ * Immutable {@link Payload}.
+ * <p>
+ * Nested payloads are frozen too, nested collections are unmodifiable. Frozen payloads and collections are shared
+ * (not copied) when a payload is frozen or a modified copy is created by {@link #with(String, Object)} or
+ * {@link #without(String)}, so unchanged parts of a graph are shared between versions. Hash code is computed once.
+ * Frozen payloads are safe to share between threads and to store in caches.
+ * <p>
+ * Values other than maps and collections are expected to be immutable (i.e. strings, numbers, <code>java.time</code>
+ * values), they are not copied.
+ */
+public final class FrozenPayload extends AbstractPayload {
+
+    private static final FrozenPayload EMPTY = new FrozenPayload(new String[0], new Object[0]);
+
+    private final String[] keys;
+
+    private final Object[] values;
+
+    private FrozenPayload(String[] keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Get empty frozen payload.
+     *
+     * @return empty payload
+     */
+    public static FrozenPayload empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Create a frozen copy of a given map. Nested maps and collections are frozen recursively, frozen payloads and
+     * collections are shared.
+     *
+     * @param map map to freeze
+     * @return frozen payload or <code>null</code> if map is <code>null</code>
+     */
+    public static FrozenPayload of(Map<String, Object> map) {
+        if (map == null) {
+            return null;
+        } else if (map instanceof FrozenPayload) {
+            return (FrozenPayload) map;
+        } else if (map.isEmpty()) {
+            return EMPTY;
+        }
+        int size = map.size();
+        String[] keys = new String[size];
+        Object[] values = new Object[size];
+        boolean sorted = true;
+        int i = 0;
+        for (Entry<String, Object> entry : map.entrySet()) {
+            String key = entry.getKey();
+            if (key == null) {
+                throw new IllegalArgumentException("Payload contains null key(s)");
+            }
+            if (i > 0 && sorted && keys[i - 1].compareTo(key) >= 0) {
+                sorted = false;
+            }
+            keys[i] = key;
+            values[i] = freezeValue(entry.getValue());
+            i++;
+        }
+        if (!sorted) {
+            // map is not iterated in key order (i.e. hash map or payload of which delegate is not sorted)
+            Integer[] order = new Integer[size];
+            for (int j = 0; j < size; j++) {
+                order[j] = j;
+            }
+            Arrays.sort(order, Comparator.comparing(j -> keys[j]));
+            String[] sortedKeys = new String[size];
+            Object[] sortedValues = new Object[size];
+            for (int j = 0; j < size; j++) {
+                sortedKeys[j] = keys[order[j]];
+                sortedValues[j] = values[order[j]];
+            }
+            return new FrozenPayload(sortedKeys, sortedValues);
+        }
+        return new FrozenPayload(keys, values);
+    }
+
+    static Object freezeValue(Object value) {
+        if (value instanceof FrozenPayload || value instanceof FrozenList || value instanceof FrozenSet) {
+            return value;
+        } else if (value instanceof Map) {
+            return of((Map<String, Object>) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            Object[] elements = new Object[list.size()];
+            int i = 0;
+            for (Object element : list) {
+                elements[i++] = freezeValue(element);
+            }
+            return new FrozenList(elements);
+        } else if (value instanceof Collection) {
+            Set<Object> set = new LinkedHashSet<>();
+            for (Object element : (Collection<?>) value) {
+                set.add(freezeValue(element));
+            }
+            return new FrozenSet(set);
+        } else {
+            return value;
+        }
+    }
+
+    private int indexOf(Object key) {
+        return key instanceof String ? Arrays.binarySearch(keys, key) : -1;
+    }
+
+    /**
+     * Create a copy of payload with a given key set to a given value. Other values are shared.
+     *
+     * @param key   key
+     * @param value value
+     * @return modified copy
+     */
+    public FrozenPayload with(String key, Object value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Payload contains null key(s)");
+        }
+        Object frozenValue = freezeValue(value);
+        int index = indexOf(key);
+        if (index >= 0) {
+            if (values[index] == frozenValue) {
+                return this;
+            }
+            Object[] newValues = values.clone();
+            newValues[index] = frozenValue;
+            return new FrozenPayload(keys, newValues);
+        }
+        int insertAt = -index - 1;
+        String[] newKeys = new String[keys.length + 1];
+        Object[] newValues = new Object[values.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, insertAt);
+        System.arraycopy(values, 0, newValues, 0, insertAt);
+        newKeys[insertAt] = key;
+        newValues[insertAt] = frozenValue;
+        System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+        System.arraycopy(values, insertAt, newValues, insertAt + 1, values.length - insertAt);
+        return new FrozenPayload(newKeys, newValues);
+    }
+
+    /**
+     * Create a copy of payload with all entries of a given map set. Other values are shared.
+     *
+     * @param map entries to set
+     * @return modified copy
+     */
+    public FrozenPayload withAll(Map<String, Object> map) {
+        if (map.isEmpty()) {
+            return this;
+        }
+        TreeMap<String, Object> merged = new TreeMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            merged.put(keys[i], values[i]);
+        }
+        merged.putAll(map);
+        return of(merged);
+    }
+
+    /**
+     * Create a copy of payload without a given key. Other values are shared.
+     *
+     * @param key key to remove
+     * @return modified copy
+     */
+    public FrozenPayload without(String key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return this;
+        }
+        String[] newKeys = new String[keys.length - 1];
+        Object[] newValues = new Object[values.length - 1];
+        System.arraycopy(keys, 0, newKeys, 0, index);
+        System.arraycopy(values, 0, newValues, 0, index);
+        System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+        System.arraycopy(values, index + 1, newValues, index, values.length - index - 1);
+        return new FrozenPayload(newKeys, newValues);
+    }
+
+    /**
+     * Create a mutable (deep) copy of payload.
+     *
+     * @return mutable payload
+     */
+    public Payload thaw() {
+        return Payload.asPayload(this);
+    }
+
+    @Override
+    public Payload freeze() {
+        return this;
+    }
+
+    @Override
+    protected boolean isImmutable() {
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        throw new UnsupportedOperationException("Payload is frozen");
+    }
+
+    @Override
+    public Object remove(Object key) {
+        throw new UnsupportedOperationException("Payload is frozen");
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> m) {
+        throw new UnsupportedOperationException("Payload is frozen");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Payload is frozen");
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<Entry<String, Object>>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < keys.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (index >= keys.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, Object> entry = new SimpleImmutableEntry<>(keys[index], values[index]);
+                        index++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+
+    private static final class FrozenList extends AbstractList<Object> implements RandomAccess {
+
+        private final Object[] elements;
+
+        private int hash;
+
+        private FrozenList(Object[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public Object get(int index) {
+            return elements[index];
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+
+        @Override
+        public int hashCode() {
+            if (hash == 0) {
+                hash = super.hashCode();
+            }
+            return hash;
+        }
+    }
+
+    private static final class FrozenSet extends AbstractSet<Object> {
+
+        private final Set<Object> elements;
+
+        private FrozenSet(Set<Object> elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return Collections.unmodifiableSet(elements).iterator();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return elements.contains(o);
+        }
+
+        @Override
+        public int size() {
+            return elements.size();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * {@link IdentifierProvider} decorator reserving blocks of identifiers (hi/lo algorithm). Each value of the
+ * underlying sequence (hi) reserves <code>blockSize</code> identifiers: <code>hi * blockSize</code> ...
+ * <code>hi * blockSize + blockSize - 1</code>, so identifiers are unique across nodes sharing the same sequence.
+ * <p>
+ * Reserved blocks are held by threads, identifiers are served without locking. The sequence is called once per
+ * block only, it must be thread-safe. Unused identifiers of a block are lost when the provider is discarded.
+ *
+ * @param <ID> identifier type
+ */
+public class HiLoIdentifierProvider<ID> implements IdentifierProvider<ID> {
+
+    @Getter
+    private final IdentifierProvider<? extends Number> sequence;
+
+    @Getter
+    private final int blockSize;
+
+    @Getter
+    private final Class<ID> type;
+
+    private final LongFunction<ID> converter;
+
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    public HiLoIdentifierProvider(@NonNull IdentifierProvider<? extends Number> sequence, int blockSize,
+                                  @NonNull Class<ID> type, @NonNull LongFunction<ID> converter) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.sequence = sequence;
+        this.blockSize = blockSize;
+        this.type = type;
+        this.converter = converter;
+    }
+
+    /**
+     * Create provider of {@link Long} identifiers.
+     *
+     * @param sequence  underlying sequence
+     * @param blockSize number of identifiers reserved by a sequence value
+     * @return identifier provider
+     */
+    public static HiLoIdentifierProvider<Long> of(IdentifierProvider<? extends Number> sequence, int blockSize) {
+        return new HiLoIdentifierProvider<>(sequence, blockSize, Long.class, Long::valueOf);
+    }
+
+    @Override
+    public String getName() {
+        return sequence.getName();
+    }
+
+    @Override
+    public ID get() {
+        Block block = blocks.get();
+        if (block.next >= block.end) {
+            reserve(block);
+        }
+        return converter.apply(block.next++);
+    }
+
+    @Override
+    public List<ID> get(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + count);
+        }
+        List<ID> ids = new ArrayList<>(count);
+        Block block = blocks.get();
+        while (ids.size() < count) {
+            if (block.next >= block.end) {
+                reserve(block);
+            }
+            long last = Math.min(block.end, block.next + count - ids.size());
+            while (block.next < last) {
+                ids.add(converter.apply(block.next++));
+            }
+        }
+        return ids;
+    }
+
+    private void reserve(Block block) {
+        long hi = sequence.get().longValue();
+        block.next = Math.multiplyExact(hi, (long) blockSize);
+        block.end = Math.addExact(block.next, blockSize);
+    }
+
+    private static final class Block {
+
+        private long next;
+
+        private long end;
+    }
+}
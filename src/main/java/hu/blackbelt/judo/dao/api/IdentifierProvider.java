@@ -20,8 +20,30 @@ package hu.blackbelt.judo.dao.api;
  * #L%
  */
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface IdentifierProvider<ID> {
     ID get();
+
+    /**
+     * Get a given number of identifiers at once (i.e. for bulk inserts). Providers backed by a sequence should
+     * reserve identifiers in blocks, default implementation calls {@link #get()} for each identifier.
+     *
+     * @param count number of identifiers
+     * @return list of identifiers
+     */
+    default List<ID> get(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + count);
+        }
+        List<ID> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(get());
+        }
+        return ids;
+    }
+
     Class<ID> getType();
     String getName();
 }
@@ -0,0 +1,267 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import lombok.NonNull;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * {@link DAO} decorator loading references selected by mask lazily. References in the mask of the query customizer
+ * are not loaded by the query, they are loaded when they are accessed first (i.e. by
+ * {@link Payload#getAsPayload(String)}, {@link Payload#getAsCollectionPayload(String)} or iterating entries). When
+ * a reference of a row is accessed, the reference is loaded for all rows of the same query result by one
+ * {@link DAO#getNavigationResultsAt(Collection, EReference)} call.
+ * <p>
+ * Lazy loading is applied to the queries with query customizer: {@link #search(EClass, DAO.QueryCustomizer)},
+ * {@link #searchByIdentifier(EClass, Object, DAO.QueryCustomizer)},
+ * {@link #searchByIdentifiers(EClass, Collection, DAO.QueryCustomizer)},
+ * {@link #searchNavigationResultAt(Object, EReference, DAO.QueryCustomizer)} and
+ * {@link #searchReferencedInstancesOf(EReference, EClass, DAO.QueryCustomizer)}. Only the first level of the mask is
+ * loaded lazily, referenced instances are loaded as returned by navigation. References whose sub-mask selects further
+ * references are kept in the mask of the delegate (loaded eagerly), so nested references are loaded as masked.
+ * Payloads returned by the delegate must contain identifier (see {@link IdentifierProvider#getName()}), they are not
+ * modified (rows are copied when a reference is loaded or a value is changed).
+ *
+ * @param <ID> type of identifiers
+ */
+public class LazyReferenceDAO<ID> extends ForwardingDAO<ID> {
+
+    private final IdentifierProvider<ID> identifierProvider;
+
+    public LazyReferenceDAO(@NonNull DAO<ID> delegate, @NonNull IdentifierProvider<ID> identifierProvider) {
+        super(delegate);
+        this.identifierProvider = identifierProvider;
+    }
+
+    private List<EReference> lazyReferencesOf(EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer) {
+        if (queryCustomizer == null || queryCustomizer.getMask() == null) {
+            return Collections.emptyList();
+        }
+        List<EReference> references = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : queryCustomizer.getMask().entrySet()) {
+            EStructuralFeature feature = clazz.getEStructuralFeature(entry.getKey());
+            if (feature instanceof EReference && !selectsReferences((EReference) feature, entry.getValue())) {
+                references.add((EReference) feature);
+            }
+        }
+        return references;
+    }
+
+    private static boolean selectsReferences(EReference reference, Object subMask) {
+        if (subMask instanceof Map) {
+            for (Object name : ((Map<?, ?>) subMask).keySet()) {
+                if (reference.getEReferenceType().getEStructuralFeature(String.valueOf(name)) instanceof EReference) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private DAO.QueryCustomizer<ID> withoutReferences(DAO.QueryCustomizer<ID> queryCustomizer, List<EReference> references) {
+        if (references.isEmpty()) {
+            return queryCustomizer;
+        }
+        Map<String, Object> mask = new LinkedHashMap<>(queryCustomizer.getMask());
+        for (EReference reference : references) {
+            mask.remove(reference.getName());
+        }
+        return queryCustomizer.toBuilder().mask(mask).build();
+    }
+
+    private List<Payload> wrap(List<EReference> references, List<Payload> rows) {
+        if (references.isEmpty() || rows.isEmpty()) {
+            return rows;
+        }
+        List<ID> ids = new ArrayList<>(rows.size());
+        for (Payload row : rows) {
+            ID id = (ID) row.get(identifierProvider.getName());
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        Map<String, ReferenceBatch<ID>> batches = new LinkedHashMap<>();
+        for (EReference reference : references) {
+            batches.put(reference.getName(), new ReferenceBatch<>(getDelegate(), reference, ids));
+        }
+        List<Payload> result = new ArrayList<>(rows.size());
+        for (Payload row : rows) {
+            result.add(new LazyPayload<>(row, (ID) row.get(identifierProvider.getName()), batches));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Payload> search(EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer) {
+        List<EReference> references = lazyReferencesOf(clazz, queryCustomizer);
+        return wrap(references, getDelegate().search(clazz, withoutReferences(queryCustomizer, references)));
+    }
+
+    @Override
+    public Optional<Payload> searchByIdentifier(EClass clazz, ID identifier, DAO.QueryCustomizer<ID> queryCustomizer) {
+        List<EReference> references = lazyReferencesOf(clazz, queryCustomizer);
+        return getDelegate().searchByIdentifier(clazz, identifier, withoutReferences(queryCustomizer, references))
+                .map(row -> wrap(references, Collections.singletonList(row)).get(0));
+    }
+
+    @Override
+    public List<Payload> searchByIdentifiers(EClass clazz, Collection<ID> identifiers, DAO.QueryCustomizer<ID> queryCustomizer) {
+        List<EReference> references = lazyReferencesOf(clazz, queryCustomizer);
+        return wrap(references, getDelegate().searchByIdentifiers(clazz, identifiers, withoutReferences(queryCustomizer, references)));
+    }
+
+    @Override
+    public List<Payload> searchNavigationResultAt(ID id, EReference reference, DAO.QueryCustomizer<ID> queryCustomizer) {
+        List<EReference> references = lazyReferencesOf(reference.getEReferenceType(), queryCustomizer);
+        return wrap(references, getDelegate().searchNavigationResultAt(id, reference, withoutReferences(queryCustomizer, references)));
+    }
+
+    @Override
+    public List<Payload> searchReferencedInstancesOf(EReference reference, EClass clazz, DAO.QueryCustomizer<ID> queryCustomizer) {
+        List<EReference> references = lazyReferencesOf(clazz, queryCustomizer);
+        return wrap(references, getDelegate().searchReferencedInstancesOf(reference, clazz, withoutReferences(queryCustomizer, references)));
+    }
+
+    /**
+     * Reference of the rows of a query result, loaded for all rows at first access.
+     */
+    private static final class ReferenceBatch<ID> {
+
+        private final DAO<ID> dao;
+
+        private final EReference reference;
+
+        private final List<ID> ids;
+
+        private Map<ID, List<Payload>> results;
+
+        private ReferenceBatch(DAO<ID> dao, EReference reference, List<ID> ids) {
+            this.dao = dao;
+            this.reference = reference;
+            this.ids = ids;
+        }
+
+        private synchronized Object valueOf(ID id) {
+            if (results == null) {
+                results = dao.getNavigationResultsAt(ids, reference);
+            }
+            List<Payload> result = id != null ? results.get(id) : null;
+            if (reference.isMany()) {
+                return result != null ? result : new ArrayList<>();
+            }
+            return result != null && !result.isEmpty() ? result.get(0) : null;
+        }
+    }
+
+    /**
+     * Row with references loaded at first access.
+     */
+    private static final class LazyPayload<ID> extends AbstractPayload {
+
+        private Payload row;
+
+        private boolean copied;
+
+        private final ID id;
+
+        private final Map<String, ReferenceBatch<ID>> pending;
+
+        private LazyPayload(Payload row, ID id, Map<String, ReferenceBatch<ID>> batches) {
+            this.row = row;
+            this.id = id;
+            this.pending = new LinkedHashMap<>(batches);
+            pending.keySet().removeAll(row.keySet());
+        }
+
+        private Payload writableRow() {
+            if (!copied) {
+                row = Payload.wrap(new LinkedHashMap<>(row));
+                copied = true;
+            }
+            return row;
+        }
+
+        private void resolve(Object key) {
+            ReferenceBatch<ID> batch = pending.get(key);
+            if (batch != null) {
+                writableRow().put((String) key, batch.valueOf(id));
+                pending.remove(key);
+            }
+        }
+
+        private void resolveAll() {
+            for (Object key : pending.keySet().toArray()) {
+                resolve(key);
+            }
+        }
+
+        @Override
+        public int size() {
+            return row.size() + pending.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return pending.containsKey(key) || row.containsKey(key);
+        }
+
+        @Override
+        public Object get(Object key) {
+            resolve(key);
+            return row.get(key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            pending.remove(key);
+            return writableRow().put(key, value);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            pending.remove(key);
+            return writableRow().remove(key);
+        }
+
+        @Override
+        public void clear() {
+            pending.clear();
+            writableRow().clear();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            resolveAll();
+            return row.entrySet();
+        }
+    }
+}
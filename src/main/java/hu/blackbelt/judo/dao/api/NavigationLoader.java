@@ -0,0 +1,241 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import lombok.NonNull;
+import org.eclipse.emf.ecore.EReference;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+
+/**
+ * Loader collecting navigations of separate callers and loading them by one query per reference (see
+ * {@link DAO#getNavigationResultsAt(Collection, EReference)} and
+ * {@link DAO#countNavigationResultsAt(Collection, EReference)}), so walking a relation of a list of instances does
+ * not cause a query per instance.
+ * <p>
+ * Requested navigations are collected until {@link #dispatch()} is called. If a dispatch executor is given,
+ * dispatch is scheduled on it when the first navigation is requested, so requests made in the same task (tick)
+ * are loaded together. Results are memoized for the lifetime of the loader (scope), a loader should be created for
+ * each request or unit of work. Loaders are thread-safe.
+ *
+ * @param <ID> type of identifiers
+ */
+public final class NavigationLoader<ID> {
+
+    private final DAO<ID> dao;
+
+    private final int maxBatchSize;
+
+    private final Executor dispatchExecutor;
+
+    private final Map<List<Object>, CompletableFuture<?>> memo = new HashMap<>();
+
+    private final Map<List<Object>, List<Request<ID>>> pending = new LinkedHashMap<>();
+
+    private boolean dispatchScheduled;
+
+    /**
+     * Create a loader dispatching requests explicitly.
+     *
+     * @param dao          DAO
+     * @param maxBatchSize maximum number of source IDs in a query
+     */
+    public NavigationLoader(DAO<ID> dao, int maxBatchSize) {
+        this(dao, maxBatchSize, null);
+    }
+
+    /**
+     * Create a loader.
+     *
+     * @param dao              DAO
+     * @param maxBatchSize     maximum number of source IDs in a query
+     * @param dispatchExecutor executor dispatching requests, <code>null</code> if requests are dispatched explicitly
+     */
+    public NavigationLoader(@NonNull DAO<ID> dao, int maxBatchSize, Executor dispatchExecutor) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+        }
+        this.dao = dao;
+        this.maxBatchSize = maxBatchSize;
+        this.dispatchExecutor = dispatchExecutor;
+    }
+
+    /**
+     * Request instances of a given reference from a given mapped transfer object.
+     *
+     * @param id        ID of source mapped transfer object
+     * @param reference transfer object reference
+     * @return list of instances, completed when dispatched
+     */
+    public CompletableFuture<List<Payload>> load(ID id, EReference reference) {
+        return request(Kind.RESULT, id, reference);
+    }
+
+    /**
+     * Request instances of a given reference from several mapped transfer objects.
+     *
+     * @param ids       IDs of source mapped transfer objects
+     * @param reference transfer object reference
+     * @return list of instances by source IDs, completed when dispatched
+     */
+    public CompletableFuture<Map<ID, List<Payload>>> loadMany(Collection<ID> ids, EReference reference) {
+        Map<ID, CompletableFuture<List<Payload>>> futures = new LinkedHashMap<>();
+        for (ID id : ids) {
+            futures.put(id, load(id, reference));
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).thenApply(v -> {
+            Map<ID, List<Payload>> result = new LinkedHashMap<>();
+            futures.forEach((id, future) -> result.put(id, future.join()));
+            return result;
+        });
+    }
+
+    /**
+     * Request number of instances of a given reference from a given mapped transfer object.
+     *
+     * @param id        ID of source mapped transfer object
+     * @param reference transfer object reference
+     * @return number of instances, completed when dispatched
+     */
+    public CompletableFuture<Long> loadCount(ID id, EReference reference) {
+        return request(Kind.COUNT, id, reference);
+    }
+
+    /**
+     * Get instances of a given reference from a given mapped transfer object, pending requests are dispatched.
+     *
+     * @param id        ID of source mapped transfer object
+     * @param reference transfer object reference
+     * @return list of instances
+     */
+    public List<Payload> get(ID id, EReference reference) {
+        CompletableFuture<List<Payload>> result = load(id, reference);
+        if (!result.isDone()) {
+            dispatch();
+        }
+        return result.join();
+    }
+
+    private <T> CompletableFuture<T> request(Kind kind, ID id, EReference reference) {
+        boolean schedule = false;
+        CompletableFuture<T> result;
+        synchronized (this) {
+            List<Object> key = Arrays.asList(kind, reference, id);
+            result = (CompletableFuture<T>) memo.get(key);
+            if (result != null) {
+                return result;
+            }
+            result = new CompletableFuture<>();
+            memo.put(key, result);
+            pending.computeIfAbsent(Arrays.asList(kind, reference), k -> new ArrayList<>())
+                    .add(new Request<>(id, result));
+            if (dispatchExecutor != null && !dispatchScheduled) {
+                dispatchScheduled = true;
+                schedule = true;
+            }
+        }
+        if (schedule) {
+            dispatchExecutor.execute(this::dispatch);
+        }
+        return result;
+    }
+
+    /**
+     * Load all pending requests, one query is executed per reference (and per batch size).
+     */
+    public void dispatch() {
+        Map<List<Object>, List<Request<ID>>> requests;
+        synchronized (this) {
+            requests = new LinkedHashMap<>(pending);
+            pending.clear();
+            dispatchScheduled = false;
+        }
+        requests.forEach((key, batch) -> {
+            Kind kind = (Kind) key.get(0);
+            EReference reference = (EReference) key.get(1);
+            for (int from = 0; from < batch.size(); from += maxBatchSize) {
+                List<Request<ID>> chunk = batch.subList(from, Math.min(from + maxBatchSize, batch.size()));
+                if (kind == Kind.RESULT) {
+                    execute(kind, reference, chunk, dao::getNavigationResultsAt, Collections.emptyList());
+                } else {
+                    execute(kind, reference, chunk, dao::countNavigationResultsAt, 0L);
+                }
+            }
+        });
+    }
+
+    private <T> void execute(Kind kind, EReference reference, List<Request<ID>> chunk,
+                             BiFunction<Collection<ID>, EReference, Map<ID, T>> query, T missing) {
+        List<ID> ids = new ArrayList<>(chunk.size());
+        for (Request<ID> request : chunk) {
+            ids.add(request.id);
+        }
+        try {
+            Map<ID, T> results = query.apply(ids, reference);
+            for (Request<ID> request : chunk) {
+                T result = results.get(request.id);
+                ((CompletableFuture<T>) request.result).complete(result != null ? result : missing);
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                for (Request<ID> request : chunk) {
+                    memo.remove(Arrays.asList(kind, reference, request.id));
+                }
+            }
+            for (Request<ID> request : chunk) {
+                request.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Clear memoized results (i.e. after instances are changed).
+     */
+    public synchronized void clear() {
+        memo.values().removeIf(CompletableFuture::isDone);
+    }
+
+    private enum Kind {
+        RESULT, COUNT
+    }
+
+    private static final class Request<ID> {
+
+        private final ID id;
+
+        private final CompletableFuture<?> result;
+
+        private Request(ID id, CompletableFuture<?> result) {
+            this.id = id;
+            this.result = result;
+        }
+    }
+}
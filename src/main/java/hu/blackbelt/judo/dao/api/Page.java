@@ -0,0 +1,130 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Page of a query: items, total number of items (depending on {@link CountMode}) and seek of the next page.
+ */
+@Getter
+@Builder
+public final class Page {
+
+    /**
+     * Counting of total number of items.
+     */
+    public enum CountMode {
+
+        /**
+         * Total number is counted exactly.
+         */
+        EXACT,
+
+        /**
+         * Total number may be estimated (i.e. from statistics of backend) if exact counting is expensive. Estimation
+         * is up to backends overriding paging methods of {@link DAO}, default implementations count exactly.
+         */
+        ESTIMATE,
+
+        /**
+         * Total number is not counted.
+         */
+        NONE
+    }
+
+    @NonNull
+    private final List<Payload> items;
+
+    /**
+     * Total number of items, <code>null</code> if it is not counted.
+     */
+    private final Long totalCount;
+
+    /**
+     * Total number is estimated (not exact), it is set only by backends estimating the total number (see
+     * {@link CountMode#ESTIMATE}).
+     */
+    private final boolean estimated;
+
+    /**
+     * Seek of the next page, <code>null</code> if there are no more items.
+     */
+    private final DAO.Seek nextSeek;
+
+    /**
+     * Check if there are more items after this page.
+     *
+     * @return <code>true</code> if there is a next page
+     */
+    public boolean hasNext() {
+        return nextSeek != null;
+    }
+
+    /**
+     * Create page of a query result. Total number of items is derived from the page if it is not full (last page),
+     * otherwise it is counted by the given counter unless counting is disabled. {@link CountMode#ESTIMATE} is handled
+     * as {@link CountMode#EXACT}, total number is never estimated. Seek of the next page is returned if the page is
+     * full unless the counted total number shows that there are no more items.
+     *
+     * @param items     items of page
+     * @param seek      seek of page, it can be <code>null</code>
+     * @param countMode counting of total number of items
+     * @param counter   counter of total number of items
+     * @return page
+     */
+    static Page of(List<Payload> items, DAO.Seek seek, CountMode countMode, LongSupplier counter) {
+        int limit = seek != null ? seek.getLimit() : 0;
+        int offset = seek != null ? seek.getOffset() : -1;
+        int start = Math.max(offset, 0);
+        boolean full = limit > 0 && items.size() >= limit;
+        boolean positionKnown = seek == null || seek.getLastItem() == null;
+
+        Long totalCount = null;
+        if (countMode != CountMode.NONE) {
+            if (!full && positionKnown && (start == 0 || !items.isEmpty())) {
+                totalCount = (long) start + items.size();
+            } else {
+                totalCount = counter.getAsLong();
+            }
+        }
+
+        boolean last = totalCount != null && positionKnown && totalCount <= (long) start + items.size();
+        DAO.Seek nextSeek = null;
+        if (full && !last) {
+            DAO.Seek.SeekBuilder builder = DAO.Seek.builder()
+                    .limit(limit)
+                    .reverse(seek.isReverse());
+            if (offset >= 0) {
+                builder.offset(offset + items.size());
+            } else {
+                builder.lastItem(items.get(items.size() - 1));
+            }
+            nextSeek = builder.build();
+        }
+        return new Page(items, totalCount, false, nextSeek);
+    }
+}
@@ -0,0 +1,137 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * {@link PayloadCursor} fetching rows page by page using {@link DAO.Seek}.
+ * <p>
+ * Only one page is held in memory. The query customizer should define ordering, otherwise the order of rows (and
+ * so the pages) is not stable. Seek of the original query customizer (if any) is respected: its limit is the maximum
+ * number of rows returned and its direction (reverse) is kept by all pages. If the seek has a last item, pages are
+ * fetched by keyset paging (last item of each page is the last item of the next seek), otherwise by offset: the offset
+ * of the seek is the offset of the first page.
+ *
+ * @param <ID> type of identifiers
+ */
+public final class PagingPayloadCursor<ID> implements PayloadCursor {
+
+    private final DAO.QueryCustomizer<ID> queryCustomizer;
+
+    private final Function<DAO.QueryCustomizer<ID>, ? extends Collection<Payload>> query;
+
+    private final int fetchSize;
+
+    private final int limit;
+
+    private final boolean reverse;
+
+    private final boolean keyset;
+
+    private int offset;
+
+    private Payload lastItem;
+
+    private int returned;
+
+    private Iterator<Payload> page = Collections.emptyIterator();
+
+    private boolean lastPage;
+
+    private boolean closed;
+
+    /**
+     * Create a cursor of a given query.
+     *
+     * @param queryCustomizer query customizer, it can be <code>null</code>
+     * @param fetchSize       number of rows fetched by a query
+     * @param query           query returning rows of the seek of the given query customizer
+     */
+    public PagingPayloadCursor(DAO.QueryCustomizer<ID> queryCustomizer, int fetchSize,
+                               Function<DAO.QueryCustomizer<ID>, ? extends Collection<Payload>> query) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be positive: " + fetchSize);
+        }
+        this.queryCustomizer = queryCustomizer != null ? queryCustomizer : DAO.QueryCustomizer.<ID>builder().build();
+        this.query = query;
+        this.fetchSize = fetchSize;
+        DAO.Seek seek = this.queryCustomizer.getSeek();
+        this.offset = seek != null && seek.getOffset() > 0 ? seek.getOffset() : 0;
+        this.reverse = seek != null && seek.isReverse();
+        this.lastItem = seek != null ? seek.getLastItem() : null;
+        this.keyset = lastItem != null;
+        this.limit = seek != null && seek.getLimit() > 0 ? seek.getLimit() : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed || returned >= limit) {
+            return false;
+        }
+        if (!page.hasNext() && !lastPage) {
+            fetch();
+        }
+        return page.hasNext();
+    }
+
+    private void fetch() {
+        int size = Math.min(fetchSize, limit - returned);
+        DAO.Seek.SeekBuilder seek = DAO.Seek.builder()
+                .limit(size)
+                .reverse(reverse);
+        if (keyset) {
+            seek.lastItem(lastItem);
+        } else {
+            seek.offset(offset);
+        }
+        Collection<Payload> rows = query.apply(queryCustomizer.toBuilder().seek(seek.build()).build());
+        offset += rows.size();
+        lastPage = rows.size() < size;
+        if (keyset && !rows.isEmpty()) {
+            Payload last = null;
+            for (Payload row : rows) {
+                last = row;
+            }
+            lastItem = last;
+        }
+        page = rows.iterator();
+    }
+
+    @Override
+    public Payload next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        returned++;
+        return page.next();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        page = Collections.emptyIterator();
+    }
+}
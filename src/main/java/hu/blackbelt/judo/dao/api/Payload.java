@@ -20,6 +20,8 @@ package hu.blackbelt.judo.dao.api;
  * #L%
  */
 
+import org.eclipse.emf.ecore.EClass;
+
 import java.util.*;
 
 public interface Payload extends Map<String, Object> {
@@ -28,113 +30,154 @@ public interface Payload extends Map<String, Object> {
         return objectMap != null ? new PayloadImpl(objectMap) : null;
     }
 
+    /**
+     * Create a payload adopting the given map without copying it. Nested maps and collections are converted to
+     * payloads on first access only, so wrapping a deep graph is cheap if most of it is never read.
+     * <p>
+     * The map (and its nested maps and collections) must not be used by the caller after wrapping. Wrapped payloads
+     * can be read by multiple threads concurrently (conversions are published safely), like payloads created by
+     * {@link #asPayload(Map)}.
+     *
+     * @param objectMap map to adopt
+     * @return payload or <code>null</code> if map is <code>null</code>
+     */
+    static Payload wrap(Map<String, Object> objectMap) {
+        return objectMap != null ? PayloadImpl.adopt(objectMap) : null;
+    }
+
+    /**
+     * Create a payload of a given transfer object type. Values are stored in a flat array indexed by the shared
+     * {@link PayloadSchema} of the type.
+     *
+     * @param type      transfer object type
+     * @param objectMap values
+     * @return payload or <code>null</code> if map is <code>null</code>
+     */
+    static Payload asPayload(EClass type, Map<String, Object> objectMap) {
+        return objectMap != null ? new CompactPayload(type, objectMap) : null;
+    }
+
+    /**
+     * Create a builder writing values directly to the storage of the built payload.
+     *
+     * @return payload builder
+     */
+    static PayloadBuilder builder() {
+        return new PayloadBuilder();
+    }
+
+    /**
+     * Create a builder of a payload of a given transfer object type, values are written directly to the slots of a
+     * {@link CompactPayload}.
+     *
+     * @param type transfer object type
+     * @return payload builder
+     */
+    static PayloadBuilder builder(EClass type) {
+        return new PayloadBuilder(type);
+    }
+
     static Payload empty() {
         return new PayloadImpl(Collections.emptyMap());
     }
 
     static Payload map(String k1, Object v1) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); }});
+        return builder().put(k1, v1).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); }});
+        return builder().put(k1, v1).put(k2, v2).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4,
                        String k5, Object v5) {
-
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);
-            put(k5, v5);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).put(k5, v5).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4,
                        String k5, Object v5, String k6, Object v6) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);
-            put(k5, v5); put(k6, v6);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).put(k5, v5).put(k6, v6).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4,
                        String k5, Object v5, String k6, Object v6, String k7, Object v7) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);
-            put(k5, v5); put(k6, v6); put(k7, v7);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).put(k5, v5).put(k6, v6).put(k7, v7).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4,
                        String k5, Object v5, String k6, Object v6, String k7, Object v7, String k8, Object v8) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);
-            put(k5, v5); put(k6, v6); put(k7, v7); put(k8, v8);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).put(k5, v5).put(k6, v6).put(k7, v7)
+                .put(k8, v8).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4,
                        String k5, Object v5, String k6, Object v6, String k7, Object v7, String k8, Object v8,
                        String k9, Object v9) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);
-            put(k5, v5); put(k6, v6); put(k7, v7); put(k8, v8); put(k9, v9);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).put(k5, v5).put(k6, v6).put(k7, v7)
+                .put(k8, v8).put(k9, v9).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4,
                        String k5, Object v5, String k6, Object v6, String k7, Object v7, String k8, Object v8,
                        String k9, Object v9, String k10, Object v10) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);
-            put(k5, v5); put(k6, v6); put(k7, v7); put(k8, v8); put(k9, v9); put(k10, v10);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).put(k5, v5).put(k6, v6).put(k7, v7)
+                .put(k8, v8).put(k9, v9).put(k10, v10).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4,
                        String k5, Object v5, String k6, Object v6, String k7, Object v7, String k8, Object v8,
                        String k9, Object v9, String k10, Object v10, String k11, Object v11) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);
-            put(k5, v5); put(k6, v6); put(k7, v7); put(k8, v8); put(k9, v9); put(k10, v10); put(k11, v11);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).put(k5, v5).put(k6, v6).put(k7, v7)
+                .put(k8, v8).put(k9, v9).put(k10, v10).put(k11, v11).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4,
                        String k5, Object v5, String k6, Object v6, String k7, Object v7, String k8, Object v8,
                        String k9, Object v9, String k10, Object v10, String k11, Object v11, String k12, Object v12) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);
-            put(k5, v5); put(k6, v6); put(k7, v7); put(k8, v8); put(k9, v9); put(k10, v10); put(k11, v11); put(k12, v12);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).put(k5, v5).put(k6, v6).put(k7, v7)
+                .put(k8, v8).put(k9, v9).put(k10, v10).put(k11, v11).put(k12, v12).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4,
                        String k5, Object v5, String k6, Object v6, String k7, Object v7, String k8, Object v8,
                        String k9, Object v9, String k10, Object v10, String k11, Object v11, String k12, Object v12,
                        String k13, Object v13) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);
-            put(k5, v5); put(k6, v6); put(k7, v7); put(k8, v8); put(k9, v9); put(k10, v10); put(k11, v11); put(k12, v12);
-            put(k13, v13);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).put(k5, v5).put(k6, v6).put(k7, v7)
+                .put(k8, v8).put(k9, v9).put(k10, v10).put(k11, v11).put(k12, v12).put(k13, v13).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4,
                        String k5, Object v5, String k6, Object v6, String k7, Object v7, String k8, Object v8,
                        String k9, Object v9, String k10, Object v10, String k11, Object v11, String k12, Object v12,
                        String k13, Object v13, String k14, Object v14) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);
-            put(k5, v5); put(k6, v6); put(k7, v7); put(k8, v8); put(k9, v9); put(k10, v10); put(k11, v11); put(k12, v12);
-            put(k13, v13); put(k14, v14);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).put(k5, v5).put(k6, v6).put(k7, v7)
+                .put(k8, v8).put(k9, v9).put(k10, v10).put(k11, v11).put(k12, v12).put(k13, v13).put(k14, v14).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4,
                        String k5, Object v5, String k6, Object v6, String k7, Object v7, String k8, Object v8,
                        String k9, Object v9, String k10, Object v10, String k11, Object v11, String k12, Object v12,
                        String k13, Object v13, String k14, Object v14, String k15, Object v15) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);
-            put(k5, v5); put(k6, v6); put(k7, v7); put(k8, v8); put(k9, v9); put(k10, v10); put(k11, v11); put(k12, v12);
-            put(k13, v13); put(k14, v14); put(k15, v15);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).put(k5, v5).put(k6, v6).put(k7, v7)
+                .put(k8, v8).put(k9, v9).put(k10, v10).put(k11, v11).put(k12, v12).put(k13, v13).put(k14, v14)
+                .put(k15, v15).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4,
                        String k5, Object v5, String k6, Object v6, String k7, Object v7, String k8, Object v8,
                        String k9, Object v9, String k10, Object v10, String k11, Object v11, String k12, Object v12,
                        String k13, Object v13, String k14, Object v14, String k15, Object v15, String k16, Object v16) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);
-            put(k5, v5); put(k6, v6); put(k7, v7); put(k8, v8); put(k9, v9); put(k10, v10); put(k11, v11); put(k12, v12);
-            put(k13, v13); put(k14, v14); put(k15, v15); put(k16, v16);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).put(k5, v5).put(k6, v6).put(k7, v7)
+                .put(k8, v8).put(k9, v9).put(k10, v10).put(k11, v11).put(k12, v12).put(k13, v13).put(k14, v14)
+                .put(k15, v15).put(k16, v16).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4,
@@ -142,9 +185,9 @@ public interface Payload extends Map<String, Object> {
                        String k9, Object v9, String k10, Object v10, String k11, Object v11, String k12, Object v12,
                        String k13, Object v13, String k14, Object v14, String k15, Object v15, String k16, Object v16,
                        String k17, Object v17) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);
-            put(k5, v5); put(k6, v6); put(k7, v7); put(k8, v8); put(k9, v9); put(k10, v10); put(k11, v11); put(k12, v12);
-            put(k13, v13); put(k14, v14); put(k15, v15); put(k16, v16); put(k17, v17);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).put(k5, v5).put(k6, v6).put(k7, v7)
+                .put(k8, v8).put(k9, v9).put(k10, v10).put(k11, v11).put(k12, v12).put(k13, v13).put(k14, v14)
+                .put(k15, v15).put(k16, v16).put(k17, v17).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4,
@@ -152,9 +195,9 @@ public interface Payload extends Map<String, Object> {
                        String k9, Object v9, String k10, Object v10, String k11, Object v11, String k12, Object v12,
                        String k13, Object v13, String k14, Object v14, String k15, Object v15, String k16, Object v16,
                        String k17, Object v17, String k18, Object v18) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);
-            put(k5, v5); put(k6, v6); put(k7, v7); put(k8, v8); put(k9, v9); put(k10, v10); put(k11, v11); put(k12, v12);
-            put(k13, v13); put(k14, v14); put(k15, v15); put(k16, v16); put(k17, v17); put(k18, v18);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).put(k5, v5).put(k6, v6).put(k7, v7)
+                .put(k8, v8).put(k9, v9).put(k10, v10).put(k11, v11).put(k12, v12).put(k13, v13).put(k14, v14)
+                .put(k15, v15).put(k16, v16).put(k17, v17).put(k18, v18).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4,
@@ -162,9 +205,9 @@ public interface Payload extends Map<String, Object> {
                        String k9, Object v9, String k10, Object v10, String k11, Object v11, String k12, Object v12,
                        String k13, Object v13, String k14, Object v14, String k15, Object v15, String k16, Object v16,
                        String k17, Object v17, String k18, Object v18, String k19, Object v19) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);
-            put(k5, v5); put(k6, v6); put(k7, v7); put(k8, v8); put(k9, v9); put(k10, v10); put(k11, v11); put(k12, v12);
-            put(k13, v13); put(k14, v14); put(k15, v15); put(k16, v16); put(k17, v17); put(k18, v18); put(k19, v19);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).put(k5, v5).put(k6, v6).put(k7, v7)
+                .put(k8, v8).put(k9, v9).put(k10, v10).put(k11, v11).put(k12, v12).put(k13, v13).put(k14, v14)
+                .put(k15, v15).put(k16, v16).put(k17, v17).put(k18, v18).put(k19, v19).build();
     }
 
     static Payload map(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4,
@@ -172,10 +215,9 @@ public interface Payload extends Map<String, Object> {
                        String k9, Object v9, String k10, Object v10, String k11, Object v11, String k12, Object v12,
                        String k13, Object v13, String k14, Object v14, String k15, Object v15, String k16, Object v16,
                        String k17, Object v17, String k18, Object v18, String k19, Object v19, String k20, Object v20) {
-        return asPayload(new HashMap<String, Object>() {{ put(k1, v1); put(k2, v2); put(k3, v3); put(k4, v4);
-            put(k5, v5); put(k6, v6); put(k7, v7); put(k8, v8); put(k9, v9); put(k10, v10); put(k11, v11); put(k12, v12);
-            put(k13, v13); put(k14, v14); put(k15, v15); put(k16, v16); put(k17, v17); put(k18, v18); put(k19, v19);
-            put(k20, v20);}});
+        return builder().put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).put(k5, v5).put(k6, v6).put(k7, v7)
+                .put(k8, v8).put(k9, v9).put(k10, v10).put(k11, v11).put(k12, v12).put(k13, v13).put(k14, v14)
+                .put(k15, v15).put(k16, v16).put(k17, v17).put(k18, v18).put(k19, v19).put(k20, v20).build();
     }
 
     static Entry<String, Object> entry(String key, Object value) {
@@ -187,11 +229,11 @@ public interface Payload extends Map<String, Object> {
         if (entries == null) {
             return asPayload(null);
         }
-        Map<String, Object> map = new HashMap<>();
+        PayloadBuilder builder = builder();
         for (Entry<String, Object> entry : entries) {
-            map.put(entry.getKey(), entry.getValue());
+            builder.put(entry.getKey(), entry.getValue());
         }
-        return asPayload(map);
+        return builder.build();
     }
 
     Payload getAsPayload(String name);
@@ -199,4 +241,112 @@ public interface Payload extends Map<String, Object> {
     Collection<Payload> getAsCollectionPayload(String name);
 
     <T> T getAs(Class<T> type, String name);
+
+    /**
+     * Get numeric value as <code>int</code>.
+     *
+     * @param name key
+     * @return value
+     * @throws IllegalArgumentException if value is missing, <code>null</code>, not a number or it cannot be converted
+     *                                  without loss
+     */
+    default int getInt(String name) {
+        return AbstractPayload.requireInt(name, get(name));
+    }
+
+    /**
+     * Get numeric value as <code>int</code>.
+     *
+     * @param name         key
+     * @param defaultValue value returned if value is missing or <code>null</code>
+     * @return value
+     * @throws IllegalArgumentException if value is not a number or it cannot be converted without loss
+     */
+    default int getInt(String name, int defaultValue) {
+        Object value = get(name);
+        return value != null ? AbstractPayload.requireInt(name, value) : defaultValue;
+    }
+
+    /**
+     * Get numeric value as <code>long</code>.
+     *
+     * @param name key
+     * @return value
+     * @throws IllegalArgumentException if value is missing, <code>null</code>, not a number or it cannot be converted
+     *                                  without loss
+     */
+    default long getLong(String name) {
+        return AbstractPayload.requireLong(name, get(name));
+    }
+
+    /**
+     * Get numeric value as <code>long</code>.
+     *
+     * @param name         key
+     * @param defaultValue value returned if value is missing or <code>null</code>
+     * @return value
+     * @throws IllegalArgumentException if value is not a number or it cannot be converted without loss
+     */
+    default long getLong(String name, long defaultValue) {
+        Object value = get(name);
+        return value != null ? AbstractPayload.requireLong(name, value) : defaultValue;
+    }
+
+    /**
+     * Get numeric value as <code>double</code>.
+     *
+     * @param name key
+     * @return value
+     * @throws IllegalArgumentException if value is missing, <code>null</code> or not a number
+     */
+    default double getDouble(String name) {
+        return AbstractPayload.requireNumber(name, get(name)).doubleValue();
+    }
+
+    /**
+     * Get numeric value as <code>double</code>.
+     *
+     * @param name         key
+     * @param defaultValue value returned if value is missing or <code>null</code>
+     * @return value
+     * @throws IllegalArgumentException if value is not a number
+     */
+    default double getDouble(String name, double defaultValue) {
+        Object value = get(name);
+        return value != null ? AbstractPayload.requireNumber(name, value).doubleValue() : defaultValue;
+    }
+
+    /**
+     * Get boolean value.
+     *
+     * @param name key
+     * @return value
+     * @throws IllegalArgumentException if value is missing, <code>null</code> or not a boolean
+     */
+    default boolean getBoolean(String name) {
+        return AbstractPayload.requireBoolean(name, get(name));
+    }
+
+    /**
+     * Get boolean value.
+     *
+     * @param name         key
+     * @param defaultValue value returned if value is missing or <code>null</code>
+     * @return value
+     * @throws IllegalArgumentException if value is not a boolean
+     */
+    default boolean getBoolean(String name, boolean defaultValue) {
+        Object value = get(name);
+        return value != null ? AbstractPayload.requireBoolean(name, value) : defaultValue;
+    }
+
+    /**
+     * Get an immutable snapshot of payload. Nested payloads and collections are frozen too, already frozen parts are
+     * shared instead of copied.
+     *
+     * @return frozen payload
+     */
+    default Payload freeze() {
+        return FrozenPayload.of(this);
+    }
 }
@@ -0,0 +1,639 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EClass;
+
+import java.util.*;
+
+/**
+ * Columnar list of payloads of the same transfer object type.
+ * <p>
+ * Values of a key defined by the type are stored in one column per {@link PayloadSchema} slot. Columns of numeric and
+ * boolean attributes are primitive arrays (see {@link PayloadSchema#primitiveTypeAt(int)}); a column is converted to
+ * an object array when a value of other type is stored. Keys not defined by the type (i.e. identifier, transient
+ * keys) are stored in a sorted map per row, allocated only for rows having such keys.
+ * <p>
+ * Elements of the list are lightweight row views implementing {@link Payload}, changes of a row are written to the
+ * columns. Columns (see {@link #getColumn(String)}) can be scanned without creating row views.
+ */
+public final class PayloadBatch extends AbstractList<Payload> implements RandomAccess {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final PayloadSchema schema;
+
+    private final Column[] columns;
+
+    private TreeMap<String, Object>[] extensions;
+
+    private int size;
+
+    private int capacity;
+
+    private PayloadBatch(PayloadSchema schema, int capacity) {
+        this.schema = schema;
+        this.columns = new Column[schema.size()];
+        for (int slot = 0; slot < columns.length; slot++) {
+            columns[slot] = new Column(schema.keyAt(slot), schema.primitiveTypeAt(slot));
+        }
+        ensureCapacity(capacity);
+    }
+
+    /**
+     * Create a batch of given rows.
+     *
+     * @param type transfer object type
+     * @param rows rows
+     * @return batch
+     */
+    public static PayloadBatch of(EClass type, Collection<? extends Map<String, Object>> rows) {
+        Builder builder = builder(type, rows.size());
+        for (Map<String, Object> row : rows) {
+            builder.add(row);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Create a builder of batch.
+     *
+     * @param type transfer object type
+     * @return batch builder
+     */
+    public static Builder builder(EClass type) {
+        return builder(type, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a builder of batch.
+     *
+     * @param type         transfer object type
+     * @param expectedRows expected number of rows, columns are allocated for it
+     * @return batch builder
+     */
+    public static Builder builder(EClass type, int expectedRows) {
+        return new Builder(new PayloadBatch(PayloadSchema.of(type), Math.max(expectedRows, 1)));
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(minCapacity, capacity * 2);
+        for (Column column : columns) {
+            column.ensureCapacity(newCapacity);
+        }
+        if (extensions != null) {
+            extensions = Arrays.copyOf(extensions, newCapacity);
+        }
+        capacity = newCapacity;
+    }
+
+    private TreeMap<String, Object> extension(int row) {
+        if (extensions == null) {
+            extensions = new TreeMap[capacity];
+        }
+        if (extensions[row] == null) {
+            extensions[row] = new TreeMap<>();
+        }
+        return extensions[row];
+    }
+
+    private TreeMap<String, Object> extensionIfExists(int row) {
+        return extensions != null ? extensions[row] : null;
+    }
+
+    public PayloadSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Get column of a given key.
+     *
+     * @param key key defined by the transfer object type
+     * @return column
+     * @throws IllegalArgumentException if key is not defined by the transfer object type
+     */
+    public Column getColumn(String key) {
+        int slot = schema.slotOf(key);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Key '" + key + "' is not defined by " + schema.getType().getName());
+        }
+        return columns[slot];
+    }
+
+    @Override
+    public Payload get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return new Row(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Builder of {@link PayloadBatch}, rows are appended to the columns. Builder can be used once.
+     */
+    public static final class Builder {
+
+        private PayloadBatch batch;
+
+        private Builder(PayloadBatch batch) {
+            this.batch = batch;
+        }
+
+        /**
+         * Append a row.
+         *
+         * @param row row values
+         * @return this builder
+         */
+        public Builder add(Map<String, Object> row) {
+            if (batch == null) {
+                throw new IllegalStateException("Batch is already built");
+            }
+            int index = batch.size;
+            batch.ensureCapacity(index + 1);
+            batch.size++;
+            PayloadSchema schema = batch.schema;
+            for (Map.Entry<String, Object> entry : row.entrySet()) {
+                String key = entry.getKey();
+                if (key == null) {
+                    throw new IllegalArgumentException("Payload contains null key(s)");
+                }
+                int slot = schema.slotOf(key);
+                if (slot >= 0) {
+                    batch.columns[slot].set(index,
+                            CompactPayload.toPayloadValue(schema.referencedSchemaAt(slot), entry.getValue()));
+                } else {
+                    batch.extension(index).put(key, AbstractPayload.toPayloadValue(entry.getValue()));
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Build batch.
+         *
+         * @return batch
+         */
+        public PayloadBatch build() {
+            if (batch == null) {
+                throw new IllegalStateException("Batch is already built");
+            }
+            PayloadBatch result = batch;
+            batch = null;
+            return result;
+        }
+    }
+
+    /**
+     * Values of a key in all rows of the batch.
+     */
+    public static final class Column {
+
+        private static final int LONG = 0;
+        private static final int DOUBLE = 1;
+        private static final int BOOLEAN = 2;
+        private static final int OBJECT = 3;
+
+        private final String key;
+
+        private final Class<?> primitiveType;
+
+        private int kind;
+
+        private long[] longs;
+
+        private double[] doubles;
+
+        private boolean[] booleans;
+
+        private Object[] objects;
+
+        private final BitSet present = new BitSet();
+
+        private final BitSet nulls = new BitSet();
+
+        private Column(String key, Class<?> primitiveType) {
+            this.key = key;
+            this.primitiveType = primitiveType;
+            if (primitiveType == Boolean.class) {
+                kind = BOOLEAN;
+            } else if (primitiveType == Double.class || primitiveType == Float.class) {
+                kind = DOUBLE;
+            } else if (primitiveType != null) {
+                kind = LONG;
+            } else {
+                kind = OBJECT;
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            switch (kind) {
+                case LONG:
+                    longs = longs != null ? Arrays.copyOf(longs, capacity) : new long[capacity];
+                    break;
+                case DOUBLE:
+                    doubles = doubles != null ? Arrays.copyOf(doubles, capacity) : new double[capacity];
+                    break;
+                case BOOLEAN:
+                    booleans = booleans != null ? Arrays.copyOf(booleans, capacity) : new boolean[capacity];
+                    break;
+                default:
+                    objects = objects != null ? Arrays.copyOf(objects, capacity) : new Object[capacity];
+            }
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Check if values are stored in a primitive array.
+         *
+         * @return <code>true</code> if column is primitive
+         */
+        public boolean isPrimitive() {
+            return kind != OBJECT;
+        }
+
+        /**
+         * Check if a given row contains the key.
+         *
+         * @param row row index
+         * @return <code>true</code> if key is set (to any value including <code>null</code>)
+         */
+        public boolean isPresent(int row) {
+            return present.get(row);
+        }
+
+        /**
+         * Check if value of a given row is missing or <code>null</code>.
+         *
+         * @param row row index
+         * @return <code>true</code> if there is no value
+         */
+        public boolean isNull(int row) {
+            return !present.get(row) || nulls.get(row);
+        }
+
+        /**
+         * Get value of a given row, primitive values are boxed.
+         *
+         * @param row row index
+         * @return value or <code>null</code>
+         */
+        public Object get(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            switch (kind) {
+                case LONG:
+                    long value = longs[row];
+                    if (primitiveType == Long.class) {
+                        return value;
+                    } else if (primitiveType == Integer.class) {
+                        return (int) value;
+                    } else if (primitiveType == Short.class) {
+                        return (short) value;
+                    } else {
+                        return (byte) value;
+                    }
+                case DOUBLE:
+                    return primitiveType == Double.class ? (Object) doubles[row] : (Object) (float) doubles[row];
+                case BOOLEAN:
+                    return booleans[row];
+                default:
+                    return objects[row];
+            }
+        }
+
+        /**
+         * Get numeric value of a given row as <code>long</code>.
+         *
+         * @param row row index
+         * @return value
+         * @throws IllegalArgumentException if value is missing, <code>null</code>, not a number or it cannot be
+         *                                  converted without loss
+         */
+        public long getLong(int row) {
+            if (kind == LONG && !isNull(row)) {
+                return longs[row];
+            } else if (kind == DOUBLE && !isNull(row)) {
+                return AbstractPayload.toLong(key, doubles[row]);
+            }
+            return AbstractPayload.requireLong(key, get(row));
+        }
+
+        /**
+         * Get numeric value of a given row as <code>int</code>.
+         *
+         * @param row row index
+         * @return value
+         * @throws IllegalArgumentException if value is missing, <code>null</code>, not a number or it cannot be
+         *                                  converted without loss
+         */
+        public int getInt(int row) {
+            if (kind == LONG && !isNull(row)) {
+                return AbstractPayload.toInt(key, longs[row]);
+            } else if (kind == DOUBLE && !isNull(row)) {
+                return AbstractPayload.toInt(key, AbstractPayload.toLong(key, doubles[row]));
+            }
+            return AbstractPayload.requireInt(key, get(row));
+        }
+
+        /**
+         * Get numeric value of a given row as <code>double</code>.
+         *
+         * @param row row index
+         * @return value
+         * @throws IllegalArgumentException if value is missing, <code>null</code> or not a number
+         */
+        public double getDouble(int row) {
+            if (kind == DOUBLE && !isNull(row)) {
+                return doubles[row];
+            } else if (kind == LONG && !isNull(row)) {
+                return longs[row];
+            }
+            return AbstractPayload.requireNumber(key, get(row)).doubleValue();
+        }
+
+        /**
+         * Get boolean value of a given row.
+         *
+         * @param row row index
+         * @return value
+         * @throws IllegalArgumentException if value is missing, <code>null</code> or not a boolean
+         */
+        public boolean getBoolean(int row) {
+            if (kind == BOOLEAN && !isNull(row)) {
+                return booleans[row];
+            }
+            return AbstractPayload.requireBoolean(key, get(row));
+        }
+
+        private void set(int row, Object value) {
+            present.set(row);
+            if (value == null) {
+                nulls.set(row);
+                if (kind == OBJECT) {
+                    objects[row] = null;
+                }
+                return;
+            }
+            nulls.clear(row);
+            if (kind != OBJECT && value.getClass() == primitiveType) {
+                if (kind == LONG) {
+                    longs[row] = ((Number) value).longValue();
+                } else if (kind == DOUBLE) {
+                    doubles[row] = ((Number) value).doubleValue();
+                } else {
+                    booleans[row] = (Boolean) value;
+                }
+                return;
+            }
+            if (kind != OBJECT) {
+                toObjects();
+            }
+            objects[row] = value;
+        }
+
+        private void remove(int row) {
+            present.clear(row);
+            nulls.clear(row);
+            if (kind == OBJECT) {
+                objects[row] = null;
+            }
+        }
+
+        private void toObjects() {
+            int capacity = kind == LONG ? longs.length : kind == DOUBLE ? doubles.length : booleans.length;
+            Object[] boxed = new Object[capacity];
+            for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+                boxed[row] = get(row);
+            }
+            kind = OBJECT;
+            objects = boxed;
+            longs = null;
+            doubles = null;
+            booleans = null;
+        }
+    }
+
+    private final class Row extends AbstractPayload {
+
+        private final int index;
+
+        private Row(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int size() {
+            int count = 0;
+            for (Column column : columns) {
+                if (column.isPresent(index)) {
+                    count++;
+                }
+            }
+            TreeMap<String, Object> extension = extensionIfExists(index);
+            return count + (extension != null ? extension.size() : 0);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            int slot = schema.slotOf(key);
+            if (slot >= 0) {
+                return columns[slot].isPresent(index);
+            }
+            TreeMap<String, Object> extension = extensionIfExists(index);
+            return extension != null && key instanceof String && extension.containsKey(key);
+        }
+
+        @Override
+        public Object get(Object key) {
+            int slot = schema.slotOf(key);
+            if (slot >= 0) {
+                return columns[slot].get(index);
+            }
+            TreeMap<String, Object> extension = extensionIfExists(index);
+            return extension != null && key instanceof String ? extension.get(key) : null;
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            if (key == null) {
+                throw new IllegalArgumentException("Payload contains null key(s)");
+            }
+            int slot = schema.slotOf(key);
+            if (slot >= 0) {
+                Object previous = columns[slot].get(index);
+                columns[slot].set(index, value);
+                return previous;
+            }
+            return extension(index).put(key, value);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            int slot = schema.slotOf(key);
+            if (slot >= 0) {
+                Object previous = columns[slot].get(index);
+                columns[slot].remove(index);
+                return previous;
+            }
+            TreeMap<String, Object> extension = extensionIfExists(index);
+            return extension != null && key instanceof String ? extension.remove(key) : null;
+        }
+
+        @Override
+        public void clear() {
+            for (Column column : columns) {
+                column.remove(index);
+            }
+            if (extensions != null) {
+                extensions[index] = null;
+            }
+        }
+
+        @Override
+        public long getLong(String name) {
+            int slot = schema.slotOf(name);
+            return slot >= 0 ? columns[slot].getLong(index) : super.getLong(name);
+        }
+
+        @Override
+        public int getInt(String name) {
+            int slot = schema.slotOf(name);
+            return slot >= 0 ? columns[slot].getInt(index) : super.getInt(name);
+        }
+
+        @Override
+        public double getDouble(String name) {
+            int slot = schema.slotOf(name);
+            return slot >= 0 ? columns[slot].getDouble(index) : super.getDouble(name);
+        }
+
+        @Override
+        public boolean getBoolean(String name) {
+            int slot = schema.slotOf(name);
+            return slot >= 0 ? columns[slot].getBoolean(index) : super.getBoolean(name);
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new RowIterator(index);
+                }
+
+                @Override
+                public int size() {
+                    return Row.this.size();
+                }
+            };
+        }
+    }
+
+    private final class RowIterator implements Iterator<Map.Entry<String, Object>> {
+
+        private final int index;
+
+        private final TreeMap<String, Object> extension;
+
+        private int nextSlot;
+
+        private String nextExtensionKey;
+
+        private String lastKey;
+
+        private RowIterator(int index) {
+            this.index = index;
+            this.extension = extensionIfExists(index);
+            this.nextSlot = nextSlot(0);
+            this.nextExtensionKey = extension != null && !extension.isEmpty() ? extension.firstKey() : null;
+        }
+
+        private int nextSlot(int from) {
+            int slot = from;
+            while (slot < columns.length && !columns[slot].isPresent(index)) {
+                slot++;
+            }
+            return slot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextSlot < columns.length || nextExtensionKey != null;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (nextExtensionKey == null
+                    || nextSlot < columns.length && schema.keyAt(nextSlot).compareTo(nextExtensionKey) < 0) {
+                lastKey = schema.keyAt(nextSlot);
+                Map.Entry<String, Object> entry = new RowEntry(index, lastKey, columns[nextSlot].get(index));
+                nextSlot = nextSlot(nextSlot + 1);
+                return entry;
+            } else {
+                lastKey = nextExtensionKey;
+                Map.Entry<String, Object> entry = new RowEntry(index, lastKey, extension.get(lastKey));
+                nextExtensionKey = extension.higherKey(nextExtensionKey);
+                return entry;
+            }
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            get(index).remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    private final class RowEntry extends AbstractMap.SimpleEntry<String, Object> {
+
+        private final int index;
+
+        private RowEntry(int index, String key, Object value) {
+            super(key, value);
+            this.index = index;
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            super.setValue(value);
+            return get(index).put(getKey(), value);
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EClass;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Compact binary reader and writer of payloads, i.e. for caches and transferring payloads between nodes.
+ * <p>
+ * If transfer object type is given, keys defined by the type are written as slot ordinals of its
+ * {@link PayloadSchema} (and nested payloads of references by the schema of the referenced type), so both sides must
+ * use the same model. Schema fingerprint is written and verified on reading. Without type (or for keys not defined by the type) keys are written as strings.
+ * Integral numbers are varint encoded, <code>java.time</code> values, UUIDs and byte arrays have native encodings.
+ * <p>
+ * Payloads are written to and read from {@link ByteBuffer}s directly. The codec is stateless and thread-safe.
+ */
+public final class PayloadBinaryCodec {
+
+    private static final PayloadBinaryCodec INSTANCE = new PayloadBinaryCodec();
+
+    private static final byte FORMAT_SELF_DESCRIBING = 1;
+    private static final byte FORMAT_SCHEMA = 2;
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte SHORT = 5;
+    private static final byte BYTE = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte BIG_INTEGER = 9;
+    private static final byte BIG_DECIMAL = 10;
+    private static final byte STRING = 11;
+    private static final byte CHARACTER = 12;
+    private static final byte LOCAL_DATE = 13;
+    private static final byte LOCAL_TIME = 14;
+    private static final byte LOCAL_DATE_TIME = 15;
+    private static final byte OFFSET_DATE_TIME = 16;
+    private static final byte ZONED_DATE_TIME = 17;
+    private static final byte INSTANT = 18;
+    private static final byte OFFSET_TIME = 19;
+    private static final byte DURATION = 20;
+    private static final byte UUID_VALUE = 21;
+    private static final byte BYTES = 22;
+    private static final byte LIST = 23;
+    private static final byte SET = 24;
+    private static final byte PAYLOAD = 25;
+    private static final byte SCHEMA_PAYLOAD = 26;
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    /**
+     * Get shared codec instance.
+     *
+     * @return shared codec
+     */
+    public static PayloadBinaryCodec getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Write payload in self-describing format.
+     *
+     * @param payload payload to write
+     * @param buffer  target buffer
+     * @throws BufferOverflowException if buffer is too small
+     */
+    public void write(Payload payload, ByteBuffer buffer) {
+        write(payload, null, buffer);
+    }
+
+    /**
+     * Write payload of a given transfer object type.
+     *
+     * @param payload payload to write
+     * @param type    transfer object type, <code>null</code> to use self-describing format
+     * @param buffer  target buffer
+     * @throws BufferOverflowException if buffer is too small
+     */
+    public void write(Payload payload, EClass type, ByteBuffer buffer) {
+        if (type != null) {
+            PayloadSchema schema = PayloadSchema.of(type);
+            buffer.put(FORMAT_SCHEMA);
+            buffer.putLong(schema.getFingerprint());
+            writePayload(buffer, payload, schema);
+        } else {
+            buffer.put(FORMAT_SELF_DESCRIBING);
+            writePayload(buffer, payload, null);
+        }
+    }
+
+    /**
+     * Write payload of a given transfer object type to a new buffer. Buffer is enlarged if needed.
+     *
+     * @param payload payload to write
+     * @param type    transfer object type, <code>null</code> to use self-describing format
+     * @return buffer ready to read
+     */
+    public ByteBuffer encode(Payload payload, EClass type) {
+        int size = INITIAL_BUFFER_SIZE;
+        while (true) {
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            try {
+                write(payload, type, buffer);
+                buffer.flip();
+                return buffer;
+            } catch (BufferOverflowException e) {
+                size *= 2;
+            }
+        }
+    }
+
+    /**
+     * Read payload written in self-describing format.
+     *
+     * @param buffer source buffer
+     * @return payload
+     */
+    public Payload read(ByteBuffer buffer) {
+        return read(buffer, null);
+    }
+
+    /**
+     * Read payload of a given transfer object type.
+     *
+     * @param buffer source buffer
+     * @param type   transfer object type, it must be the same as the one used for writing
+     * @return payload
+     */
+    public Payload read(ByteBuffer buffer, EClass type) {
+        byte format = buffer.get();
+        if (format == FORMAT_SCHEMA) {
+            if (type == null) {
+                throw new IllegalArgumentException("Payload is written with schema, transfer object type is required");
+            }
+            PayloadSchema schema = PayloadSchema.of(type);
+            if (buffer.getLong() != schema.getFingerprint()) {
+                throw new IllegalArgumentException("Payload is written with a different schema of " + type.getName());
+            }
+            return readPayload(buffer, schema);
+        } else if (format == FORMAT_SELF_DESCRIBING) {
+            return readPayload(buffer, null);
+        } else {
+            throw new IllegalArgumentException("Unknown payload format: " + format);
+        }
+    }
+
+    private void writePayload(ByteBuffer buffer, Map<String, Object> payload, PayloadSchema schema) {
+        writeVarint(buffer, payload.size());
+        for (Map.Entry<String, Object> entry : payload.entrySet()) {
+            int slot = schema != null ? schema.slotOf(entry.getKey()) : -1;
+            if (slot >= 0) {
+                writeVarint(buffer, slot + 1);
+                writeValue(buffer, entry.getValue(), schema.referencedSchemaAt(slot));
+            } else {
+                buffer.put((byte) 0);
+                writeString(buffer, entry.getKey());
+                writeValue(buffer, entry.getValue(), null);
+            }
+        }
+    }
+
+    private Payload readPayload(ByteBuffer buffer, PayloadSchema schema) {
+        int size = (int) readVarint(buffer);
+        if (schema != null) {
+            CompactPayload payload = new CompactPayload(schema);
+            for (int i = 0; i < size; i++) {
+                long slot = readVarint(buffer) - 1;
+                if (slot < -1 || slot >= schema.size()) {
+                    throw new IllegalArgumentException("Invalid slot of " + schema.getType().getName() + ": " + slot);
+                } else if (slot >= 0) {
+                    payload.setSlot((int) slot, readValue(buffer, schema.referencedSchemaAt((int) slot)));
+                } else {
+                    payload.put(readString(buffer), readValue(buffer, null));
+                }
+            }
+            return payload;
+        } else {
+            TreeMap<String, Object> map = new TreeMap<>();
+            for (int i = 0; i < size; i++) {
+                buffer.get();
+                map.put(readString(buffer), readValue(buffer, null));
+            }
+            return PayloadImpl.adoptConverted(map);
+        }
+    }
+
+    private void writeValue(ByteBuffer buffer, Object value, PayloadSchema referencedSchema) {
+        if (value == null) {
+            buffer.put(NULL);
+        } else if (value instanceof String) {
+            buffer.put(STRING);
+            writeString(buffer, (String) value);
+        } else if (value instanceof Integer) {
+            buffer.put(INTEGER);
+            writeSignedVarint(buffer, (Integer) value);
+        } else if (value instanceof Long) {
+            buffer.put(LONG);
+            writeSignedVarint(buffer, (Long) value);
+        } else if (value instanceof Boolean) {
+            buffer.put((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Double) {
+            buffer.put(DOUBLE);
+            buffer.putDouble((Double) value);
+        } else if (value instanceof Map) {
+            if (referencedSchema != null) {
+                buffer.put(SCHEMA_PAYLOAD);
+                writePayload(buffer, (Map<String, Object>) value, referencedSchema);
+            } else {
+                buffer.put(PAYLOAD);
+                writePayload(buffer, (Map<String, Object>) value, null);
+            }
+        } else if (value instanceof Collection) {
+            buffer.put(value instanceof List ? LIST : SET);
+            Collection<?> collection = (Collection<?>) value;
+            writeVarint(buffer, collection.size());
+            for (Object element : collection) {
+                writeValue(buffer, element, referencedSchema);
+            }
+        } else if (value instanceof BigDecimal) {
+            buffer.put(BIG_DECIMAL);
+            writeSignedVarint(buffer, ((BigDecimal) value).scale());
+            writeBytes(buffer, ((BigDecimal) value).unscaledValue().toByteArray());
+        } else if (value instanceof BigInteger) {
+            buffer.put(BIG_INTEGER);
+            writeBytes(buffer, ((BigInteger) value).toByteArray());
+        } else if (value instanceof Short) {
+            buffer.put(SHORT);
+            writeSignedVarint(buffer, (Short) value);
+        } else if (value instanceof Byte) {
+            buffer.put(BYTE);
+            buffer.put((Byte) value);
+        } else if (value instanceof Float) {
+            buffer.put(FLOAT);
+            buffer.putFloat((Float) value);
+        } else if (value instanceof Character) {
+            buffer.put(CHARACTER);
+            buffer.putChar((Character) value);
+        } else if (value instanceof LocalDate) {
+            buffer.put(LOCAL_DATE);
+            writeSignedVarint(buffer, ((LocalDate) value).toEpochDay());
+        } else if (value instanceof LocalTime) {
+            buffer.put(LOCAL_TIME);
+            writeVarint(buffer, ((LocalTime) value).toNanoOfDay());
+        } else if (value instanceof LocalDateTime) {
+            buffer.put(LOCAL_DATE_TIME);
+            writeSignedVarint(buffer, ((LocalDateTime) value).toLocalDate().toEpochDay());
+            writeVarint(buffer, ((LocalDateTime) value).toLocalTime().toNanoOfDay());
+        } else if (value instanceof OffsetDateTime) {
+            OffsetDateTime offsetDateTime = (OffsetDateTime) value;
+            buffer.put(OFFSET_DATE_TIME);
+            writeSignedVarint(buffer, offsetDateTime.toEpochSecond());
+            writeVarint(buffer, offsetDateTime.getNano());
+            writeSignedVarint(buffer, offsetDateTime.getOffset().getTotalSeconds());
+        } else if (value instanceof ZonedDateTime) {
+            ZonedDateTime zonedDateTime = (ZonedDateTime) value;
+            buffer.put(ZONED_DATE_TIME);
+            writeSignedVarint(buffer, zonedDateTime.toEpochSecond());
+            writeVarint(buffer, zonedDateTime.getNano());
+            writeString(buffer, zonedDateTime.getZone().getId());
+        } else if (value instanceof Instant) {
+            buffer.put(INSTANT);
+            writeSignedVarint(buffer, ((Instant) value).getEpochSecond());
+            writeVarint(buffer, ((Instant) value).getNano());
+        } else if (value instanceof OffsetTime) {
+            buffer.put(OFFSET_TIME);
+            writeVarint(buffer, ((OffsetTime) value).toLocalTime().toNanoOfDay());
+            writeSignedVarint(buffer, ((OffsetTime) value).getOffset().getTotalSeconds());
+        } else if (value instanceof Duration) {
+            buffer.put(DURATION);
+            writeSignedVarint(buffer, ((Duration) value).getSeconds());
+            writeVarint(buffer, ((Duration) value).getNano());
+        } else if (value instanceof UUID) {
+            buffer.put(UUID_VALUE);
+            buffer.putLong(((UUID) value).getMostSignificantBits());
+            buffer.putLong(((UUID) value).getLeastSignificantBits());
+        } else if (value instanceof byte[]) {
+            buffer.put(BYTES);
+            writeBytes(buffer, (byte[]) value);
+        } else {
+            throw new IllegalArgumentException("Unsupported value type: " + value.getClass().getName());
+        }
+    }
+
+    private Object readValue(ByteBuffer buffer, PayloadSchema referencedSchema) {
+        byte tag = buffer.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case INTEGER:
+                return (int) readSignedVarint(buffer);
+            case LONG:
+                return readSignedVarint(buffer);
+            case SHORT:
+                return (short) readSignedVarint(buffer);
+            case BYTE:
+                return buffer.get();
+            case FLOAT:
+                return buffer.getFloat();
+            case DOUBLE:
+                return buffer.getDouble();
+            case BIG_INTEGER:
+                return new BigInteger(readBytes(buffer));
+            case BIG_DECIMAL: {
+                int scale = (int) readSignedVarint(buffer);
+                return new BigDecimal(new BigInteger(readBytes(buffer)), scale);
+            }
+            case STRING:
+                return readString(buffer);
+            case CHARACTER:
+                return buffer.getChar();
+            case LOCAL_DATE:
+                return LocalDate.ofEpochDay(readSignedVarint(buffer));
+            case LOCAL_TIME:
+                return LocalTime.ofNanoOfDay(readVarint(buffer));
+            case LOCAL_DATE_TIME: {
+                LocalDate date = LocalDate.ofEpochDay(readSignedVarint(buffer));
+                return LocalDateTime.of(date, LocalTime.ofNanoOfDay(readVarint(buffer)));
+            }
+            case OFFSET_DATE_TIME: {
+                Instant instant = Instant.ofEpochSecond(readSignedVarint(buffer), readVarint(buffer));
+                return OffsetDateTime.ofInstant(instant, ZoneOffset.ofTotalSeconds((int) readSignedVarint(buffer)));
+            }
+            case ZONED_DATE_TIME: {
+                Instant instant = Instant.ofEpochSecond(readSignedVarint(buffer), readVarint(buffer));
+                return ZonedDateTime.ofInstant(instant, ZoneId.of(readString(buffer)));
+            }
+            case INSTANT:
+                return Instant.ofEpochSecond(readSignedVarint(buffer), readVarint(buffer));
+            case OFFSET_TIME: {
+                LocalTime time = LocalTime.ofNanoOfDay(readVarint(buffer));
+                return OffsetTime.of(time, ZoneOffset.ofTotalSeconds((int) readSignedVarint(buffer)));
+            }
+            case DURATION:
+                return Duration.ofSeconds(readSignedVarint(buffer), readVarint(buffer));
+            case UUID_VALUE:
+                return new UUID(buffer.getLong(), buffer.getLong());
+            case BYTES:
+                return readBytes(buffer);
+            case LIST: {
+                int size = (int) readVarint(buffer);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(buffer, referencedSchema));
+                }
+                return list;
+            }
+            case SET: {
+                int size = (int) readVarint(buffer);
+                Set<Object> set = new HashSet<>();
+                for (int i = 0; i < size; i++) {
+                    set.add(readValue(buffer, referencedSchema));
+                }
+                return set;
+            }
+            case PAYLOAD:
+                return readPayload(buffer, null);
+            case SCHEMA_PAYLOAD:
+                if (referencedSchema == null) {
+                    throw new IllegalArgumentException("Schema of nested payload is unknown");
+                }
+                return readPayload(buffer, referencedSchema);
+            default:
+                throw new IllegalArgumentException("Unknown value tag: " + tag);
+        }
+    }
+
+    private static void writeVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static void writeSignedVarint(ByteBuffer buffer, long value) {
+        writeVarint(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    private static long readSignedVarint(ByteBuffer buffer) {
+        long value = readVarint(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeBytes(ByteBuffer buffer, byte[] bytes) {
+        writeVarint(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[(int) readVarint(buffer)];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        int length = value.length();
+        int encodedLength = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                encodedLength++;
+            } else if (c < 0x800) {
+                encodedLength += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                encodedLength += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                encodedLength++;
+            } else {
+                encodedLength += 3;
+            }
+        }
+        writeVarint(buffer, encodedLength);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate, replaced as by the standard UTF-8 encoder
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = (int) readVarint(buffer);
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        } else {
+            value = StandardCharsets.UTF_8.decode(buffer.slice().limit(length)).toString();
+        }
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,102 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EClass;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builder of {@link Payload} writing values directly to the storage of the built payload, so entries are not copied
+ * from an intermediate map.
+ * <p>
+ * Without transfer object type values are stored in the sorted map of {@link PayloadImpl}, with type in the slots of
+ * {@link CompactPayload}. Nested maps and collections are converted to payloads the same way as by
+ * {@link Payload#asPayload(Map)}. Builder can be used once.
+ */
+public final class PayloadBuilder {
+
+    private TreeMap<String, Object> map;
+
+    private CompactPayload compactPayload;
+
+    private boolean built;
+
+    PayloadBuilder() {
+        this.map = new TreeMap<>();
+    }
+
+    PayloadBuilder(EClass type) {
+        this.compactPayload = new CompactPayload(type);
+    }
+
+    /**
+     * Set value of a given key.
+     *
+     * @param key   key
+     * @param value value
+     * @return this builder
+     */
+    public PayloadBuilder put(String key, Object value) {
+        if (built) {
+            throw new IllegalStateException("Payload is already built");
+        }
+        if (key == null) {
+            throw new IllegalArgumentException("Payload contains null key(s)");
+        }
+        if (map != null) {
+            map.put(key, AbstractPayload.toPayloadValue(value));
+        } else {
+            compactPayload.putConverted(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * Set all entries of a given map.
+     *
+     * @param values entries
+     * @return this builder
+     */
+    public PayloadBuilder putAll(Map<String, ?> values) {
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * Build payload.
+     *
+     * @return payload
+     */
+    public Payload build() {
+        if (built) {
+            throw new IllegalStateException("Payload is already built");
+        }
+        built = true;
+        Payload payload = map != null ? PayloadImpl.adoptConverted(map) : compactPayload;
+        map = null;
+        compactPayload = null;
+        return payload;
+    }
+}
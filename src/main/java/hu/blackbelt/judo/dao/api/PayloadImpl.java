@@ -20,21 +20,23 @@ package hu.blackbelt.judo.dao.api;
  * #L%
  */
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.json.JsonMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
-import static hu.blackbelt.judo.dao.api.Payload.asPayload;
+public class PayloadImpl extends AbstractPayload {
 
-public class PayloadImpl implements Payload {
+    Map<String, Object> internal;
 
-    public static final String TRANSIENT_PREFIX = "__$";
+    /**
+     * Nested values of an adopted map converted on first access, <code>null</code> if map is not adopted. Concurrent
+     * map so (read-only) payloads can be read by multiple threads.
+     */
+    private Map<String, Object> converted;
 
-    Map<String, Object> internal;
+    /**
+     * Map is adopted, it is neither sorted nor converted yet.
+     */
+    private volatile boolean adopted;
 
     public PayloadImpl(Map<String, Object> map) {
         for (String key : map.keySet()) {
@@ -44,18 +46,103 @@ public class PayloadImpl implements Payload {
         }
         this.internal = new TreeMap<>();
         for (String key : new TreeSet<>(map.keySet())) {
-            Object value = map.get(key);
-            if (value instanceof List) {
-                this.internal.put(key, ((List<Map<String, Object>>) value).stream().map(
-                        e -> asPayload(e)).collect(Collectors.toList()));
-            } else if (value instanceof Collection) {
-                this.internal.put(key, ((Collection<Map<String, Object>>) value).stream().map(
-                        e -> asPayload(e)).collect(Collectors.toSet()));
-            } else if (value instanceof Map) {
-                this.internal.put(key, asPayload((Map<String, Object>) value));
+            this.internal.put(key, toPayloadValue(map.get(key)));
+        }
+    }
+
+    private PayloadImpl() {
+    }
+
+    /**
+     * Create a payload adopting the given map. Nested maps and collections are converted on first access only, the
+     * map is sorted and copied when it is iterated or modified.
+     *
+     * @param map map to adopt, it must not be used by the caller anymore
+     * @return payload
+     */
+    static PayloadImpl adopt(Map<String, Object> map) {
+        if (containsNullKey(map)) {
+            throw new IllegalArgumentException("Payload contains null key(s)");
+        }
+        PayloadImpl payload = new PayloadImpl();
+        payload.internal = map;
+        payload.converted = new ConcurrentHashMap<>();
+        payload.adopted = true;
+        return payload;
+    }
+
+    /**
+     * Create a payload adopting a sorted map of which nested maps and collections are already converted to payloads.
+     *
+     * @param map map to adopt, it must not be used by the caller anymore
+     * @return payload
+     */
+    static PayloadImpl adoptConverted(TreeMap<String, Object> map) {
+        PayloadImpl payload = new PayloadImpl();
+        payload.internal = map;
+        return payload;
+    }
+
+    private static boolean containsNullKey(Map<String, Object> map) {
+        try {
+            return map.containsKey(null);
+        } catch (NullPointerException | ClassCastException e) {
+            // map does not support null keys
+            return false;
+        }
+    }
+
+    private static boolean isConvertible(Object value) {
+        return value instanceof Collection || value instanceof Map && !(value instanceof Payload);
+    }
+
+    private static Object toLazyPayloadValue(Object value) {
+        if (value instanceof List) {
+            List<Object> result = new ArrayList<>(((List<?>) value).size());
+            for (Object e : (List<?>) value) {
+                result.add(toLazyPayload(e));
+            }
+            return result;
+        } else if (value instanceof Collection) {
+            Set<Object> result = new HashSet<>();
+            for (Object e : (Collection<?>) value) {
+                result.add(toLazyPayload(e));
+            }
+            return result;
+        } else {
+            return toLazyPayload(value);
+        }
+    }
+
+    private static Object toLazyPayload(Object value) {
+        if (!(value instanceof Map) || value instanceof Payload) {
+            return value;
+        }
+        return adopt((Map<String, Object>) value);
+    }
+
+    private void materialize() {
+        if (!adopted) {
+            return;
+        }
+        synchronized (this) {
+            if (!adopted) {
+                return;
+            }
+            Map<String, Object> sorted;
+            if (internal instanceof TreeMap && ((TreeMap<String, Object>) internal).comparator() == null) {
+                sorted = internal;
             } else {
-                this.internal.put(key, value);
+                sorted = new TreeMap<>(internal);
             }
+            for (Entry<String, Object> entry : sorted.entrySet()) {
+                if (isConvertible(entry.getValue())) {
+                    // same instance as returned by concurrent get
+                    entry.setValue(converted.computeIfAbsent(entry.getKey(), k -> toLazyPayloadValue(entry.getValue())));
+                }
+            }
+            internal = sorted;
+            adopted = false;
         }
     }
 
@@ -76,129 +163,59 @@ public class PayloadImpl implements Payload {
 
     @Override
     public boolean containsValue(Object value) {
+        materialize();
         return internal.containsValue(value);
     }
 
     @Override
     public Object get(Object key) {
-        return internal.get(key);
+        boolean notConverted = adopted;
+        Object value = internal.get(key);
+        if (notConverted && isConvertible(value)) {
+            return converted.computeIfAbsent((String) key, k -> toLazyPayloadValue(value));
+        }
+        return value;
     }
 
     @Override
     public Object put(String key, Object value) {
+        materialize();
         return internal.put(key, value);
     }
 
     @Override
     public Object remove(Object key) {
+        materialize();
         return internal.remove(key);
     }
 
     @Override
     public void putAll(Map<? extends String, ?> m) {
+        materialize();
         internal.putAll(m);
     }
 
     @Override
     public void clear() {
+        materialize();
         internal.clear();
     }
 
     @Override
     public Set<String> keySet() {
+        materialize();
         return internal.keySet();
     }
 
     @Override
     public Collection<Object> values() {
+        materialize();
         return internal.values();
     }
 
     @Override
     public Set<Entry<String, Object>> entrySet() {
+        materialize();
         return internal.entrySet();
     }
-
-    public String toString() {
-        ObjectMapper mapper = JsonMapper.builder()
-                .addModule(new JavaTimeModule())
-                .build();
-
-        mapper.getSerializerProvider().setNullKeySerializer(new JacksonNullKeySerializer());
-        String jsonResult = null;
-        try {
-            jsonResult = mapper.writerWithDefaultPrettyPrinter()
-                    .writeValueAsString(internal);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
-        }
-        return jsonResult;
-    }
-
-
-    @Override
-    public boolean equals(Object obj) {
-        if (!(obj instanceof Map)) {
-            return false;
-        }
-        Map right = new TreeMap((Map) obj);
-        Map left = new TreeMap(internal);
-
-        // Remove hidden fields
-        ((Set) right.keySet().stream()
-                .filter(k -> k.toString().startsWith(TRANSIENT_PREFIX))
-                .collect(Collectors.toSet()))
-                .forEach(k -> right.remove(k));
-
-        ((Set) left.keySet().stream()
-                .filter(k -> k.toString().startsWith(TRANSIENT_PREFIX))
-                .collect(Collectors.toSet()))
-                .forEach(k -> left.remove(k));
-
-        return left.equals(right);
-    }
-
-    @Override
-    public int hashCode() {
-        return internal.hashCode();
-    }
-
-    @Override
-    public Payload getAsPayload(String name) {
-        Object value = get(name);
-        if (!containsKey(name) || value == null) {
-            return null;
-        } else if (value instanceof Payload) {
-            return (Payload) value;
-        } else {
-            throw new IllegalArgumentException("The payload element with key '" + name + "' is expected to be a payload" +
-                                               " but is a " + value.getClass().getName());
-        }
-    }
-
-    @Override
-    public Collection<Payload> getAsCollectionPayload(String name) {
-        Object value = get(name);
-        if (!containsKey(name) || value == null) {
-            return null;
-        } else if (value instanceof Collection) {
-            return (Collection<Payload>) value;
-        } else {
-            throw new IllegalArgumentException("The payload element with key '" + name + "' is expected to be a payload collection" +
-                                               " but is a " + value.getClass().getName());
-        }
-    }
-
-    @Override
-    public <T> T getAs(Class<T> type, String name) {
-        Object value = get(name);
-        if (!containsKey(name) || value == null) {
-            return null;
-        } else if (type.isAssignableFrom(value.getClass())) {
-            return (T) value;
-        } else {
-            throw new IllegalArgumentException("The payload element with key '" + name + "' is expected to be a " + type.getName() +
-                                               " but is a " + value.getClass().getName());
-        }
-    }
 }
@@ -0,0 +1,250 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * JSON reader and writer of payloads.
+ * <p>
+ * The codec is thread-safe, mapper is configured only once. Payloads are written by the streaming API of Jackson and
+ * parsed directly to payloads (without any intermediate map tree). Streams and generators passed by the caller are
+ * not closed.
+ */
+public final class PayloadJsonCodec {
+
+    private static final PayloadJsonCodec INSTANCE = new PayloadJsonCodec();
+
+    private final ObjectMapper mapper;
+
+    private final ObjectWriter writer;
+
+    private final ObjectWriter prettyWriter;
+
+    public PayloadJsonCodec() {
+        this(JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+                .build());
+    }
+
+    /**
+     * Create codec using a copy of a given mapper, the given mapper is not reconfigured.
+     *
+     * @param mapper object mapper
+     */
+    public PayloadJsonCodec(ObjectMapper mapper) {
+        this.mapper = mapper.copy();
+        this.mapper.getSerializerProvider().setNullKeySerializer(new JacksonNullKeySerializer());
+        this.writer = this.mapper.writer();
+        this.prettyWriter = this.mapper.writerWithDefaultPrettyPrinter();
+    }
+
+    /**
+     * Get shared codec instance.
+     *
+     * @return shared codec
+     */
+    public static PayloadJsonCodec getInstance() {
+        return INSTANCE;
+    }
+
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    /**
+     * Write payload to a JSON generator.
+     *
+     * @param payload   payload to write
+     * @param generator JSON generator
+     * @throws IOException if payload could not be written
+     */
+    public void write(Payload payload, JsonGenerator generator) throws IOException {
+        writer.writeValue(generator, payload);
+    }
+
+    /**
+     * Write payload to an output stream (UTF-8 encoded).
+     *
+     * @param payload payload to write
+     * @param output  output stream
+     * @throws IOException if payload could not be written
+     */
+    public void write(Payload payload, OutputStream output) throws IOException {
+        writer.writeValue(output, payload);
+    }
+
+    /**
+     * Write payload to a compact JSON string.
+     *
+     * @param payload payload to write
+     * @return JSON string
+     */
+    public String toJson(Payload payload) {
+        try {
+            return writer.writeValueAsString(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write payload to a pretty-printed JSON string.
+     *
+     * @param payload payload to write
+     * @return JSON string
+     */
+    public String toPrettyJson(Payload payload) {
+        try {
+            return prettyWriter.writeValueAsString(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Read payload from a JSON parser. Parser must be positioned before or at the start of a JSON object, it is
+     * positioned at the end of the object after reading.
+     *
+     * @param parser JSON parser
+     * @return payload or <code>null</code> if JSON value is <code>null</code>
+     * @throws IOException if JSON could not be parsed
+     */
+    public Payload read(JsonParser parser) throws IOException {
+        JsonToken token = parser.hasCurrentToken() ? parser.currentToken() : parser.nextToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        } else if (token != JsonToken.START_OBJECT) {
+            throw new IOException("JSON object is expected but " + token + " found");
+        }
+        return readObject(parser);
+    }
+
+    /**
+     * Read payloads from a JSON array.
+     *
+     * @param parser JSON parser
+     * @return list of payloads
+     * @throws IOException if JSON could not be parsed
+     */
+    public List<Payload> readList(JsonParser parser) throws IOException {
+        JsonToken token = parser.hasCurrentToken() ? parser.currentToken() : parser.nextToken();
+        if (token != JsonToken.START_ARRAY) {
+            throw new IOException("JSON array is expected but " + token + " found");
+        }
+        List<Payload> result = new ArrayList<>();
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.VALUE_NULL) {
+                result.add(null);
+            } else if (token == JsonToken.START_OBJECT) {
+                result.add(readObject(parser));
+            } else {
+                throw new IOException("JSON object is expected but " + token + " found");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Read payload from an input stream.
+     *
+     * @param input input stream
+     * @return payload
+     * @throws IOException if JSON could not be parsed
+     */
+    public Payload read(InputStream input) throws IOException {
+        try (JsonParser parser = mapper.createParser(input)) {
+            return read(parser);
+        }
+    }
+
+    /**
+     * Read payload from a JSON string.
+     *
+     * @param json JSON string
+     * @return payload
+     */
+    public Payload read(String json) {
+        try (JsonParser parser = mapper.createParser(json)) {
+            return read(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Payload readObject(JsonParser parser) throws IOException {
+        TreeMap<String, Object> map = new TreeMap<>();
+        String key;
+        while ((key = parser.nextFieldName()) != null) {
+            map.put(key, readValue(parser, parser.nextToken()));
+        }
+        if (parser.currentToken() != JsonToken.END_OBJECT) {
+            throw new IOException("Field name is expected but " + parser.currentToken() + " found");
+        }
+        return PayloadImpl.adoptConverted(map);
+    }
+
+    private List<Object> readArray(JsonParser parser) throws IOException {
+        List<Object> list = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            list.add(readValue(parser, token));
+        }
+        return list;
+    }
+
+    private Object readValue(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                return readObject(parser);
+            case START_ARRAY:
+                return readArray(parser);
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            case VALUE_EMBEDDED_OBJECT:
+                return parser.getEmbeddedObject();
+            default:
+                throw new IOException("Unexpected JSON token: " + token);
+        }
+    }
+}
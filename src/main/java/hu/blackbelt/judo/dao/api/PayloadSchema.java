@@ -0,0 +1,252 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.primitives.Primitives;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable key to slot table of a transfer object type.
+ * <p>
+ * Keys are the names of all structural features of the type in natural order, so slot order is the iteration
+ * order of payloads. Schemas are shared by all {@link CompactPayload} instances of the same type.
+ */
+public final class PayloadSchema {
+
+    private static final Map<EClass, PayloadSchema> SCHEMAS = new ConcurrentHashMap<>();
+
+    private final EClass type;
+
+    private final String[] keys;
+
+    private final EStructuralFeature[] features;
+
+    private final Map<String, Integer> slots;
+
+    private final EReference[] references;
+
+    private final PayloadSchema[] referencedSchemas;
+
+    private final Class<?>[] primitiveTypes;
+
+    private final boolean primitiveSlots;
+
+    private volatile Long fingerprint;
+
+    private PayloadSchema(EClass type) {
+        this.type = type;
+        Map<String, EStructuralFeature> featuresByName = new HashMap<>();
+        for (EStructuralFeature feature : type.getEAllStructuralFeatures()) {
+            featuresByName.putIfAbsent(feature.getName(), feature);
+        }
+        this.keys = featuresByName.keySet().toArray(new String[0]);
+        Arrays.sort(this.keys);
+        this.features = new EStructuralFeature[keys.length];
+        this.slots = new HashMap<>(keys.length * 4 / 3 + 1);
+        this.references = new EReference[keys.length];
+        this.referencedSchemas = new PayloadSchema[keys.length];
+        this.primitiveTypes = new Class<?>[keys.length];
+        boolean hasPrimitive = false;
+        for (int i = 0; i < keys.length; i++) {
+            features[i] = featuresByName.get(keys[i]);
+            slots.put(keys[i], i);
+            if (features[i] instanceof EReference) {
+                references[i] = (EReference) features[i];
+            } else if (features[i] instanceof EAttribute) {
+                primitiveTypes[i] = primitiveTypeOf((EAttribute) features[i]);
+                hasPrimitive |= primitiveTypes[i] != null;
+            }
+        }
+        this.primitiveSlots = hasPrimitive;
+    }
+
+    private static Class<?> primitiveTypeOf(EAttribute attribute) {
+        Class<?> instanceClass = attribute.getEAttributeType().getInstanceClass();
+        if (instanceClass == null || attribute.isMany()) {
+            return null;
+        }
+        Class<?> wrapper = Primitives.wrap(instanceClass);
+        return Number.class.isAssignableFrom(wrapper) && Primitives.isWrapperType(wrapper) || wrapper == Boolean.class
+                ? wrapper : null;
+    }
+
+    /**
+     * Get schema of a given transfer object type.
+     *
+     * @param type transfer object type
+     * @return shared schema of the type
+     */
+    public static PayloadSchema of(EClass type) {
+        return SCHEMAS.computeIfAbsent(type, PayloadSchema::new);
+    }
+
+    /**
+     * Drop cached schema of a given transfer object type (i.e. when model is reloaded).
+     *
+     * @param type transfer object type
+     */
+    public static void invalidate(EClass type) {
+        SCHEMAS.remove(type);
+    }
+
+    /**
+     * Drop all cached schemas.
+     */
+    public static void invalidateAll() {
+        SCHEMAS.clear();
+    }
+
+    public EClass getType() {
+        return type;
+    }
+
+    /**
+     * Number of slots.
+     *
+     * @return number of slots
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Get fingerprint of the schema: 64-bit hash of keys and their types, including schemas of referenced types
+     * (recursively). Payloads encoded with a schema can be decoded by schemas of the same fingerprint only.
+     *
+     * @return fingerprint
+     */
+    public long getFingerprint() {
+        Long result = fingerprint;
+        if (result == null) {
+            // computed lazily because referenced types can be cyclic
+            long hash = 0xcbf29ce484222325L;
+            Set<PayloadSchema> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+            Deque<PayloadSchema> queue = new ArrayDeque<>();
+            queue.add(this);
+            visited.add(this);
+            while (!queue.isEmpty()) {
+                PayloadSchema schema = queue.poll();
+                hash = hash(hash, "{");
+                for (int i = 0; i < schema.keys.length; i++) {
+                    hash = hash(hash, schema.keys[i]);
+                    hash = hash(hash, typeNameOf(schema.features[i]));
+                    PayloadSchema referencedSchema = schema.referencedSchemaAt(i);
+                    if (referencedSchema != null && visited.add(referencedSchema)) {
+                        queue.add(referencedSchema);
+                    }
+                }
+                hash = hash(hash, "}");
+            }
+            result = hash;
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    private static String typeNameOf(EStructuralFeature feature) {
+        String name;
+        if (feature instanceof EReference) {
+            name = "->" + feature.getEType().getName();
+        } else {
+            Class<?> instanceClass = feature.getEType().getInstanceClass();
+            name = instanceClass != null ? instanceClass.getName() : feature.getEType().getName();
+        }
+        return feature.isMany() ? name + "[]" : name;
+    }
+
+    private static long hash(long hash, String value) {
+        // FNV-1a over UTF-16 code units, terminated by 0
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return hash * 0x100000001b3L;
+    }
+
+    /**
+     * Get slot of a given key.
+     *
+     * @param key key
+     * @return slot index or <code>-1</code> if key is not defined by the type
+     */
+    public int slotOf(Object key) {
+        Integer slot = slots.get(key);
+        return slot != null ? slot : -1;
+    }
+
+    public String keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public EStructuralFeature featureAt(int slot) {
+        return features[slot];
+    }
+
+    /**
+     * Get schema of payloads stored in a given slot.
+     *
+     * @param slot slot index
+     * @return schema of referenced type or <code>null</code> if slot is not a reference
+     */
+    public PayloadSchema referencedSchemaAt(int slot) {
+        if (references[slot] == null) {
+            return null;
+        }
+        // resolved lazily because referenced types can be cyclic, racing threads resolve the same shared schema
+        PayloadSchema referencedSchema = referencedSchemas[slot];
+        if (referencedSchema == null) {
+            referencedSchema = of(references[slot].getEReferenceType());
+            referencedSchemas[slot] = referencedSchema;
+        }
+        return referencedSchema;
+    }
+
+    /**
+     * Get (wrapper) type of values stored as primitives in a given slot.
+     *
+     * @param slot slot index
+     * @return wrapper type of a numeric or boolean attribute or <code>null</code> if slot values are stored as objects
+     */
+    public Class<?> primitiveTypeAt(int slot) {
+        return primitiveTypes[slot];
+    }
+
+    /**
+     * Check if schema has any slot stored as primitives.
+     *
+     * @return <code>true</code> if any of the attributes is numeric or boolean
+     */
+    public boolean hasPrimitiveSlots() {
+        return primitiveSlots;
+    }
+}
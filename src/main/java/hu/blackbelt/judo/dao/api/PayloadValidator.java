@@ -23,8 +23,12 @@ package hu.blackbelt.judo.dao.api;
 import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
 
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 public interface PayloadValidator {
 
@@ -34,4 +38,116 @@ public interface PayloadValidator {
 
     Collection<ValidationResult> validateAttribute(final EAttribute attribute, final Payload instance, final Map<String, Object> validationContext);
 
+    /**
+     * Validate changed features of a payload only. Features of the transfer object type with different values in the
+     * previous and the new payload are validated by {@link #validateChanges(EClass, Payload, Set, Map, boolean)}.
+     *
+     * @param transferObjectType      transfer object type
+     * @param previous                previous version of payload (full validation is done if it is <code>null</code>)
+     * @param input                   new version of payload
+     * @param validationContext       validation context
+     * @param throwValidationException throw {@link ValidationException} if there are any errors
+     * @return validation results
+     */
+    default Collection<ValidationResult> validateChanges(final EClass transferObjectType, final Payload previous, final Payload input,
+                                                         final Map<String, Object> validationContext, final boolean throwValidationException) {
+        if (previous == null) {
+            return validatePayload(transferObjectType, input, validationContext, throwValidationException);
+        }
+        Set<String> changedKeys = new HashSet<>();
+        for (EStructuralFeature feature : transferObjectType.getEAllStructuralFeatures()) {
+            if (!Objects.equals(previous.get(feature.getName()), input.get(feature.getName()))) {
+                changedKeys.add(feature.getName());
+            }
+        }
+        return validateChanges(transferObjectType, input, changedKeys, validationContext, throwValidationException);
+    }
+
+    /**
+     * Validate given features of a payload only. Default implementation returns the results of
+     * {@link #validateAttribute(EAttribute, Payload, Map)} and {@link #validateReference(EReference, Payload, Map, boolean)}
+     * (including embedded instances) of the given features, implementations may validate features differently.
+     *
+     * @param transferObjectType      transfer object type
+     * @param input                   payload
+     * @param changedKeys             names of changed features
+     * @param validationContext       validation context
+     * @param throwValidationException throw {@link ValidationException} if there are any errors
+     * @return validation results
+     */
+    default Collection<ValidationResult> validateChanges(final EClass transferObjectType, final Payload input, final Set<String> changedKeys,
+                                                         final Map<String, Object> validationContext, final boolean throwValidationException) {
+        List<ValidationResult> results = new ArrayList<>();
+        for (EAttribute attribute : transferObjectType.getEAllAttributes()) {
+            if (changedKeys.contains(attribute.getName())) {
+                results.addAll(validateAttribute(attribute, input, validationContext));
+            }
+        }
+        for (EReference reference : transferObjectType.getEAllReferences()) {
+            if (changedKeys.contains(reference.getName())) {
+                results.addAll(validateReference(reference, input, validationContext, false));
+            }
+        }
+        if (throwValidationException && results.stream().anyMatch(r -> r.getLevel() == ValidationResult.Level.ERROR)) {
+            throw new ValidationException("Invalid " + transferObjectType.getName() + " payload", results);
+        }
+        return results;
+    }
+
+    /**
+     * Validate a collection of payloads in parallel. Input is split into chunks validated by a given executor, results
+     * are tagged with the index of the validated payload ({@link ValidationResult#getRow()}) and passed to a sink.
+     * Sink calls are serialized but they are made on executor threads, order of rows is not guaranteed. Validation
+     * stops when the maximum number of errors is reached.
+     * <p>
+     * Validation context is shared by the parallel validations so it must not be modified by the validator.
+     *
+     * @param transferObjectType transfer object type of payloads
+     * @param inputs             payloads to validate
+     * @param validationContext  validation context
+     * @param maxErrors          maximum number of errors, validation stops after the row reaching it (use
+     *                           {@link Integer#MAX_VALUE} to validate all payloads)
+     * @param executor           executor running the validation of chunks
+     * @param sink               consumer of validation results
+     * @return number of errors passed to the sink
+     */
+    default long validatePayloads(final EClass transferObjectType, final Iterable<Payload> inputs, final Map<String, Object> validationContext,
+                                  final int maxErrors, final Executor executor, final Consumer<ValidationResult> sink) {
+        return new BulkPayloadValidation(this, transferObjectType, validationContext, maxErrors, sink).run(inputs, executor);
+    }
+
+    /**
+     * Validate a collection of payloads in parallel using the common {@link ForkJoinPool}.
+     *
+     * @param transferObjectType transfer object type of payloads
+     * @param inputs             payloads to validate
+     * @param validationContext  validation context
+     * @param maxErrors          maximum number of errors, validation stops after the row reaching it (use
+     *                           {@link Integer#MAX_VALUE} to validate all payloads)
+     * @param sink               consumer of validation results
+     * @return number of errors passed to the sink
+     */
+    default long validatePayloads(final EClass transferObjectType, final Iterable<Payload> inputs, final Map<String, Object> validationContext,
+                                  final int maxErrors, final Consumer<ValidationResult> sink) {
+        return validatePayloads(transferObjectType, inputs, validationContext, maxErrors, ForkJoinPool.commonPool(), sink);
+    }
+
+    /**
+     * Validate a collection of payloads in parallel using the common {@link ForkJoinPool}, results are collected.
+     *
+     * @param transferObjectType transfer object type of payloads
+     * @param inputs             payloads to validate
+     * @param validationContext  validation context
+     * @param maxErrors          maximum number of errors, validation stops after the row reaching it (use
+     *                           {@link Integer#MAX_VALUE} to validate all payloads)
+     * @return validation results ordered by row
+     */
+    default List<ValidationResult> validatePayloads(final EClass transferObjectType, final Iterable<Payload> inputs, final Map<String, Object> validationContext,
+                                                    final int maxErrors) {
+        List<ValidationResult> results = new ArrayList<>();
+        validatePayloads(transferObjectType, inputs, validationContext, maxErrors, results::add);
+        results.sort(Comparator.comparing(ValidationResult::getRow));
+        return results;
+    }
+
 }
@@ -0,0 +1,103 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EClass;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Reusable query of a given shape returned by {@link DAO#prepare(EClass, DAO.QueryCustomizer)}. Filter, ordering
+ * and mask are parsed and planned once, only parameters and seek are bound per execution.
+ * <p>
+ * Prepared queries are thread-safe.
+ *
+ * @param <ID> type of identifiers
+ */
+public interface PreparedQuery<ID> {
+
+    /**
+     * Get mapped transfer object type of the query.
+     *
+     * @return mapped transfer object type
+     */
+    EClass getClazz();
+
+    /**
+     * Get shape of the query.
+     *
+     * @return query shape
+     */
+    QueryShape getShape();
+
+    /**
+     * Get query customizer of the query with given parameters and seek bound.
+     *
+     * @param parameters query parameters, <code>null</code> keeps the parameters of the prepared query customizer
+     * @param seek       seek, <code>null</code> keeps the seek of the prepared query customizer
+     * @return query customizer
+     */
+    DAO.QueryCustomizer<ID> bind(Map<String, Object> parameters, DAO.Seek seek);
+
+    /**
+     * Execute the query.
+     *
+     * @param parameters query parameters
+     * @param seek       seek
+     * @return list of instances
+     */
+    List<Payload> search(Map<String, Object> parameters, DAO.Seek seek);
+
+    /**
+     * Execute the query without seek.
+     *
+     * @param parameters query parameters
+     * @return list of instances
+     */
+    default List<Payload> search(Map<String, Object> parameters) {
+        return search(parameters, null);
+    }
+
+    /**
+     * Count result of the query.
+     *
+     * @param parameters query parameters
+     * @return number of instances
+     */
+    long count(Map<String, Object> parameters);
+
+    /**
+     * Execute the query, result is returned as a stream fetching rows lazily.
+     * <p>
+     * Stream holds backend resources until it is closed, so it must be closed (i.e. by try-with-resources).
+     * Default implementation fetches pages using {@link #search(Map, DAO.Seek)}.
+     *
+     * @param parameters query parameters
+     * @param fetchSize  number of rows fetched at once
+     * @return stream of instances
+     */
+    default Stream<Payload> stream(Map<String, Object> parameters, int fetchSize) {
+        return new PagingPayloadCursor<>(bind(parameters, null), fetchSize,
+                page -> search(page.getParameters(), page.getSeek())).stream();
+    }
+}
@@ -0,0 +1,182 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Canonical binary form and fingerprint of {@link DAO.QueryCustomizer}.
+ * <p>
+ * Values are written with type tags. Map entries are written in key order (transient entries are skipped like by
+ * equality, see {@link AbstractPayload#isTransientKey(Object)}), elements of non-list collections are
+ * written in the order of their binary form, so the result does not depend on iteration order. Model elements are
+ * written by qualified name (namespace URI of package, name of type and feature).
+ */
+final class QueryFingerprint {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+    private final DataOutputStream out = new DataOutputStream(bytes);
+
+    private QueryFingerprint() {
+    }
+
+    static String of(DAO.QueryCustomizer<?> queryCustomizer) {
+        QueryFingerprint fingerprint = new QueryFingerprint();
+        try {
+            fingerprint.write(queryCustomizer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(fingerprint.bytes.toByteArray());
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+                hex[2 * i + 1] = HEX[digest[i] & 0xf];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private void write(DAO.QueryCustomizer<?> queryCustomizer) throws IOException {
+        writeValue(queryCustomizer.getFilter());
+        List<DAO.OrderBy> orderByList = queryCustomizer.getOrderByList();
+        out.writeInt(orderByList != null ? orderByList.size() : -1);
+        if (orderByList != null) {
+            for (DAO.OrderBy orderBy : orderByList) {
+                writeValue(orderBy.getAttribute());
+                out.writeBoolean(orderBy.isDescending());
+            }
+        }
+        DAO.Seek seek = queryCustomizer.getSeek();
+        out.writeBoolean(seek != null);
+        if (seek != null) {
+            out.writeInt(seek.getLimit());
+            out.writeInt(seek.getOffset());
+            out.writeBoolean(seek.isReverse());
+            writeValue(seek.getLastItem());
+        }
+        out.writeBoolean(queryCustomizer.isWithoutFeatures());
+        writeValue(queryCustomizer.getMask());
+        writeValue(queryCustomizer.getParameters());
+        writeValue(queryCustomizer.getInstanceIds());
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            out.writeByte('N');
+        } else if (value instanceof String) {
+            out.writeByte('S');
+            writeString((String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte('Z');
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Map<String, Object> sorted = new TreeMap<>();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!AbstractPayload.isTransientKey(entry.getKey())) {
+                    sorted.put(String.valueOf(entry.getKey()), entry.getValue());
+                }
+            }
+            out.writeByte('M');
+            out.writeInt(sorted.size());
+            for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+                writeString(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte('L');
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writeValue(element);
+            }
+        } else if (value instanceof Collection) {
+            List<byte[]> elements = new ArrayList<>();
+            for (Object element : (Collection<?>) value) {
+                QueryFingerprint elementFingerprint = new QueryFingerprint();
+                elementFingerprint.writeValue(element);
+                elements.add(elementFingerprint.bytes.toByteArray());
+            }
+            elements.sort(Arrays::compareUnsigned);
+            out.writeByte('C');
+            out.writeInt(elements.size());
+            for (byte[] element : elements) {
+                out.write(element);
+            }
+        } else if (value instanceof byte[]) {
+            byte[] array = (byte[]) value;
+            out.writeByte('B');
+            out.writeInt(array.length);
+            out.write(array);
+        } else if (value instanceof Enum) {
+            out.writeByte('E');
+            writeString(((Enum<?>) value).getDeclaringClass().getName());
+            writeString(((Enum<?>) value).name());
+        } else if (value instanceof EStructuralFeature) {
+            EStructuralFeature feature = (EStructuralFeature) value;
+            out.writeByte('F');
+            writeClassifier(feature.getEContainingClass());
+            writeString(feature.getName());
+        } else if (value instanceof EClassifier) {
+            out.writeByte('T');
+            writeClassifier((EClassifier) value);
+        } else {
+            out.writeByte('O');
+            writeString(value.getClass().getName());
+            writeString(value.toString());
+        }
+    }
+
+    private void writeClassifier(EClassifier classifier) throws IOException {
+        EPackage ePackage = classifier != null ? classifier.getEPackage() : null;
+        writeValue(ePackage != null ? ePackage.getNsURI() : null);
+        writeValue(classifier != null ? classifier.getName() : null);
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+}
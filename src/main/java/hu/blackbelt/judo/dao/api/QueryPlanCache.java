@@ -0,0 +1,120 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of query plans keyed by {@link QueryShape}, used by DAO implementations to prepare queries
+ * (see {@link DAO#prepare(org.eclipse.emf.ecore.EClass, DAO.QueryCustomizer)}). Least recently used plans are
+ * evicted when the maximum size is reached. Hit and miss statistics are recorded.
+ * <p>
+ * Plan of a shape is computed once, concurrent requests of the same shape wait for the first one.
+ *
+ * @param <P> type of query plans
+ */
+public final class QueryPlanCache<P> {
+
+    private final Cache<QueryShape, P> plans;
+
+    /**
+     * Create a plan cache.
+     *
+     * @param maximumSize maximum number of cached plans
+     */
+    public QueryPlanCache(long maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        plans = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get plan of a query shape, plan is created by the given planner if it is not cached yet.
+     *
+     * @param shape   query shape
+     * @param planner function creating plan of a query shape
+     * @return query plan
+     */
+    public P getPlan(QueryShape shape, Function<? super QueryShape, ? extends P> planner) {
+        try {
+            return plans.get(shape, () -> planner.apply(shape));
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException("Unable to plan query: " + shape, e.getCause());
+        }
+    }
+
+    /**
+     * Get cached plan of a query shape.
+     *
+     * @param shape query shape
+     * @return query plan or <code>null</code> if it is not cached
+     */
+    public P getIfPresent(QueryShape shape) {
+        return plans.getIfPresent(shape);
+    }
+
+    /**
+     * Remove plan of a query shape.
+     *
+     * @param shape query shape
+     */
+    public void invalidate(QueryShape shape) {
+        plans.invalidate(shape);
+    }
+
+    /**
+     * Remove all plans (i.e. when model is changed).
+     */
+    public void invalidateAll() {
+        plans.invalidateAll();
+    }
+
+    /**
+     * Get number of cached plans.
+     *
+     * @return number of plans
+     */
+    public long size() {
+        return plans.size();
+    }
+
+    /**
+     * Get hit and miss statistics of the cache.
+     *
+     * @return statistics
+     */
+    public CacheStats getStats() {
+        return plans.stats();
+    }
+}
@@ -0,0 +1,111 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.eclipse.emf.ecore.EClass;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Shape of a query: the parts of a {@link DAO.QueryCustomizer} that determine the query plan (type, filter,
+ * ordering, mask). Parameters, seek and instance IDs are not part of the shape (only the presence of instance IDs
+ * is), so queries differing only in bound values have equal shapes.
+ * <p>
+ * Shapes are immutable, hash code is computed once. They are used as keys of {@link QueryPlanCache}.
+ */
+@Getter
+public final class QueryShape {
+
+    private final EClass clazz;
+
+    private final String filter;
+
+    private final List<DAO.OrderBy> orderBy;
+
+    private final boolean withoutFeatures;
+
+    private final Map<String, Object> mask;
+
+    private final boolean filteredByInstanceIds;
+
+    private final int hash;
+
+    private QueryShape(EClass clazz, String filter, List<DAO.OrderBy> orderBy,
+                       boolean withoutFeatures, Map<String, Object> mask, boolean filteredByInstanceIds) {
+        this.clazz = clazz;
+        this.filter = filter;
+        this.orderBy = orderBy;
+        this.withoutFeatures = withoutFeatures;
+        this.mask = mask;
+        this.filteredByInstanceIds = filteredByInstanceIds;
+        this.hash = Objects.hash(clazz, filter, orderBy, withoutFeatures, mask, filteredByInstanceIds);
+    }
+
+    /**
+     * Get shape of a query.
+     *
+     * @param clazz           mapped transfer object type
+     * @param queryCustomizer query customizer, it can be <code>null</code>
+     * @return query shape
+     */
+    public static QueryShape of(@NonNull EClass clazz, DAO.QueryCustomizer<?> queryCustomizer) {
+        if (queryCustomizer == null) {
+            return new QueryShape(clazz, null, Collections.emptyList(), false, null, false);
+        }
+        List<DAO.OrderBy> orderBy = queryCustomizer.getOrderByList();
+        return new QueryShape(clazz, queryCustomizer.getFilter(), orderBy != null ? orderBy : Collections.emptyList(),
+                queryCustomizer.isWithoutFeatures(), queryCustomizer.getMask(), queryCustomizer.getInstanceIds() != null);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (!(o instanceof QueryShape)) {
+            return false;
+        }
+        QueryShape other = (QueryShape) o;
+        return hash == other.hash
+                && withoutFeatures == other.withoutFeatures
+                && filteredByInstanceIds == other.filteredByInstanceIds
+                && clazz.equals(other.clazz)
+                && Objects.equals(filter, other.filter)
+                && orderBy.equals(other.orderBy)
+                && Objects.equals(mask, other.mask);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryShape{clazz=" + clazz.getName() + ", filter=" + filter + ", orderBy=" + orderBy
+                + ", withoutFeatures=" + withoutFeatures + ", mask=" + mask
+                + ", filteredByInstanceIds=" + filteredByInstanceIds + "}";
+    }
+}
@@ -0,0 +1,192 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import lombok.NonNull;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.ENamedElement;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link DAO} decorator caching static data: {@link #getStaticFeatures(EClass)}, {@link #getStaticData(EAttribute)},
+ * {@link #getParameterizedStaticData(EAttribute, Map)} and {@link #getDefaultsOf(EClass)}. Parameterized static
+ * data is cached by attribute and parameters.
+ * <p>
+ * Each entry is refreshed asynchronously on the given executor when it is accessed after the refresh interval,
+ * callers get the previous value until the new one is loaded (and if refresh fails). Entries not accessed for the
+ * idle timeout are evicted. Concurrent requests of a missing entry are loaded once.
+ * <p>
+ * Static data and features are returned frozen (see {@link Payload#freeze()}), defaults are returned as mutable
+ * copies because they are starting points of new instances.
+ *
+ * @param <ID> type of identifiers
+ */
+public class StaticDataCachingDAO<ID> extends ForwardingDAO<ID> {
+
+    private final LoadingCache<StaticKey, Optional<Payload>> cache;
+
+    /**
+     * Create a static data caching DAO.
+     *
+     * @param delegate        DAO to cache
+     * @param refreshAfter    time after entries are refreshed
+     * @param expireAfterIdle time after entries not accessed are evicted
+     * @param maximumSize     maximum number of cached entries
+     * @param refreshExecutor executor of asynchronous refreshes
+     */
+    public StaticDataCachingDAO(@NonNull DAO<ID> delegate, @NonNull Duration refreshAfter,
+                                @NonNull Duration expireAfterIdle, long maximumSize, @NonNull Executor refreshExecutor) {
+        this(delegate, refreshAfter, expireAfterIdle, maximumSize, refreshExecutor, Ticker.systemTicker());
+    }
+
+    StaticDataCachingDAO(DAO<ID> delegate, Duration refreshAfter, Duration expireAfterIdle, long maximumSize,
+                         Executor refreshExecutor, Ticker ticker) {
+        super(delegate);
+        cache = CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterAccess(expireAfterIdle)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build(CacheLoader.asyncReloading(CacheLoader.from(this::load), refreshExecutor));
+    }
+
+    private Optional<Payload> load(StaticKey key) {
+        Payload result;
+        switch (key.kind) {
+            case STATIC_FEATURES:
+                result = getDelegate().getStaticFeatures((EClass) key.element);
+                break;
+            case STATIC_DATA:
+                result = getDelegate().getStaticData((EAttribute) key.element);
+                break;
+            case PARAMETERIZED_STATIC_DATA:
+                result = getDelegate().getParameterizedStaticData((EAttribute) key.element, key.parameters);
+                break;
+            case DEFAULTS:
+                result = getDelegate().getDefaultsOf((EClass) key.element);
+                break;
+            default:
+                throw new IllegalStateException("Unsupported kind: " + key.kind);
+        }
+        return Optional.ofNullable(result).map(Payload::freeze);
+    }
+
+    private Payload get(StaticKey key) {
+        try {
+            return cache.get(key).orElse(null);
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Get hit and miss statistics of the cache.
+     *
+     * @return statistics
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Evict all entries (i.e. when static data is changed).
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public Payload getStaticFeatures(EClass clazz) {
+        return get(new StaticKey(Kind.STATIC_FEATURES, clazz, null));
+    }
+
+    @Override
+    public Payload getStaticData(EAttribute attribute) {
+        return get(new StaticKey(Kind.STATIC_DATA, attribute, null));
+    }
+
+    @Override
+    public Payload getParameterizedStaticData(EAttribute attribute, Map<String, Object> parameters) {
+        return get(new StaticKey(Kind.PARAMETERIZED_STATIC_DATA, attribute, FrozenPayload.of(parameters)));
+    }
+
+    @Override
+    public Payload getDefaultsOf(EClass clazz) {
+        Payload defaults = get(new StaticKey(Kind.DEFAULTS, clazz, null));
+        return defaults != null ? Payload.asPayload(defaults) : null;
+    }
+
+    private enum Kind {
+        STATIC_FEATURES, STATIC_DATA, PARAMETERIZED_STATIC_DATA, DEFAULTS
+    }
+
+    private static final class StaticKey {
+
+        private final Kind kind;
+
+        private final ENamedElement element;
+
+        private final FrozenPayload parameters;
+
+        private final int hash;
+
+        private StaticKey(Kind kind, ENamedElement element, FrozenPayload parameters) {
+            this.kind = kind;
+            this.element = element;
+            this.parameters = parameters;
+            this.hash = Objects.hash(kind, element, parameters);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            } else if (!(o instanceof StaticKey)) {
+                return false;
+            }
+            StaticKey other = (StaticKey) o;
+            return hash == other.hash && kind == other.kind && element.equals(other.element)
+                    && Objects.equals(parameters, other.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
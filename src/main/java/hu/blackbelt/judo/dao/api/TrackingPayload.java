@@ -0,0 +1,416 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import java.util.*;
+
+/**
+ * {@link Payload} decorator recording which keys are changed since the payload was loaded.
+ * <p>
+ * Keys put or removed through the tracking payload are recorded directly. Nested payloads are handed out wrapped by
+ * tracking payloads of their own, so they are never copied. Nested collections can be changed in place too, so they
+ * are snapshot (frozen, see {@link FrozenPayload}) when they are first handed out (by {@link #get(Object)} or entry
+ * values) and compared to the snapshot when changes are requested. Equality, hash code and string representation
+ * read the tracked payload directly, they do not snapshot anything.
+ * <p>
+ * {@link #getDelta()} returns changed keys only that can be passed to
+ * {@link DAO#updateDelta(org.eclipse.emf.ecore.EClass, Object, Payload, DAO.QueryCustomizer)}. Removed keys are
+ * listed by {@link #REMOVED_KEYS} (keys set to <code>null</code> are included with <code>null</code> value). Changed
+ * nested payloads are represented by their own delta, changed collections by their current content. The identifier
+ * key (if given) is kept in the delta of nested payloads so embedded instances can be matched.
+ */
+public final class TrackingPayload extends AbstractPayload {
+
+    /**
+     * Transient key of delta listing removed keys.
+     */
+    public static final String REMOVED_KEYS = TRANSIENT_PREFIX + "removed";
+
+    private final Payload delegate;
+
+    private final String identifierKey;
+
+    private final boolean nested;
+
+    private final Set<String> changedKeys = new TreeSet<>();
+
+    private Map<String, Object> snapshots;
+
+    private Map<String, TrackingPayload> children;
+
+    private TrackingPayload(Payload delegate, String identifierKey, boolean nested) {
+        this.delegate = delegate;
+        this.identifierKey = identifierKey;
+        this.nested = nested;
+    }
+
+    /**
+     * Start tracking changes of a given payload.
+     *
+     * @param payload payload to track, it must not be changed directly anymore
+     * @return tracking payload
+     */
+    public static TrackingPayload track(Payload payload) {
+        return track(payload, null);
+    }
+
+    /**
+     * Start tracking changes of a given payload.
+     *
+     * @param payload       payload to track, it must not be changed directly anymore
+     * @param identifierKey key of identifier kept in deltas of nested payloads (i.e. {@link IdentifierProvider#getName()})
+     * @return tracking payload
+     */
+    public static TrackingPayload track(Payload payload, String identifierKey) {
+        if (payload instanceof TrackingPayload) {
+            return (TrackingPayload) payload;
+        }
+        return new TrackingPayload(Objects.requireNonNull(payload, "Payload is required"), identifierKey, false);
+    }
+
+    /**
+     * Get tracked payload.
+     *
+     * @return tracked payload including all changes
+     */
+    public Payload getPayload() {
+        return delegate;
+    }
+
+    /**
+     * Get keys changed since the payload was loaded (or changes were cleared), including keys of nested payloads and
+     * collections changed in place.
+     *
+     * @return sorted set of changed keys
+     */
+    public SortedSet<String> getChangedKeys() {
+        SortedSet<String> keys = new TreeSet<>(changedKeys);
+        if (snapshots != null) {
+            for (Entry<String, Object> snapshot : snapshots.entrySet()) {
+                if (!Objects.equals(snapshot.getValue(), delegate.get(snapshot.getKey()))) {
+                    keys.add(snapshot.getKey());
+                }
+            }
+        }
+        if (children != null) {
+            for (Entry<String, TrackingPayload> child : children.entrySet()) {
+                if (child.getValue().isDirty()) {
+                    keys.add(child.getKey());
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Check if payload is changed.
+     *
+     * @return <code>true</code> if any key is changed
+     */
+    public boolean isDirty() {
+        return !getChangedKeys().isEmpty();
+    }
+
+    /**
+     * Get changes since the payload was loaded (or changes were cleared).
+     *
+     * @return payload containing changed keys only
+     */
+    public Payload getDelta() {
+        Payload delta = Payload.empty();
+        Set<String> removedKeys = new TreeSet<>();
+        for (String key : getChangedKeys()) {
+            TrackingPayload child = children != null ? children.get(key) : null;
+            Object snapshot = snapshots != null ? snapshots.get(key) : null;
+            Object value = delegate.get(key);
+            if (changedKeys.contains(key)) {
+                if (delegate.containsKey(key)) {
+                    delta.put(key, value);
+                } else {
+                    removedKeys.add(key);
+                }
+            } else if (child != null) {
+                delta.put(key, child.getDelta());
+            } else if (snapshot instanceof Map && value instanceof Map) {
+                delta.put(key, diff((Map<String, Object>) snapshot, (Map<String, Object>) value));
+            } else {
+                delta.put(key, value);
+            }
+        }
+        if (!removedKeys.isEmpty()) {
+            delta.put(REMOVED_KEYS, removedKeys);
+        }
+        if (nested && identifierKey != null && delegate.containsKey(identifierKey)) {
+            delta.put(identifierKey, delegate.get(identifierKey));
+        }
+        return delta;
+    }
+
+    private Payload diff(Map<String, Object> before, Map<String, Object> after) {
+        Payload delta = Payload.empty();
+        for (Entry<String, Object> entry : after.entrySet()) {
+            String key = entry.getKey();
+            Object previous = before.get(key);
+            Object value = entry.getValue();
+            if (previous instanceof Map && value instanceof Map && before.containsKey(key)) {
+                if (!previous.equals(value)) {
+                    delta.put(key, diff((Map<String, Object>) previous, (Map<String, Object>) value));
+                }
+            } else if (!before.containsKey(key) || !Objects.equals(previous, value)) {
+                delta.put(key, value);
+            }
+        }
+        Set<String> removedKeys = new TreeSet<>();
+        for (String key : before.keySet()) {
+            if (!after.containsKey(key)) {
+                removedKeys.add(key);
+            }
+        }
+        if (!removedKeys.isEmpty()) {
+            delta.put(REMOVED_KEYS, removedKeys);
+        }
+        if (identifierKey != null && after.containsKey(identifierKey)) {
+            delta.put(identifierKey, after.get(identifierKey));
+        }
+        return delta;
+    }
+
+    /**
+     * Forget recorded changes, current state of payload is considered as loaded.
+     */
+    public void clearChanges() {
+        changedKeys.clear();
+        snapshots = null;
+        if (children != null) {
+            for (TrackingPayload child : children.values()) {
+                child.clearChanges();
+            }
+        }
+    }
+
+    /**
+     * Apply a delta returned by {@link #getDelta()} to a given payload. Keys listed by {@link #REMOVED_KEYS} are
+     * removed, nested deltas are applied to nested payloads, other values are replaced.
+     *
+     * @param target payload to change
+     * @param delta  changes
+     * @return target payload
+     */
+    public static Payload applyDelta(Payload target, Map<String, Object> delta) {
+        for (Entry<String, Object> entry : delta.entrySet()) {
+            if (REMOVED_KEYS.equals(entry.getKey())) {
+                continue;
+            }
+            Object current = target.get(entry.getKey());
+            if (current instanceof Payload && entry.getValue() instanceof Map) {
+                applyDelta((Payload) current, (Map<String, Object>) entry.getValue());
+            } else {
+                target.put(entry.getKey(), entry.getValue());
+            }
+        }
+        Object removedKeys = delta.get(REMOVED_KEYS);
+        if (removedKeys instanceof Collection) {
+            for (Object key : (Collection<?>) removedKeys) {
+                target.remove(key);
+            }
+        }
+        return target;
+    }
+
+    private Object track(String key, Object value) {
+        if (changedKeys.contains(key)) {
+            // value is replaced, it is included in delta as is
+            return value;
+        }
+        if (value instanceof Payload) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            TrackingPayload child = children.get(key);
+            if (child == null || child.delegate != value) {
+                child = value instanceof TrackingPayload ? (TrackingPayload) value
+                        : new TrackingPayload((Payload) value, identifierKey, true);
+                children.put(key, child);
+            }
+            return child;
+        } else if (value instanceof Map || value instanceof Collection) {
+            if (snapshots == null) {
+                snapshots = new HashMap<>();
+            }
+            if (!snapshots.containsKey(key)) {
+                snapshots.put(key, FrozenPayload.freezeValue(value));
+            }
+        }
+        return value;
+    }
+
+    private void changed(String key) {
+        changedKeys.add(key);
+        if (snapshots != null) {
+            snapshots.remove(key);
+        }
+        if (children != null) {
+            children.remove(key);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj == this || delegate.equals(obj instanceof TrackingPayload ? ((TrackingPayload) obj).delegate : obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return delegate.containsValue(value);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return delegate.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = delegate.get(key);
+        return key instanceof String ? track((String) key, value) : value;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        Object previous = delegate.put(key, value);
+        changed(key);
+        return previous;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (!delegate.containsKey(key)) {
+            return null;
+        }
+        Object previous = delegate.remove(key);
+        changed((String) key);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        for (String key : delegate.keySet()) {
+            changed(key);
+        }
+        delegate.clear();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                Iterator<Entry<String, Object>> iterator = delegate.entrySet().iterator();
+                return new Iterator<Entry<String, Object>>() {
+                    private Entry<String, Object> last;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        last = iterator.next();
+                        return new TrackingEntry(last);
+                    }
+
+                    @Override
+                    public void remove() {
+                        iterator.remove();
+                        changed(last.getKey());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return delegate.size();
+            }
+        };
+    }
+
+    private final class TrackingEntry implements Entry<String, Object> {
+
+        private final Entry<String, Object> entry;
+
+        private TrackingEntry(Entry<String, Object> entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public String getKey() {
+            return entry.getKey();
+        }
+
+        @Override
+        public Object getValue() {
+            return track(entry.getKey(), entry.getValue());
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object previous = entry.setValue(value);
+            changed(entry.getKey());
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return entry.equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            return entry.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return entry.toString();
+        }
+    }
+}
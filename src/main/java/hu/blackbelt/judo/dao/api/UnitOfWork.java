@@ -0,0 +1,137 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Unit of work returned by {@link DAO#beginBatch(int)}, buffering mutating operations and executing them in
+ * batches when it is flushed (or closed).
+ * <p>
+ * Operations are executed in the order of registration, consecutive operations of the same kind are grouped by
+ * mapped transfer object type (and query customizer) or by reference. The only reordering is that a create joins
+ * the group of a previous create of the same type if only creates of unrelated types are registered between them.
+ * Groups are executed by bulk operations (i.e. {@link DAO#createAll(EClass, Iterable, DAO.QueryCustomizer)},
+ * {@link DAO#addReferencesAll(EReference, java.util.Map)}) in chunks of batch size. Results (i.e. identifiers of
+ * created instances) are available when the unit of work is flushed. If an operation fails, the results of the failed operation and of all following operations are
+ * completed exceptionally and the failure is thrown by {@link #flush()}.
+ * <p>
+ * Units of work are not thread-safe.
+ *
+ * @param <ID> type of identifiers
+ */
+public interface UnitOfWork<ID> extends AutoCloseable {
+
+    /**
+     * Default number of instances in a bulk operation.
+     */
+    int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * Register creation of an instance.
+     *
+     * @param clazz           mapped transfer object type
+     * @param payload         instance to create
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return created instance, completed when flushed
+     */
+    CompletableFuture<Payload> create(EClass clazz, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Register update of an instance.
+     *
+     * @param clazz           mapped transfer object type
+     * @param payload         instance to update
+     * @param queryCustomizer query customizer (i.e. filtering, ordering, seeking)
+     * @return updated instance, completed when flushed
+     */
+    CompletableFuture<Payload> update(EClass clazz, Payload payload, DAO.QueryCustomizer<ID> queryCustomizer);
+
+    /**
+     * Register deletion of an instance.
+     *
+     * @param clazz mapped transfer object type
+     * @param id    instance ID to delete
+     * @return completed when flushed
+     */
+    CompletableFuture<Void> delete(EClass clazz, ID id);
+
+    /**
+     * Register setting reference of an instance.
+     *
+     * @param reference     transfer object relation
+     * @param id            mapped transfer object (in which the reference to set is)
+     * @param referencedIds referenced element IDs (to set), collection must contain only one instance if reference is single.
+     * @return completed when flushed
+     */
+    CompletableFuture<Void> setReference(EReference reference, ID id, Collection<ID> referencedIds);
+
+    /**
+     * Register unsetting reference of an instance.
+     *
+     * @param reference transfer object relation, it must not be many
+     * @param id        mapped transfer object (in which the reference to unset is)
+     * @return completed when flushed
+     */
+    CompletableFuture<Void> unsetReference(EReference reference, ID id);
+
+    /**
+     * Register adding references to an instance.
+     *
+     * @param reference     transfer object relation, it must be many
+     * @param id            mapped transfer object (in which the reference to add is)
+     * @param referencedIds referenced element IDs (to add)
+     * @return completed when flushed
+     */
+    CompletableFuture<Void> addReferences(EReference reference, ID id, Collection<ID> referencedIds);
+
+    /**
+     * Register removing references from an instance.
+     *
+     * @param reference     transfer object relation, it must be many
+     * @param id            mapped transfer object (in which the reference to remove is)
+     * @param referencedIds referenced element IDs (to remove)
+     * @return completed when flushed
+     */
+    CompletableFuture<Void> removeReferences(EReference reference, ID id, Collection<ID> referencedIds);
+
+    /**
+     * Get number of operations waiting for flush.
+     *
+     * @return number of pending operations
+     */
+    int size();
+
+    /**
+     * Execute pending operations.
+     */
+    void flush();
+
+    /**
+     * Execute pending operations and close unit of work, no more operations can be registered.
+     */
+    @Override
+    void close();
+}
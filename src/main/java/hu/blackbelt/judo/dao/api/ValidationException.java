@@ -0,0 +1,40 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Exception thrown by {@link PayloadValidator} when a payload is invalid and exception is requested.
+ */
+public class ValidationException extends RuntimeException {
+
+    @Getter
+    private final Collection<ValidationResult> validationResults;
+
+    public ValidationException(String message, Collection<ValidationResult> validationResults) {
+        super(message);
+        this.validationResults = Collections.unmodifiableCollection(validationResults);
+    }
+}
@@ -0,0 +1,363 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import lombok.Getter;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.ExtendedMetaData;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Validation plan of a transfer object type compiled once from the model: flat arrays of attribute checks
+ * (required, length, pattern, precision, scale, range) and reference checks (required, cardinality). Constraints
+ * of attributes are the facets of their data types (see {@link ExtendedMetaData}).
+ * <p>
+ * Plans are immutable and thread-safe, they are created and cached by {@link ValidationPlanRegistry}.
+ */
+public final class ValidationPlan {
+
+    public static final String MISSING_REQUIRED_ATTRIBUTE = "MISSING_REQUIRED_ATTRIBUTE";
+    public static final String TOO_SHORT_STRING = "TOO_SHORT_STRING";
+    public static final String TOO_LONG_STRING = "TOO_LONG_STRING";
+    public static final String PATTERN_VALIDATION_FAILED = "PATTERN_VALIDATION_FAILED";
+    public static final String PRECISION_VALIDATION_FAILED = "PRECISION_VALIDATION_FAILED";
+    public static final String SCALE_VALIDATION_FAILED = "SCALE_VALIDATION_FAILED";
+    public static final String RANGE_VALIDATION_FAILED = "RANGE_VALIDATION_FAILED";
+    public static final String MISSING_REQUIRED_RELATION = "MISSING_REQUIRED_RELATION";
+    public static final String TOO_FEW_ITEMS = "TOO_FEW_ITEMS";
+    public static final String TOO_MANY_ITEMS = "TOO_MANY_ITEMS";
+
+    @Getter
+    private final EClass transferObjectType;
+
+    private final ValidationPlanRegistry registry;
+
+    private final AttributeCheck[] attributeChecks;
+
+    private final ReferenceCheck[] referenceChecks;
+
+    private final Map<EStructuralFeature, Object> checksByFeature = new IdentityHashMap<>();
+
+    ValidationPlan(EClass transferObjectType, ValidationPlanRegistry registry) {
+        this.transferObjectType = transferObjectType;
+        this.registry = registry;
+        List<AttributeCheck> attributes = new ArrayList<>();
+        for (EAttribute attribute : transferObjectType.getEAllAttributes()) {
+            AttributeCheck check = new AttributeCheck(attribute);
+            attributes.add(check);
+            checksByFeature.put(attribute, check);
+        }
+        List<ReferenceCheck> references = new ArrayList<>();
+        for (EReference reference : transferObjectType.getEAllReferences()) {
+            ReferenceCheck check = new ReferenceCheck(reference);
+            references.add(check);
+            checksByFeature.put(reference, check);
+        }
+        attributeChecks = attributes.toArray(new AttributeCheck[0]);
+        referenceChecks = references.toArray(new ReferenceCheck[0]);
+    }
+
+    /**
+     * Validate a payload: all attributes and references, embedded (containment) instances are validated
+     * recursively.
+     *
+     * @param input payload to validate
+     * @return validation results
+     */
+    public List<ValidationResult> validate(Payload input) {
+        List<ValidationResult> results = new ArrayList<>();
+        validate(input, "", true, results);
+        return results;
+    }
+
+    /**
+     * Validate given features of a payload only (i.e. changed features on update), result is the same as
+     * {@link #validate(Payload)} would produce for them.
+     *
+     * @param input    payload to validate
+     * @param features names of features to validate
+     * @return validation results
+     */
+    public List<ValidationResult> validate(Payload input, Set<String> features) {
+        List<ValidationResult> results = new ArrayList<>();
+        for (AttributeCheck check : attributeChecks) {
+            if (features.contains(check.name)) {
+                check.validate(input.get(check.name), "", results);
+            }
+        }
+        for (ReferenceCheck check : referenceChecks) {
+            if (features.contains(check.name)) {
+                check.validate(input.get(check.name), "", true, results);
+            }
+        }
+        return results;
+    }
+
+    void validate(Payload input, String path, boolean validateItems, List<ValidationResult> results) {
+        for (AttributeCheck check : attributeChecks) {
+            check.validate(input.get(check.name), path, results);
+        }
+        for (ReferenceCheck check : referenceChecks) {
+            check.validate(input.get(check.name), path, validateItems, results);
+        }
+    }
+
+    /**
+     * Validate an attribute of a payload.
+     *
+     * @param attribute attribute of the transfer object type
+     * @param input     payload to validate
+     * @return validation results
+     */
+    public List<ValidationResult> validateAttribute(EAttribute attribute, Payload input) {
+        Object check = checksByFeature.get(attribute);
+        if (!(check instanceof AttributeCheck)) {
+            throw new IllegalArgumentException("Attribute " + attribute.getName() + " is not a member of " + transferObjectType.getName());
+        }
+        List<ValidationResult> results = new ArrayList<>();
+        ((AttributeCheck) check).validate(input.get(attribute.getName()), "", results);
+        return results;
+    }
+
+    /**
+     * Validate a reference of a payload.
+     *
+     * @param reference     reference of the transfer object type
+     * @param input         payload to validate
+     * @param validateItems validate embedded (containment) instances too
+     * @return validation results
+     */
+    public List<ValidationResult> validateReference(EReference reference, Payload input, boolean validateItems) {
+        Object check = checksByFeature.get(reference);
+        if (!(check instanceof ReferenceCheck)) {
+            throw new IllegalArgumentException("Reference " + reference.getName() + " is not a member of " + transferObjectType.getName());
+        }
+        List<ValidationResult> results = new ArrayList<>();
+        ((ReferenceCheck) check).validate(input.get(reference.getName()), "", validateItems, results);
+        return results;
+    }
+
+    private static ValidationResult error(String code, String location, Object value, String detail, Object limit) {
+        ValidationResult.ValidationResultBuilder builder = ValidationResult.builder()
+                .code(code)
+                .level(ValidationResult.Level.ERROR)
+                .location(location)
+                .detail("value", value);
+        if (detail != null) {
+            builder.detail(detail, limit);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Convert a number to {@link BigDecimal}, <code>null</code> is returned for not a number and infinite values.
+     */
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        } else if (value instanceof Double && !Double.isFinite((Double) value)
+                || value instanceof Float && !Float.isFinite((Float) value)) {
+            return null;
+        } else if (value instanceof Number) {
+            return new BigDecimal(value.toString());
+        }
+        return null;
+    }
+
+    private static BigDecimal parseLimit(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static final class AttributeCheck {
+
+        private final String name;
+
+        private final boolean required;
+
+        private final int minLength;
+
+        private final int maxLength;
+
+        private final Pattern pattern;
+
+        private final int precision;
+
+        private final int scale;
+
+        private final BigDecimal minInclusive;
+
+        private final BigDecimal maxInclusive;
+
+        private final BigDecimal minExclusive;
+
+        private final BigDecimal maxExclusive;
+
+        private AttributeCheck(EAttribute attribute) {
+            name = attribute.getName();
+            required = attribute.isRequired();
+            EDataType type = attribute.getEAttributeType();
+            ExtendedMetaData metaData = ExtendedMetaData.INSTANCE;
+            if (type != null) {
+                int length = metaData.getLengthFacet(type);
+                minLength = length >= 0 ? length : metaData.getMinLengthFacet(type);
+                maxLength = length >= 0 ? length : metaData.getMaxLengthFacet(type);
+                List<String> patterns = metaData.getPatternFacet(type);
+                pattern = patterns.isEmpty() ? null : Pattern.compile(patterns.stream()
+                        .map(p -> "(?:" + p + ")").reduce((a, b) -> a + "|" + b).get());
+                precision = metaData.getTotalDigitsFacet(type);
+                scale = metaData.getFractionDigitsFacet(type);
+                minInclusive = parseLimit(metaData.getMinInclusiveFacet(type));
+                maxInclusive = parseLimit(metaData.getMaxInclusiveFacet(type));
+                minExclusive = parseLimit(metaData.getMinExclusiveFacet(type));
+                maxExclusive = parseLimit(metaData.getMaxExclusiveFacet(type));
+            } else {
+                minLength = -1;
+                maxLength = -1;
+                pattern = null;
+                precision = -1;
+                scale = -1;
+                minInclusive = null;
+                maxInclusive = null;
+                minExclusive = null;
+                maxExclusive = null;
+            }
+        }
+
+        private void validate(Object value, String path, List<ValidationResult> results) {
+            if (value == null) {
+                if (required) {
+                    results.add(error(MISSING_REQUIRED_ATTRIBUTE, path + name, null, null, null));
+                }
+                return;
+            }
+            if (value instanceof String) {
+                String string = (String) value;
+                if (minLength >= 0 && string.length() < minLength) {
+                    results.add(error(TOO_SHORT_STRING, path + name, value, "minLength", minLength));
+                }
+                if (maxLength >= 0 && string.length() > maxLength) {
+                    results.add(error(TOO_LONG_STRING, path + name, value, "maxLength", maxLength));
+                }
+                if (pattern != null && !pattern.matcher(string).matches()) {
+                    results.add(error(PATTERN_VALIDATION_FAILED, path + name, value, "pattern", pattern.pattern()));
+                }
+            } else if (value instanceof Number && (precision >= 0 || scale >= 0 || minInclusive != null
+                    || maxInclusive != null || minExclusive != null || maxExclusive != null)) {
+                BigDecimal number = toBigDecimal(value);
+                if (number == null) {
+                    results.add(error(RANGE_VALIDATION_FAILED, path + name, value, null, null));
+                    return;
+                }
+                if (precision >= 0 && number.precision() > precision) {
+                    results.add(error(PRECISION_VALIDATION_FAILED, path + name, value, "precision", precision));
+                }
+                if (scale >= 0 && number.scale() > scale) {
+                    results.add(error(SCALE_VALIDATION_FAILED, path + name, value, "scale", scale));
+                }
+                if (minInclusive != null && number.compareTo(minInclusive) < 0) {
+                    results.add(error(RANGE_VALIDATION_FAILED, path + name, value, "minInclusive", minInclusive));
+                }
+                if (maxInclusive != null && number.compareTo(maxInclusive) > 0) {
+                    results.add(error(RANGE_VALIDATION_FAILED, path + name, value, "maxInclusive", maxInclusive));
+                }
+                if (minExclusive != null && number.compareTo(minExclusive) <= 0) {
+                    results.add(error(RANGE_VALIDATION_FAILED, path + name, value, "minExclusive", minExclusive));
+                }
+                if (maxExclusive != null && number.compareTo(maxExclusive) >= 0) {
+                    results.add(error(RANGE_VALIDATION_FAILED, path + name, value, "maxExclusive", maxExclusive));
+                }
+            }
+        }
+    }
+
+    private final class ReferenceCheck {
+
+        private final String name;
+
+        private final int lowerBound;
+
+        private final int upperBound;
+
+        private final boolean many;
+
+        private final boolean containment;
+
+        private final EClass type;
+
+        private ReferenceCheck(EReference reference) {
+            name = reference.getName();
+            lowerBound = reference.getLowerBound();
+            upperBound = reference.getUpperBound();
+            many = reference.isMany();
+            containment = reference.isContainment();
+            type = reference.getEReferenceType();
+        }
+
+        private void validate(Object value, String path, boolean validateItems, List<ValidationResult> results) {
+            if (value == null) {
+                if (lowerBound > 0) {
+                    results.add(error(MISSING_REQUIRED_RELATION, path + name, null, null, null));
+                }
+                return;
+            }
+            if (many && value instanceof Collection) {
+                Collection<?> items = (Collection<?>) value;
+                if (items.size() < lowerBound) {
+                    results.add(error(TOO_FEW_ITEMS, path + name, items.size(), "lowerBound", lowerBound));
+                }
+                if (upperBound >= 0 && items.size() > upperBound) {
+                    results.add(error(TOO_MANY_ITEMS, path + name, items.size(), "upperBound", upperBound));
+                }
+                if (validateItems && containment && type != null) {
+                    ValidationPlan plan = registry.getPlan(type);
+                    int index = 0;
+                    for (Object item : items) {
+                        if (item instanceof Payload) {
+                            plan.validate((Payload) item, path + name + "[" + index + "].", true, results);
+                        }
+                        index++;
+                    }
+                }
+            } else if (validateItems && containment && type != null && value instanceof Payload) {
+                registry.getPlan(type).validate((Payload) value, path + name + ".", true, results);
+            }
+        }
+    }
+}
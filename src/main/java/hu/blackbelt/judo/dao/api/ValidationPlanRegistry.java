@@ -0,0 +1,70 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EPackage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent registry of {@link ValidationPlan}s, plans are compiled at first use of a transfer object type. Plans
+ * must be invalidated when the model is reloaded.
+ */
+public final class ValidationPlanRegistry {
+
+    private final Map<EClass, ValidationPlan> plans = new ConcurrentHashMap<>();
+
+    /**
+     * Get validation plan of a transfer object type.
+     *
+     * @param transferObjectType transfer object type
+     * @return validation plan
+     */
+    public ValidationPlan getPlan(EClass transferObjectType) {
+        ValidationPlan plan = plans.get(transferObjectType);
+        if (plan == null) {
+            plan = new ValidationPlan(transferObjectType, this);
+            ValidationPlan existing = plans.putIfAbsent(transferObjectType, plan);
+            if (existing != null) {
+                plan = existing;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Remove plans of the types of a given package (i.e. when it is reloaded).
+     *
+     * @param ePackage package
+     */
+    public void invalidate(EPackage ePackage) {
+        plans.keySet().removeIf(type -> type.getEPackage() == ePackage);
+    }
+
+    /**
+     * Remove all plans (i.e. when model is reloaded).
+     */
+    public void invalidateAll() {
+        plans.clear();
+    }
+}
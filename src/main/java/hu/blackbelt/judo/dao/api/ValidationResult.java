@@ -27,13 +27,18 @@ import lombok.Singular;
 import java.util.Map;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class ValidationResult {
 
     private String code;
     private Level level;
     private Object location;
 
+    /**
+     * Index of the validated payload in bulk validation, <code>null</code> otherwise.
+     */
+    private Integer row;
+
     @Singular
     private Map<String, Object> details;
 
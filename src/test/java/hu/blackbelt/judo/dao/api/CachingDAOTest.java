@@ -0,0 +1,208 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CachingDAOTest {
+
+    EClass clazz;
+
+    EReference reference;
+
+    DAO<Long> dao;
+
+    CachingDAO<Long> cachingDAO;
+
+    @BeforeEach
+    void setUp() {
+        clazz = EcoreFactory.eINSTANCE.createEClass();
+        clazz.setName("Country");
+        reference = EcoreFactory.eINSTANCE.createEReference();
+        reference.setName("neighbours");
+        dao = mock(DAO.class);
+        Mockito.doAnswer(invocation -> {
+            long id = invocation.getArgument(1);
+            return id < 100 ? Optional.of(Payload.map("__identifier", id, "name", "country" + id)) : Optional.empty();
+        }).when(dao).getByIdentifier(eq(clazz), anyLong());
+        Mockito.doAnswer(invocation -> ((Collection<Long>) invocation.getArgument(1)).stream()
+                .filter(id -> id < 100)
+                .map(id -> Payload.map("__identifier", id, "name", "country" + id))
+                .collect(Collectors.toList())).when(dao).getByIdentifiers(eq(clazz), any());
+        IdentifierProvider<Long> identifierProvider = mock(IdentifierProvider.class);
+        Mockito.doReturn("__identifier").when(identifierProvider).getName();
+        cachingDAO = new CachingDAO<>(dao, identifierProvider, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void testGetByIdentifier() {
+        assertEquals("country1", cachingDAO.getByIdentifier(clazz, 1L).get().get("name"));
+        assertThat(cachingDAO.getByIdentifier(clazz, 1L).get(), instanceOf(FrozenPayload.class));
+        assertFalse(cachingDAO.getByIdentifier(clazz, 100L).isPresent());
+        assertFalse(cachingDAO.getByIdentifier(clazz, 100L).isPresent());
+        assertTrue(cachingDAO.existsById(clazz, 1L));
+        assertFalse(cachingDAO.existsById(clazz, 100L));
+
+        verify(dao, times(1)).getByIdentifier(clazz, 1L);
+        verify(dao, times(1)).getByIdentifier(clazz, 100L);
+        verify(dao, never()).existsById(any(), any());
+        assertEquals(4, cachingDAO.getStats(clazz).hitCount());
+    }
+
+    @Test
+    public void testGetByIdentifiers() {
+        cachingDAO.getByIdentifier(clazz, 2L);
+        List<Payload> result = cachingDAO.getByIdentifiers(clazz, ImmutableList.of(3L, 2L, 100L, 1L));
+
+        assertEquals(ImmutableList.of(3L, 2L, 1L),
+                result.stream().map(p -> p.get("__identifier")).collect(Collectors.toList()));
+        verify(dao).getByIdentifiers(clazz, ImmutableList.of(3L, 100L, 1L));
+
+        assertEquals(3, cachingDAO.getByIdentifiers(clazz, ImmutableList.of(1L, 2L, 3L, 100L)).size());
+        assertFalse(cachingDAO.existsById(clazz, 100L));
+        verify(dao, times(1)).getByIdentifiers(any(), any());
+    }
+
+    @Test
+    public void testInvalidation() {
+        EClass other = EcoreFactory.eINSTANCE.createEClass();
+        Mockito.doReturn(Optional.of(Payload.map("__identifier", 1L))).when(dao).getByIdentifier(other, 1L);
+        cachingDAO.getByIdentifier(clazz, 1L);
+        cachingDAO.getByIdentifier(clazz, 2L);
+        cachingDAO.getByIdentifier(clazz, 3L);
+        cachingDAO.getByIdentifier(other, 1L);
+
+        cachingDAO.update(clazz, Payload.map("__identifier", 1L, "name", "changed"), null);
+        cachingDAO.getByIdentifier(clazz, 1L);
+        cachingDAO.getByIdentifier(clazz, 2L);
+        cachingDAO.getByIdentifier(other, 1L);
+        verify(dao, times(2)).getByIdentifier(clazz, 1L);
+        verify(dao, times(1)).getByIdentifier(clazz, 2L);
+        verify(dao, times(2)).getByIdentifier(other, 1L);
+
+        cachingDAO.addReferences(reference, 2L, ImmutableList.of(3L));
+        cachingDAO.getByIdentifier(clazz, 2L);
+        cachingDAO.getByIdentifier(clazz, 3L);
+        verify(dao, times(2)).getByIdentifier(clazz, 2L);
+        verify(dao, times(2)).getByIdentifier(clazz, 3L);
+        verify(dao).addReferences(reference, 2L, ImmutableList.of(3L));
+
+        Mockito.doThrow(new IllegalStateException("failed")).when(dao).delete(clazz, 1L);
+        try {
+            cachingDAO.delete(clazz, 1L);
+        } catch (IllegalStateException e) {
+            // evicted anyway
+        }
+        cachingDAO.getByIdentifier(clazz, 1L);
+        verify(dao, times(3)).getByIdentifier(clazz, 1L);
+
+        cachingDAO.setReferencesOfNavigationInstanceAt(5L, reference, reference, 1L, ImmutableList.of());
+        cachingDAO.getByIdentifier(clazz, 1L);
+        verify(dao, times(4)).getByIdentifier(clazz, 1L);
+
+        cachingDAO.invalidateAll();
+        cachingDAO.getByIdentifier(clazz, 2L);
+        verify(dao, times(3)).getByIdentifier(clazz, 2L);
+    }
+
+    @Test
+    public void testLoadInterleavedWithUpdate() throws Exception {
+        AtomicReference<String> name = new AtomicReference<>("original");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch updated = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            Payload loaded = Payload.map("__identifier", 1L, "name", name.get());
+            loading.countDown();
+            assertTrue(updated.await(10, TimeUnit.SECONDS));
+            return Optional.of(loaded);
+        }).when(dao).getByIdentifier(clazz, 1L);
+
+        CompletableFuture<Optional<Payload>> load = CompletableFuture.supplyAsync(() -> cachingDAO.getByIdentifier(clazz, 1L));
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        name.set("changed");
+        cachingDAO.update(clazz, Payload.map("__identifier", 1L, "name", "changed"), null);
+        updated.countDown();
+
+        assertEquals("original", load.get(10, TimeUnit.SECONDS).get().get("name"));
+        assertEquals("changed", cachingDAO.getByIdentifier(clazz, 1L).get().get("name"));
+        verify(dao, times(2)).getByIdentifier(clazz, 1L);
+    }
+
+    @Test
+    public void testContainmentInvalidation() {
+        EClass city = EcoreFactory.eINSTANCE.createEClass();
+        city.setName("City");
+        EReference cities = EcoreFactory.eINSTANCE.createEReference();
+        cities.setName("cities");
+        cities.setEType(city);
+        cities.setContainment(true);
+        cities.setUpperBound(-1);
+        clazz.getEStructuralFeatures().add(cities);
+        Mockito.doAnswer(invocation -> Optional.of(Payload.map("__identifier", invocation.getArgument(1), "name", "city")))
+                .when(dao).getByIdentifier(eq(city), anyLong());
+        Mockito.doReturn(Optional.of(Payload.map("__identifier", 2L, "cities",
+                ImmutableList.of(Payload.map("__identifier", 20L))))).when(dao).getByIdentifier(clazz, 2L);
+
+        cachingDAO.getByIdentifier(city, 10L);
+        cachingDAO.getByIdentifier(city, 11L);
+        cachingDAO.update(clazz, Payload.map("__identifier", 1L, "cities",
+                ImmutableList.of(Payload.map("__identifier", 10L))), null);
+        cachingDAO.getByIdentifier(city, 10L);
+        cachingDAO.getByIdentifier(city, 11L);
+        verify(dao, times(2)).getByIdentifier(city, 10L);
+        verify(dao, times(1)).getByIdentifier(city, 11L);
+
+        cachingDAO.getByIdentifier(clazz, 2L);
+        cachingDAO.getByIdentifier(city, 20L);
+        cachingDAO.delete(clazz, 2L);
+        cachingDAO.getByIdentifier(city, 20L);
+        verify(dao, times(2)).getByIdentifier(city, 20L);
+    }
+}
@@ -0,0 +1,240 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static hu.blackbelt.judo.dao.api.TestModel.attribute;
+import static hu.blackbelt.judo.dao.api.TestModel.item;
+import static hu.blackbelt.judo.dao.api.TestModel.reference;
+import static hu.blackbelt.judo.dao.api.TestModel.type;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.isA;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactPayloadTest {
+
+    EClass order;
+
+    EClass item;
+
+    @BeforeEach
+    void setUp() {
+        item = item();
+        order = type("Order",
+                attribute("orderNumber", EcorePackage.Literals.ESTRING),
+                attribute("amount", EcorePackage.Literals.EDOUBLE_OBJECT),
+                reference("items", item, -1),
+                reference("mainItem", item, 1));
+    }
+
+    @Test
+    public void testSchema() {
+        PayloadSchema schema = PayloadSchema.of(order);
+        assertSame(schema, PayloadSchema.of(order));
+        assertEquals(4, schema.size());
+        assertEquals("amount", schema.keyAt(0));
+        assertEquals("items", schema.keyAt(1));
+        assertEquals("mainItem", schema.keyAt(2));
+        assertEquals("orderNumber", schema.keyAt(3));
+        assertEquals(-1, schema.slotOf("unknown"));
+        assertEquals(-1, schema.slotOf(null));
+        assertSame(PayloadSchema.of(item), schema.referencedSchemaAt(1));
+        assertNull(schema.referencedSchemaAt(0));
+    }
+
+    @Test
+    public void testPayloadFromMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("orderNumber", "ORD-1");
+        map.put("amount", null);
+        map.put("__identifier", "id1");
+        map.put("__$created", true);
+        map.put("mainItem", ImmutableMap.of("name", "main", "quantity", 1));
+        map.put("items", ImmutableList.of(
+                ImmutableMap.of("name", "first", "quantity", 2),
+                ImmutableMap.of("name", "second", "quantity", 3, "__identifier", "id2")));
+
+        Payload payload = Payload.asPayload(order, map);
+
+        assertThat(payload, instanceOf(CompactPayload.class));
+        assertEquals(6, payload.size());
+        assertThat(payload, equalTo(Payload.asPayload(map)));
+        assertThat(Payload.asPayload(map), equalTo(payload));
+        assertEquals(Payload.asPayload(map).hashCode(), payload.hashCode());
+        assertEquals(Payload.asPayload(map).toString(), payload.toString());
+
+        assertEquals("ORD-1", payload.getAs(String.class, "orderNumber"));
+        assertTrue(payload.containsKey("amount"));
+        assertNull(payload.getAs(Double.class, "amount"));
+        assertEquals("id1", payload.get("__identifier"));
+        assertThat(payload.getAsPayload("mainItem"), instanceOf(CompactPayload.class));
+        assertThat(((CompactPayload) payload.getAsPayload("mainItem")).getSchema(), equalTo(PayloadSchema.of(item)));
+        assertThat((List) payload.getAsCollectionPayload("items"), isA(List.class));
+        assertEquals("id2", new ArrayList<>(payload.getAsCollectionPayload("items")).get(1).get("__identifier"));
+    }
+
+    @Test
+    public void testBuilder() {
+        Payload payload = Payload.builder(order)
+                .put("orderNumber", "ORD-1")
+                .put("mainItem", ImmutableMap.of("name", "main", "quantity", 1))
+                .put("__identifier", "id1")
+                .build();
+
+        assertThat(payload, instanceOf(CompactPayload.class));
+        assertThat(payload.getAsPayload("mainItem"), instanceOf(CompactPayload.class));
+        assertEquals(1, payload.getAsPayload("mainItem").getInt("quantity"));
+        assertThat(payload, equalTo(Payload.map("orderNumber", "ORD-1", "__identifier", "id1",
+                "mainItem", Payload.map("name", "main", "quantity", 1))));
+    }
+
+    @Test
+    public void testPrimitiveSlots() {
+        EClass summary = EcoreFactory.eINSTANCE.createEClass();
+        summary.setName("Summary");
+        summary.getEStructuralFeatures().add(attribute("count", EcorePackage.Literals.ELONG));
+        summary.getEStructuralFeatures().add(attribute("lines", EcorePackage.Literals.EINTEGER_OBJECT));
+        summary.getEStructuralFeatures().add(attribute("total", EcorePackage.Literals.EDOUBLE));
+        summary.getEStructuralFeatures().add(attribute("ratio", EcorePackage.Literals.EFLOAT));
+        summary.getEStructuralFeatures().add(attribute("closed", EcorePackage.Literals.EBOOLEAN));
+        summary.getEStructuralFeatures().add(attribute("label", EcorePackage.Literals.ESTRING));
+        PayloadSchema schema = PayloadSchema.of(summary);
+        assertTrue(schema.hasPrimitiveSlots());
+        assertEquals(Long.class, schema.primitiveTypeAt(schema.slotOf("count")));
+        assertEquals(Integer.class, schema.primitiveTypeAt(schema.slotOf("lines")));
+        assertEquals(Boolean.class, schema.primitiveTypeAt(schema.slotOf("closed")));
+        assertNull(schema.primitiveTypeAt(schema.slotOf("label")));
+
+        CompactPayload payload = new CompactPayload(summary);
+        payload.putLong("count", 42L);
+        payload.putInt("lines", 7);
+        payload.putDouble("total", 12.5);
+        payload.put("ratio", 0.5f);
+        payload.putBoolean("closed", true);
+        payload.putLong("label", 1L);
+
+        assertEquals(6, payload.size());
+        assertEquals(42L, payload.getLong("count"));
+        assertEquals(42, payload.getInt("count"));
+        assertEquals(42.0, payload.getDouble("count"));
+        assertEquals(7, payload.getInt("lines"));
+        assertThrows(IllegalArgumentException.class, () -> payload.getLong("total"));
+        assertThrows(IllegalArgumentException.class, () -> payload.getInt("total"));
+        assertEquals(12.5, payload.getDouble("total"));
+        assertEquals(0.5, payload.getDouble("ratio"));
+        assertTrue(payload.getBoolean("closed"));
+        assertEquals(1L, payload.getLong("label"));
+
+        assertEquals(Long.valueOf(42L), payload.get("count"));
+        assertEquals(Integer.valueOf(7), payload.get("lines"));
+        assertEquals(Double.valueOf(12.5), payload.get("total"));
+        assertEquals(Float.valueOf(0.5f), payload.get("ratio"));
+        assertEquals(Boolean.TRUE, payload.get("closed"));
+        assertEquals(Long.valueOf(1L), payload.get("label"));
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("count", 42L);
+        map.put("lines", 7);
+        map.put("total", 12.5);
+        map.put("ratio", 0.5f);
+        map.put("closed", true);
+        map.put("label", 1L);
+        assertThat(payload, equalTo(Payload.asPayload(map)));
+        assertEquals(Payload.asPayload(map).hashCode(), payload.hashCode());
+        assertThat(new CompactPayload(summary, map), equalTo(payload));
+
+        assertThrows(IllegalArgumentException.class, () -> payload.getLong("closed"));
+        assertThrows(IllegalArgumentException.class, () -> payload.getBoolean("count"));
+        assertEquals(Long.valueOf(42L), payload.put("count", 43));
+        assertEquals(Integer.valueOf(43), payload.get("count"));
+        assertEquals(43L, payload.getLong("count"));
+        assertEquals(Boolean.TRUE, payload.remove("closed"));
+        assertThrows(IllegalArgumentException.class, () -> payload.getBoolean("closed"));
+        assertFalse(payload.getBoolean("closed", false));
+        assertEquals(3, payload.getInt("missing", 3));
+        payload.put("lines", null);
+        assertEquals(-1L, payload.getLong("lines", -1L));
+        assertEquals(12.5, payload.getDouble("total", 0.0));
+    }
+
+    @Test
+    public void testIterationOrder() {
+        Payload payload = new CompactPayload(order);
+        payload.put("orderNumber", "ORD-1");
+        payload.put("__identifier", "id1");
+        payload.put("zzz", 1);
+        payload.put("amount", 1.0);
+
+        assertEquals(ImmutableList.of("__identifier", "amount", "orderNumber", "zzz"), new ArrayList<>(payload.keySet()));
+        assertEquals(ImmutableList.of("id1", 1.0, "ORD-1", 1), new ArrayList<>(payload.values()));
+    }
+
+    @Test
+    public void testModification() {
+        Payload payload = new CompactPayload(order);
+        assertTrue(payload.isEmpty());
+        assertNull(payload.put("orderNumber", "ORD-1"));
+        assertEquals("ORD-1", payload.put("orderNumber", "ORD-2"));
+        assertNull(payload.put("__version", 1));
+        assertEquals(2, payload.size());
+
+        assertEquals("ORD-2", payload.remove("orderNumber"));
+        assertFalse(payload.containsKey("orderNumber"));
+        assertNull(payload.remove("orderNumber"));
+        assertNull(payload.remove(null));
+        assertEquals(1, payload.size());
+
+        payload.put("amount", 2.0);
+        for (Iterator<Map.Entry<String, Object>> it = payload.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Object> entry = it.next();
+            if (entry.getKey().equals("amount")) {
+                entry.setValue(3.0);
+            } else {
+                it.remove();
+            }
+        }
+        assertEquals(Payload.map("amount", 3.0), payload);
+
+        payload.clear();
+        assertTrue(payload.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> payload.put(null, "value"));
+    }
+}
@@ -0,0 +1,214 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.util.ExtendedMetaData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static hu.blackbelt.judo.dao.api.TestModel.attribute;
+import static hu.blackbelt.judo.dao.api.TestModel.containment;
+import static hu.blackbelt.judo.dao.api.TestModel.type;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledPayloadValidatorTest {
+
+    CompiledPayloadValidator validator = new CompiledPayloadValidator();
+
+    EClass order;
+
+    EClass item;
+
+    @BeforeEach
+    void setUp() {
+        EDataType code = EcoreFactory.eINSTANCE.createEDataType();
+        code.setName("Code");
+        code.setInstanceClassName("java.lang.String");
+        ExtendedMetaData.INSTANCE.setMaxLengthFacet(code, 5);
+        ExtendedMetaData.INSTANCE.setPatternFacet(code, ImmutableList.of("[A-Z]+"));
+
+        EDataType amount = EcoreFactory.eINSTANCE.createEDataType();
+        amount.setName("Amount");
+        amount.setInstanceClassName("java.math.BigDecimal");
+        ExtendedMetaData.INSTANCE.setTotalDigitsFacet(amount, 5);
+        ExtendedMetaData.INSTANCE.setFractionDigitsFacet(amount, 2);
+        ExtendedMetaData.INSTANCE.setMinInclusiveFacet(amount, "0");
+
+        item = type("Item", attribute("name", EcorePackage.Literals.ESTRING, 1));
+        order = type("Order",
+                attribute("code", code, 1),
+                attribute("amount", amount, 0),
+                containment("items", item, 1, 2));
+    }
+
+    @Test
+    public void testValidatePayload() {
+        Payload valid = Payload.map("code", "ABC", "amount", new BigDecimal("123.45"),
+                "items", ImmutableList.of(ImmutableMap.of("name", "first")));
+        assertTrue(validator.validatePayload(order, valid, Collections.emptyMap(), true).isEmpty());
+
+        Payload invalid = Payload.map("code", "abcdef", "amount", new BigDecimal("-1234.567"),
+                "items", ImmutableList.of(ImmutableMap.of(), ImmutableMap.of("name", "second"), ImmutableMap.of("name", "third")));
+        Collection<ValidationResult> results = validator.validatePayload(order, invalid, Collections.emptyMap(), false);
+        assertThat(results.stream().map(r -> r.getCode() + "@" + r.getLocation()).collect(Collectors.toList()), equalTo(ImmutableList.of(
+                ValidationPlan.TOO_LONG_STRING + "@code",
+                ValidationPlan.PATTERN_VALIDATION_FAILED + "@code",
+                ValidationPlan.PRECISION_VALIDATION_FAILED + "@amount",
+                ValidationPlan.SCALE_VALIDATION_FAILED + "@amount",
+                ValidationPlan.RANGE_VALIDATION_FAILED + "@amount",
+                ValidationPlan.TOO_MANY_ITEMS + "@items",
+                ValidationPlan.MISSING_REQUIRED_ATTRIBUTE + "@items[0].name")));
+
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> validator.validatePayload(order, Payload.empty(), Collections.emptyMap(), true));
+        assertThat(exception.getValidationResults().stream().map(ValidationResult::getCode).collect(Collectors.toList()), equalTo(ImmutableList.of(
+                ValidationPlan.MISSING_REQUIRED_ATTRIBUTE, ValidationPlan.MISSING_REQUIRED_RELATION)));
+
+        for (double value : new double[] {Double.NaN, Double.POSITIVE_INFINITY}) {
+            Payload notANumber = Payload.map("code", "ABC", "amount", value, "items", ImmutableList.of(ImmutableMap.of("name", "first")));
+            assertThat(validator.validatePayload(order, notANumber, Collections.emptyMap(), false).stream()
+                    .map(r -> r.getCode() + "@" + r.getLocation()).collect(Collectors.toList()),
+                    equalTo(ImmutableList.of(ValidationPlan.RANGE_VALIDATION_FAILED + "@amount")));
+        }
+    }
+
+    @Test
+    public void testValidateFeature() {
+        EAttribute code = (EAttribute) order.getEStructuralFeature("code");
+        EReference items = (EReference) order.getEStructuralFeature("items");
+        Payload payload = Payload.map("code", "ABCDEF", "items", ImmutableList.of(ImmutableMap.of()));
+
+        List<ValidationResult> attributeResults = (List<ValidationResult>) validator.validateAttribute(code, payload, Collections.emptyMap());
+        assertEquals(1, attributeResults.size());
+        assertEquals(5, attributeResults.get(0).getDetails().get("maxLength"));
+        assertEquals(1, validator.validateReference(items, payload, Collections.emptyMap(), false).size());
+        assertTrue(validator.validateReference(items, payload, Collections.emptyMap(), true).isEmpty());
+    }
+
+    @Test
+    public void testRegistry() {
+        ValidationPlanRegistry registry = validator.getRegistry();
+        ValidationPlan plan = registry.getPlan(order);
+        assertSame(plan, registry.getPlan(order));
+        registry.invalidateAll();
+        assertNotSame(plan, registry.getPlan(order));
+    }
+
+    @Test
+    public void testValidatePayloads() {
+        List<Payload> inputs = IntStream.range(0, 1000)
+                .mapToObj(i -> Payload.map("code", i % 10 == 0 ? "abc" : "ABC", "items", ImmutableList.of(ImmutableMap.of("name", "item"))))
+                .collect(Collectors.toList());
+
+        List<ValidationResult> results = validator.validatePayloads(order, inputs, Collections.emptyMap(), Integer.MAX_VALUE);
+        assertEquals(100, results.size());
+        assertThat(results.stream().map(ValidationResult::getRow).collect(Collectors.toList()),
+                equalTo(IntStream.range(0, 100).mapToObj(i -> i * 10).collect(Collectors.toList())));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<ValidationResult> limited = new ArrayList<>();
+            assertEquals(3, validator.validatePayloads(order, inputs, Collections.emptyMap(), 3, executor, limited::add));
+            assertEquals(3, limited.size());
+        } finally {
+            executor.shutdown();
+        }
+        assertThrows(IllegalArgumentException.class, () -> validator.validatePayloads(order, inputs, Collections.emptyMap(), 0));
+
+        List<Payload> invalid = Collections.nCopies(10, Payload.map("code", "abcdef", "items", ImmutableList.of(ImmutableMap.of("name", "item"))));
+        List<ValidationResult> row = new ArrayList<>();
+        assertEquals(2, validator.validatePayloads(order, invalid, Collections.emptyMap(), 1, Runnable::run, row::add));
+        assertThat(row.stream().map(ValidationResult::getRow).collect(Collectors.toList()), equalTo(ImmutableList.of(0, 0)));
+
+        AtomicInteger validated = new AtomicInteger();
+        PayloadValidator failing = new CompiledPayloadValidator() {
+            @Override
+            public Collection<ValidationResult> validatePayload(EClass transferObjectType, Payload input, Map<String, Object> validationContext, boolean throwValidationException) {
+                validated.incrementAndGet();
+                throw new IllegalStateException("failed");
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> failing.validatePayloads(order, inputs, Collections.emptyMap(),
+                Integer.MAX_VALUE, Runnable::run, result -> { }));
+        assertEquals(1, validated.get());
+    }
+
+    @Test
+    public void testValidateChanges() {
+        Payload previous = Payload.map("code", "abc", "items", ImmutableList.of(ImmutableMap.of("name", "item")));
+        Payload input = Payload.map("code", "abc", "amount", new BigDecimal("0.001"), "items", ImmutableList.of(ImmutableMap.of()));
+
+        Collection<ValidationResult> full = validator.validatePayload(order, input, Collections.emptyMap(), false);
+        assertEquals(3, full.size());
+        Collection<ValidationResult> changes = validator.validateChanges(order, previous, input, Collections.emptyMap(), false);
+        assertThat(changes.stream().map(r -> r.getCode() + "@" + r.getLocation()).collect(Collectors.toList()), equalTo(ImmutableList.of(
+                ValidationPlan.SCALE_VALIDATION_FAILED + "@amount",
+                ValidationPlan.MISSING_REQUIRED_ATTRIBUTE + "@items[0].name")));
+        assertThat(new ArrayList<>(changes), equalTo(full.stream().skip(1).collect(Collectors.toList())));
+
+        PayloadValidator delegating = new PayloadValidator() {
+            @Override
+            public Collection<ValidationResult> validatePayload(EClass transferObjectType, Payload input, Map<String, Object> validationContext, boolean throwValidationException) {
+                return validator.validatePayload(transferObjectType, input, validationContext, throwValidationException);
+            }
+
+            @Override
+            public Collection<ValidationResult> validateReference(EReference reference, Payload instance, Map<String, Object> validationContext, boolean ignoreInvalidValues) {
+                return validator.validateReference(reference, instance, validationContext, ignoreInvalidValues);
+            }
+
+            @Override
+            public Collection<ValidationResult> validateAttribute(EAttribute attribute, Payload instance, Map<String, Object> validationContext) {
+                return validator.validateAttribute(attribute, instance, validationContext);
+            }
+        };
+        assertThat(delegating.validateChanges(order, previous, input, Collections.emptyMap(), false), equalTo(changes));
+        assertThrows(ValidationException.class, () -> validator.validateChanges(order, input, ImmutableSet.of("code"), Collections.emptyMap(), true));
+        assertThrows(ValidationException.class, () -> delegating.validateChanges(order, input, ImmutableSet.of("items"), Collections.emptyMap(), true));
+    }
+}
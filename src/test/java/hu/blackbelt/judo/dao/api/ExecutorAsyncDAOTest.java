@@ -0,0 +1,218 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ExecutorAsyncDAOTest {
+
+    EClass clazz;
+
+    DAO<Long> dao;
+
+    ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        clazz = EcoreFactory.eINSTANCE.createEClass();
+        clazz.setName("Order");
+        List<Payload> rows = IntStream.range(0, 25).mapToObj(i -> Payload.map("index", i)).collect(Collectors.toList());
+        dao = mock(DAO.class, Mockito.CALLS_REAL_METHODS);
+        Mockito.doAnswer(invocation -> {
+            DAO.QueryCustomizer<Long> queryCustomizer = invocation.getArgument(1);
+            DAO.Seek seek = queryCustomizer.getSeek();
+            int from = Math.min(seek.getOffset(), rows.size());
+            return rows.subList(from, Math.min(from + seek.getLimit(), rows.size()));
+        }).when(dao).search(eq(clazz), any());
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentOperations() throws Exception {
+        CountDownLatch latch = new CountDownLatch(2);
+        Mockito.doAnswer(invocation -> {
+            latch.countDown();
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            return 25L;
+        }).when(dao).countAllOf(clazz);
+        Mockito.doAnswer(invocation -> {
+            latch.countDown();
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            return Payload.map("k", "v");
+        }).when(dao).getStaticFeatures(clazz);
+        Mockito.doThrow(new IllegalStateException("failed")).when(dao).delete(clazz, 1L);
+
+        AsyncDAO<Long> asyncDAO = new ExecutorAsyncDAO<>(dao, executor);
+        CompletableFuture<Long> count = asyncDAO.countAllOf(clazz);
+        CompletableFuture<Payload> features = asyncDAO.getStaticFeatures(clazz);
+
+        assertEquals(25L, count.get(5, TimeUnit.SECONDS));
+        assertEquals(Payload.map("k", "v"), features.get(5, TimeUnit.SECONDS));
+        CompletionException exception = assertThrows(CompletionException.class, () -> asyncDAO.delete(clazz, 1L).join());
+        assertThat(exception.getCause(), instanceOf(IllegalStateException.class));
+
+        EReference reference = EcoreFactory.eINSTANCE.createEReference();
+        Mockito.doReturn(Optional.of(Payload.map("version", 1))).when(dao).getMetadata(clazz, 1L);
+        Mockito.doReturn(Payload.map("k", "created")).when(dao).createNavigationInstanceAt(eq(1L), eq(reference), any(), any());
+        Mockito.doNothing().when(dao).unsetReferencesOfReferencedInstancesOf(reference, reference, 2L);
+        assertEquals(Payload.map("version", 1), asyncDAO.getMetadata(clazz, 1L).get(5, TimeUnit.SECONDS).get());
+        assertEquals(Payload.map("k", "created"), asyncDAO.createNavigationInstanceAt(1L, reference, Payload.empty(), null).get(5, TimeUnit.SECONDS));
+        asyncDAO.unsetReferencesOfReferencedInstancesOf(reference, reference, 2L).get(5, TimeUnit.SECONDS);
+        verify(dao).unsetReferencesOfReferencedInstancesOf(reference, reference, 2L);
+    }
+
+    @Test
+    public void testPublisherBackpressure() {
+        AsyncDAO<Long> asyncDAO = new ExecutorAsyncDAO<>(dao, Runnable::run);
+        TestSubscriber subscriber = new TestSubscriber();
+        asyncDAO.publishAllOf(clazz, 10).subscribe(subscriber);
+
+        assertTrue(subscriber.received.isEmpty());
+        verify(dao, times(0)).search(eq(clazz), any());
+
+        subscriber.subscription.request(3);
+        assertEquals(3, subscriber.received.size());
+        verify(dao, times(1)).search(eq(clazz), any());
+
+        subscriber.subscription.request(7);
+        assertEquals(10, subscriber.received.size());
+        verify(dao, times(1)).search(eq(clazz), any());
+
+        subscriber.subscription.request(15);
+        assertEquals(IntStream.range(0, 25).boxed().collect(Collectors.toList()),
+                subscriber.received.stream().map(p -> p.getInt("index")).collect(Collectors.toList()));
+        assertFalse(subscriber.completed);
+        verify(dao, times(3)).search(eq(clazz), any());
+
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        verify(dao, times(3)).search(eq(clazz), any());
+    }
+
+    @Test
+    public void testPublisherCancel() {
+        AsyncDAO<Long> asyncDAO = new ExecutorAsyncDAO<>(dao, Runnable::run);
+        AtomicBoolean closed = new AtomicBoolean();
+        Mockito.doAnswer(invocation -> ((Stream<Payload>) invocation.callRealMethod())
+                .onClose(() -> closed.set(true))).when(dao).streamSearch(eq(clazz), any(), eq(10));
+
+        TestSubscriber subscriber = new TestSubscriber();
+        asyncDAO.publishSearch(clazz, null, 10).subscribe(subscriber);
+        subscriber.subscription.request(5);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(5);
+
+        assertEquals(5, subscriber.received.size());
+        assertTrue(closed.get());
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+
+        TestSubscriber invalid = new TestSubscriber();
+        asyncDAO.publishSearch(clazz, null, 10).subscribe(invalid);
+        invalid.subscription.request(0);
+        assertThat(invalid.error, instanceOf(IllegalArgumentException.class));
+        assertTrue(invalid.received.isEmpty());
+    }
+
+    @Test
+    public void testPublisherError() {
+        Mockito.doThrow(new IllegalStateException("failed")).when(dao).search(eq(clazz), any());
+        AsyncDAO<Long> asyncDAO = new ExecutorAsyncDAO<>(dao, Runnable::run);
+
+        TestSubscriber subscriber = new TestSubscriber();
+        asyncDAO.publishAllOf(clazz, 10).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertThat(subscriber.error, instanceOf(IllegalStateException.class));
+        assertFalse(subscriber.completed);
+    }
+
+    private static class TestSubscriber implements Flow.Subscriber<Payload> {
+
+        Flow.Subscription subscription;
+
+        List<Payload> received = new ArrayList<>();
+
+        boolean completed;
+
+        Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Payload item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrozenPayloadTest {
+
+    private static Payload createPayload() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("k1", "string");
+        map.put("null", null);
+        map.put("map", ImmutableMap.of("map2", "map2v", "map1", "map1v"));
+        map.put("collection", ImmutableSet.of(
+                ImmutableMap.of("subcol2_2", "subcolval2_2", "subcol2_1", "subval2_2"),
+                ImmutableMap.of("subcol1_2", "subcolval1_2", "subcol1_1", "subval1_2")
+        ));
+        map.put("list", ImmutableList.of(
+                ImmutableMap.of("sublst2_2", "sublstval2_2", "sublst2_1", "sublst2_2"),
+                ImmutableMap.of("sublst1_2", "sublstval1_2", "sublst1_1", "sublst1_2")
+        ));
+        return Payload.asPayload(map);
+    }
+
+    @Test
+    public void testFreeze() {
+        Payload payload = createPayload();
+        Payload frozen = payload.freeze();
+
+        assertThat(frozen, instanceOf(FrozenPayload.class));
+        assertSame(frozen, frozen.freeze());
+        assertThat(frozen, equalTo(payload));
+        assertThat(payload, equalTo(frozen));
+        assertEquals(payload.hashCode(), frozen.hashCode());
+        assertEquals(payload.toString(), frozen.toString());
+        assertEquals(new ArrayList<>(payload.keySet()), new ArrayList<>(frozen.keySet()));
+
+        assertThat(frozen.getAsPayload("map"), instanceOf(FrozenPayload.class));
+        assertThat(frozen.getAsCollectionPayload("list"), instanceOf(List.class));
+        assertThat(frozen.getAsCollectionPayload("collection"), instanceOf(Set.class));
+        assertTrue(frozen.containsKey("null"));
+        assertNull(frozen.get("null"));
+        assertNull(frozen.get("missing"));
+        assertNull(frozen.get(1));
+
+        assertThrows(UnsupportedOperationException.class, () -> frozen.put("k2", "v2"));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.remove("k1"));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.clear());
+        assertThrows(UnsupportedOperationException.class, () -> frozen.getAsPayload("map").put("k2", "v2"));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.getAsCollectionPayload("list").clear());
+        assertThrows(UnsupportedOperationException.class, () -> frozen.getAsCollectionPayload("collection").clear());
+        assertThrows(UnsupportedOperationException.class, () -> frozen.entrySet().iterator().next().setValue("v2"));
+
+        payload.put("k1", "changed");
+        assertEquals("string", frozen.get("k1"));
+    }
+
+    @Test
+    public void testStructuralSharing() {
+        FrozenPayload frozen = (FrozenPayload) createPayload().freeze();
+        Payload nested = frozen.getAsPayload("map");
+        Collection<Payload> list = frozen.getAsCollectionPayload("list");
+
+        FrozenPayload modified = frozen.with("k1", "modified");
+        assertEquals("modified", modified.get("k1"));
+        assertEquals("string", frozen.get("k1"));
+        assertSame(nested, modified.getAsPayload("map"));
+        assertSame(list, modified.getAsCollectionPayload("list"));
+
+        FrozenPayload added = modified.with("a", Payload.map("k", "v"));
+        assertEquals("a", added.keySet().iterator().next());
+        assertThat(added.getAsPayload("a"), instanceOf(FrozenPayload.class));
+        assertEquals(frozen.size() + 1, added.size());
+
+        FrozenPayload removed = added.without("a").without("missing");
+        assertThat(removed, equalTo(modified));
+        assertEquals(modified.hashCode(), removed.hashCode());
+        assertFalse(removed.containsKey("a"));
+
+        assertSame(frozen, frozen.with("k1", frozen.get("k1")));
+        assertSame(nested, frozen.withAll(ImmutableMap.of("k2", "v2")).getAsPayload("map"));
+
+        Payload mutable = Payload.map("other", "value");
+        mutable.put("frozen", frozen);
+        assertSame(frozen, ((FrozenPayload) mutable.freeze()).getAsPayload("frozen"));
+
+        Payload thawed = frozen.thaw();
+        thawed.put("k1", "thawed");
+        assertEquals("thawed", thawed.get("k1"));
+        assertThat(thawed.getAsPayload("map"), instanceOf(PayloadImpl.class));
+    }
+
+    @Test
+    public void testUnsortedPayload() {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        entries.put("c", 3);
+        entries.put("a", 1);
+        entries.put("b", 2);
+        Payload unsorted = new AbstractPayload() {
+            @Override
+            public Set<Entry<String, Object>> entrySet() {
+                return entries.entrySet();
+            }
+        };
+
+        FrozenPayload frozen = FrozenPayload.of(unsorted);
+        assertEquals(1, frozen.get("a"));
+        assertEquals(2, frozen.get("b"));
+        assertEquals(3, frozen.get("c"));
+        assertEquals(List.of("a", "b", "c"), new ArrayList<>(frozen.keySet()));
+        assertEquals(2, FrozenPayload.of(TrackingPayload.track(unsorted)).get("b"));
+    }
+}
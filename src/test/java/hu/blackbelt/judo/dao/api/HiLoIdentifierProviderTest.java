@@ -0,0 +1,110 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HiLoIdentifierProviderTest {
+
+    static class Sequence implements IdentifierProvider<Long> {
+
+        final AtomicLong value = new AtomicLong();
+
+        @Override
+        public Long get() {
+            return value.getAndIncrement();
+        }
+
+        @Override
+        public Class<Long> getType() {
+            return Long.class;
+        }
+
+        @Override
+        public String getName() {
+            return "__id";
+        }
+    }
+
+    @Test
+    public void testBlockReservation() {
+        Sequence sequence = new Sequence();
+        HiLoIdentifierProvider<Long> provider = HiLoIdentifierProvider.of(sequence, 10);
+
+        assertEquals(0L, provider.get());
+        assertEquals(1L, provider.get());
+        List<Long> ids = provider.get(25);
+        assertEquals(25, ids.size());
+        assertEquals(2L, ids.get(0));
+        assertEquals(26L, ids.get(24));
+        assertEquals(3, sequence.value.get());
+        assertEquals(27L, provider.get());
+        assertEquals("__id", provider.getName());
+        assertTrue(provider.get(0).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> provider.get(-1));
+        assertThrows(IllegalArgumentException.class, () -> HiLoIdentifierProvider.of(sequence, 0));
+    }
+
+    @Test
+    public void testUniqueAcrossNodes() throws Exception {
+        Sequence sequence = new Sequence();
+        List<HiLoIdentifierProvider<String>> nodes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            nodes.add(new HiLoIdentifierProvider<>(sequence, 7, String.class, Long::toString));
+        }
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                HiLoIdentifierProvider<String> node = nodes.get(i % nodes.size());
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 50; j++) {
+                        ids.add(node.get());
+                        ids.addAll(node.get(j % 9));
+                        count.addAndGet(1 + j % 9);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(count.get(), ids.size());
+    }
+}
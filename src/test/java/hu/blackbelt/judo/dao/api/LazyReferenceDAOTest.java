@@ -0,0 +1,176 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class LazyReferenceDAOTest {
+
+    EClass order;
+
+    EReference items;
+
+    EReference customer;
+
+    EReference product;
+
+    DAO<Long> dao;
+
+    LazyReferenceDAO<Long> lazyDAO;
+
+    @BeforeEach
+    void setUp() {
+        EClass item = EcoreFactory.eINSTANCE.createEClass();
+        item.setName("Item");
+        product = EcoreFactory.eINSTANCE.createEReference();
+        product.setName("product");
+        product.setEType(item);
+        item.getEStructuralFeatures().add(product);
+        order = EcoreFactory.eINSTANCE.createEClass();
+        order.setName("Order");
+        EAttribute number = EcoreFactory.eINSTANCE.createEAttribute();
+        number.setName("number");
+        number.setEType(EcorePackage.Literals.ESTRING);
+        items = EcoreFactory.eINSTANCE.createEReference();
+        items.setName("items");
+        items.setEType(item);
+        items.setUpperBound(-1);
+        customer = EcoreFactory.eINSTANCE.createEReference();
+        customer.setName("customer");
+        customer.setEType(item);
+        order.getEStructuralFeatures().addAll(ImmutableList.of(number, items, customer));
+
+        dao = mock(DAO.class);
+        Mockito.doReturn(ImmutableList.of(
+                Payload.map("__identifier", 1L, "number", "A").freeze(),
+                Payload.map("__identifier", 2L, "number", "B").freeze())).when(dao).search(eq(order), any());
+        Mockito.doAnswer(invocation -> {
+            Map<Long, List<Payload>> result = new LinkedHashMap<>();
+            for (Long id : (Collection<Long>) invocation.getArgument(0)) {
+                if (id == 1L) {
+                    result.put(id, ImmutableList.of(Payload.map("name", "item" + id)));
+                }
+            }
+            return result;
+        }).when(dao).getNavigationResultsAt(any(), any());
+        IdentifierProvider<Long> identifierProvider = mock(IdentifierProvider.class);
+        Mockito.doReturn("__identifier").when(identifierProvider).getName();
+        lazyDAO = new LazyReferenceDAO<>(dao, identifierProvider);
+    }
+
+    @Test
+    public void testLazyReferences() {
+        List<Payload> result = lazyDAO.search(order, DAO.QueryCustomizer.<Long>builder()
+                .mask(ImmutableMap.of("number", true, "items", ImmutableMap.of("name", true), "customer", true))
+                .build());
+
+        ArgumentCaptor<DAO.QueryCustomizer<Long>> captor = ArgumentCaptor.forClass(DAO.QueryCustomizer.class);
+        verify(dao).search(eq(order), captor.capture());
+        assertEquals(ImmutableMap.of("number", true), captor.getValue().getMask());
+        verify(dao, never()).getNavigationResultsAt(any(), any());
+
+        Payload first = result.get(0);
+        assertTrue(first.containsKey("items"));
+        assertEquals(4, first.size());
+        assertEquals("A", first.get("number"));
+        verify(dao, never()).getNavigationResultsAt(any(), any());
+
+        assertEquals("item1", first.getAsCollectionPayload("items").iterator().next().get("name"));
+        assertTrue(result.get(1).getAsCollectionPayload("items").isEmpty());
+        verify(dao, times(1)).getNavigationResultsAt(ImmutableList.of(1L, 2L), items);
+
+        assertEquals("item1", first.getAsPayload("customer").get("name"));
+        assertNull(result.get(1).getAsPayload("customer"));
+        verify(dao, times(1)).getNavigationResultsAt(ImmutableList.of(1L, 2L), customer);
+
+        result.get(1).put("customer", Payload.map("name", "set"));
+        assertEquals("set", result.get(1).getAsPayload("customer").get("name"));
+        assertEquals(Payload.map("__identifier", 2L, "number", "B", "items", ImmutableList.of(),
+                "customer", Payload.map("name", "set")), result.get(1));
+        verify(dao, times(2)).getNavigationResultsAt(any(), any());
+    }
+
+    @Test
+    public void testWithoutMask() {
+        List<Payload> result = lazyDAO.search(order, null);
+        assertEquals(2, result.size());
+        assertEquals(Payload.map("__identifier", 1L, "number", "A"), result.get(0));
+        verify(dao).search(order, null);
+    }
+
+    @Test
+    public void testNestedMask() {
+        Map<String, Object> itemsMask = ImmutableMap.of("name", true, "product", ImmutableMap.of("name", true));
+        List<Payload> result = lazyDAO.search(order, DAO.QueryCustomizer.<Long>builder()
+                .mask(ImmutableMap.of("number", true, "items", itemsMask, "customer", ImmutableMap.of("name", true)))
+                .build());
+
+        ArgumentCaptor<DAO.QueryCustomizer<Long>> captor = ArgumentCaptor.forClass(DAO.QueryCustomizer.class);
+        verify(dao).search(eq(order), captor.capture());
+        assertEquals(ImmutableMap.of("number", true, "items", itemsMask), captor.getValue().getMask());
+
+        assertEquals("item1", result.get(0).getAsPayload("customer").get("name"));
+        verify(dao, times(1)).getNavigationResultsAt(ImmutableList.of(1L, 2L), customer);
+        verify(dao, never()).getNavigationResultsAt(any(), eq(items));
+    }
+
+    @Test
+    public void testFailedLoad() {
+        List<Payload> result = lazyDAO.search(order, DAO.QueryCustomizer.<Long>builder()
+                .mask(ImmutableMap.of("number", true, "customer", true))
+                .build());
+        Mockito.doThrow(new IllegalStateException("unavailable"))
+                .doReturn(ImmutableMap.of(1L, ImmutableList.of(Payload.map("name", "item1"))))
+                .when(dao).getNavigationResultsAt(any(), eq(customer));
+        Payload first = result.get(0);
+
+        assertThrows(IllegalStateException.class, () -> first.getAsPayload("customer"));
+        assertTrue(first.containsKey("customer"));
+        assertEquals("item1", first.getAsPayload("customer").get("name"));
+        verify(dao, times(2)).getNavigationResultsAt(ImmutableList.of(1L, 2L), customer);
+    }
+}
@@ -0,0 +1,152 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class NavigationLoaderTest {
+
+    EReference items;
+
+    EReference owner;
+
+    DAO<Long> dao;
+
+    @BeforeEach
+    void setUp() {
+        items = EcoreFactory.eINSTANCE.createEReference();
+        items.setName("items");
+        owner = EcoreFactory.eINSTANCE.createEReference();
+        owner.setName("owner");
+        dao = mock(DAO.class, Mockito.CALLS_REAL_METHODS);
+        Mockito.doAnswer(invocation -> {
+            Map<Long, List<Payload>> result = new LinkedHashMap<>();
+            for (Long id : (Collection<Long>) invocation.getArgument(0)) {
+                if (id > 0) {
+                    result.put(id, ImmutableList.of(Payload.map("parent", id)));
+                }
+            }
+            return result;
+        }).when(dao).getNavigationResultsAt(any(), any());
+        Mockito.doAnswer(invocation -> Map.of(1L, 5L)).when(dao).countNavigationResultsAt(any(), any());
+    }
+
+    @Test
+    public void testBatching() {
+        NavigationLoader<Long> loader = new NavigationLoader<>(dao, 3);
+        List<CompletableFuture<List<Payload>>> results = new ArrayList<>();
+        for (long id = 0; id < 5; id++) {
+            results.add(loader.load(id, items));
+        }
+        CompletableFuture<List<Payload>> ownerResult = loader.load(1L, owner);
+        CompletableFuture<Long> count = loader.loadCount(1L, items);
+        assertSame(results.get(1), loader.load(1L, items));
+        assertFalse(results.get(0).isDone());
+
+        loader.dispatch();
+        verify(dao).getNavigationResultsAt(ImmutableList.of(0L, 1L, 2L), items);
+        verify(dao).getNavigationResultsAt(ImmutableList.of(3L, 4L), items);
+        verify(dao).getNavigationResultsAt(ImmutableList.of(1L), owner);
+        verify(dao).countNavigationResultsAt(ImmutableList.of(1L), items);
+        verify(dao, never()).getNavigationResultAt(any(), any());
+
+        assertTrue(results.get(0).join().isEmpty());
+        assertEquals(4L, results.get(4).join().get(0).get("parent"));
+        assertEquals(1L, ownerResult.join().get(0).get("parent"));
+        assertEquals(5L, count.join());
+
+        assertEquals(2L, loader.get(2L, items).get(0).get("parent"));
+        assertEquals(2, loader.loadMany(ImmutableList.of(1L, 2L), items).join().size());
+        verify(dao, times(3)).getNavigationResultsAt(any(), any());
+
+        loader.clear();
+        assertEquals(2L, loader.get(2L, items).get(0).get("parent"));
+        verify(dao, times(4)).getNavigationResultsAt(any(), any());
+    }
+
+    @Test
+    public void testDispatchExecutor() {
+        Queue<Runnable> ticks = new ArrayDeque<>();
+        NavigationLoader<Long> loader = new NavigationLoader<>(dao, 100, ticks::add);
+        CompletableFuture<List<Payload>> first = loader.load(1L, items);
+        CompletableFuture<List<Payload>> second = loader.load(2L, items);
+        assertEquals(1, ticks.size());
+
+        ticks.poll().run();
+        assertTrue(first.isDone() && second.isDone());
+        verify(dao).getNavigationResultsAt(ImmutableList.of(1L, 2L), items);
+
+        loader.load(3L, items);
+        assertEquals(1, ticks.size());
+    }
+
+    @Test
+    public void testFailure() {
+        IllegalStateException failure = new IllegalStateException("failed");
+        Mockito.doThrow(failure).when(dao).getNavigationResultsAt(eq(ImmutableList.of(9L)), any());
+        NavigationLoader<Long> loader = new NavigationLoader<>(dao, 10);
+        CompletableFuture<List<Payload>> result = loader.load(9L, items);
+        loader.dispatch();
+
+        assertThat(assertThrows(RuntimeException.class, result::join).getCause(), instanceOf(IllegalStateException.class));
+        assertThrows(RuntimeException.class, () -> loader.get(9L, items));
+        verify(dao, times(2)).getNavigationResultsAt(ImmutableList.of(9L), items);
+        assertThrows(IllegalArgumentException.class, () -> new NavigationLoader<>(dao, 0));
+    }
+
+    @Test
+    public void testDefaultBulkNavigation() {
+        DAO<Long> simple = mock(DAO.class, Mockito.CALLS_REAL_METHODS);
+        Mockito.doReturn(ImmutableList.of(Payload.empty())).when(simple).getNavigationResultAt(any(), eq(items));
+        Mockito.doReturn(2L).when(simple).countNavigationResultAt(any(), eq(items));
+
+        assertEquals(ImmutableList.of(1L, 2L), new ArrayList<>(simple.getNavigationResultsAt(ImmutableList.of(1L, 2L), items).keySet()));
+        assertEquals(2L, simple.countNavigationResultsAt(ImmutableList.of(1L), items).get(1L));
+    }
+}
@@ -0,0 +1,125 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class PageTest {
+
+    EClass clazz;
+
+    DAO<Long> dao;
+
+    @BeforeEach
+    void setUp() {
+        clazz = EcoreFactory.eINSTANCE.createEClass();
+        clazz.setName("Order");
+        List<Payload> rows = IntStream.range(0, 25).mapToObj(i -> Payload.map("index", i)).collect(Collectors.toList());
+        dao = mock(DAO.class, Mockito.CALLS_REAL_METHODS);
+        Mockito.doAnswer(invocation -> {
+            DAO.QueryCustomizer<Long> queryCustomizer = invocation.getArgument(1);
+            DAO.Seek seek = queryCustomizer != null ? queryCustomizer.getSeek() : null;
+            if (seek == null) {
+                return rows;
+            }
+            int from = seek.getLastItem() != null ? seek.getLastItem().getInt("index") + 1 : Math.max(seek.getOffset(), 0);
+            return rows.subList(Math.min(from, rows.size()), Math.min(from + seek.getLimit(), rows.size()));
+        }).when(dao).search(eq(clazz), any());
+        Mockito.doReturn(25L).when(dao).count(eq(clazz), any());
+    }
+
+    private static DAO.QueryCustomizer<Long> query(DAO.Seek seek) {
+        return DAO.QueryCustomizer.<Long>builder().seek(seek).build();
+    }
+
+    @Test
+    public void testSearchPage() {
+        Page first = dao.searchPage(clazz, query(DAO.Seek.builder().limit(10).build()), Page.CountMode.EXACT);
+        assertEquals(10, first.getItems().size());
+        assertEquals(25L, first.getTotalCount());
+        assertFalse(first.isEstimated());
+        assertTrue(first.hasNext());
+        assertEquals(9, first.getNextSeek().getLastItem().getInt("index"));
+        assertEquals(-1, first.getNextSeek().getOffset());
+
+        Page second = dao.searchPage(clazz, query(first.getNextSeek()), Page.CountMode.NONE);
+        assertEquals(10, second.getItems().get(0).getInt("index"));
+        assertNull(second.getTotalCount());
+
+        Page last = dao.searchPage(clazz, query(DAO.Seek.builder().limit(10).offset(20).build()), Page.CountMode.EXACT);
+        assertEquals(5, last.getItems().size());
+        assertEquals(25L, last.getTotalCount());
+        assertFalse(last.hasNext());
+        verify(dao, times(1)).count(eq(clazz), any());
+
+        Page fullLast = dao.searchPage(clazz, query(DAO.Seek.builder().limit(5).offset(20).build()), Page.CountMode.EXACT);
+        assertEquals(5, fullLast.getItems().size());
+        assertEquals(25L, fullLast.getTotalCount());
+        assertFalse(fullLast.hasNext());
+        assertNull(fullLast.getNextSeek());
+        verify(dao, times(2)).count(eq(clazz), any());
+
+        Page all = dao.searchPage(clazz, null, Page.CountMode.ESTIMATE);
+        assertEquals(25L, all.getTotalCount());
+        assertFalse(all.isEstimated());
+        assertFalse(all.hasNext());
+        all.getItems().clear();
+        assertEquals(25, dao.search(clazz, null).size());
+
+        Page offset = dao.searchPage(clazz, query(DAO.Seek.builder().limit(10).offset(0).build()), Page.CountMode.NONE);
+        assertEquals(10, offset.getNextSeek().getOffset());
+        assertNull(offset.getNextSeek().getLastItem());
+        verify(dao, times(2)).count(eq(clazz), any());
+    }
+
+    @Test
+    public void testRangePage() {
+        EReference reference = EcoreFactory.eINSTANCE.createEReference();
+        Payload owner = Payload.empty();
+        Mockito.doReturn(List.of(Payload.map("index", 1))).when(dao).getRangeOf(eq(reference), eq(owner), any(), anyBoolean());
+
+        Page page = dao.getRangePage(reference, owner, query(DAO.Seek.builder().limit(10).build()), false, Page.CountMode.EXACT);
+        assertEquals(1, page.getItems().size());
+        assertEquals(1L, page.getTotalCount());
+        verify(dao, never()).countRangeOf(any(), any(), any(), anyBoolean());
+    }
+}
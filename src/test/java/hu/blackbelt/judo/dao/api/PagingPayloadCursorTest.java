@@ -0,0 +1,146 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class PagingPayloadCursorTest {
+
+    EClass clazz;
+
+    DAO<Long> dao;
+
+    List<DAO.QueryCustomizer<Long>> queries;
+
+    @BeforeEach
+    void setUp() {
+        clazz = EcoreFactory.eINSTANCE.createEClass();
+        clazz.setName("Order");
+        List<Payload> rows = IntStream.range(0, 25).mapToObj(i -> Payload.map("index", i)).collect(Collectors.toList());
+        queries = new ArrayList<>();
+        dao = mock(DAO.class, Mockito.CALLS_REAL_METHODS);
+        Mockito.doAnswer(invocation -> {
+            DAO.QueryCustomizer<Long> queryCustomizer = invocation.getArgument(1);
+            queries.add(queryCustomizer);
+            DAO.Seek seek = queryCustomizer.getSeek();
+            List<Payload> ordered = rows;
+            if (seek.isReverse()) {
+                ordered = new ArrayList<>(rows);
+                Collections.reverse(ordered);
+            }
+            int from = seek.getLastItem() != null ? ordered.indexOf(seek.getLastItem()) + 1 : Math.min(seek.getOffset(), rows.size());
+            return ordered.subList(from, Math.min(from + seek.getLimit(), rows.size()));
+        }).when(dao).search(eq(clazz), any());
+    }
+
+    @Test
+    public void testStreamAllOf() {
+        try (Stream<Payload> stream = dao.streamAllOf(clazz, 10)) {
+            assertEquals(IntStream.range(0, 25).boxed().collect(Collectors.toList()),
+                    stream.map(p -> p.getInt("index")).collect(Collectors.toList()));
+        }
+        verify(dao, times(3)).search(eq(clazz), any());
+        assertEquals(0, queries.get(0).getSeek().getOffset());
+        assertEquals(20, queries.get(2).getSeek().getOffset());
+        assertEquals(10, queries.get(2).getSeek().getLimit());
+    }
+
+    @Test
+    public void testSeekAndFilterAreKept() {
+        DAO.QueryCustomizer<Long> queryCustomizer = DAO.QueryCustomizer.<Long>builder()
+                .filter("index > 0")
+                .seek(DAO.Seek.builder().offset(5).limit(12).build())
+                .build();
+        try (Stream<Payload> stream = dao.streamSearch(clazz, queryCustomizer, 5)) {
+            assertEquals(IntStream.range(5, 17).boxed().collect(Collectors.toList()),
+                    stream.map(p -> p.getInt("index")).collect(Collectors.toList()));
+        }
+        assertEquals(3, queries.size());
+        assertEquals("index > 0", queries.get(2).getFilter());
+        assertEquals(15, queries.get(2).getSeek().getOffset());
+        assertEquals(2, queries.get(2).getSeek().getLimit());
+    }
+
+    @Test
+    public void testReverseAndKeyset() {
+        DAO.QueryCustomizer<Long> reverse = DAO.QueryCustomizer.<Long>builder()
+                .seek(DAO.Seek.builder().offset(2).limit(12).reverse(true).build())
+                .build();
+        try (Stream<Payload> stream = dao.streamSearch(clazz, reverse, 5)) {
+            assertEquals(IntStream.range(0, 12).mapToObj(i -> 22 - i).collect(Collectors.toList()),
+                    stream.map(p -> p.getInt("index")).collect(Collectors.toList()));
+        }
+        assertTrue(queries.stream().allMatch(q -> q.getSeek().isReverse()));
+        queries.clear();
+
+        DAO.QueryCustomizer<Long> keyset = DAO.QueryCustomizer.<Long>builder()
+                .seek(DAO.Seek.builder().lastItem(Payload.map("index", 7)).build())
+                .build();
+        try (Stream<Payload> stream = dao.streamSearch(clazz, keyset, 5)) {
+            assertEquals(IntStream.range(8, 25).boxed().collect(Collectors.toList()),
+                    stream.map(p -> p.getInt("index")).collect(Collectors.toList()));
+        }
+        assertEquals(4, queries.size());
+        assertEquals(Payload.map("index", 12), queries.get(1).getSeek().getLastItem());
+        assertEquals(Payload.map("index", 22), queries.get(3).getSeek().getLastItem());
+        assertTrue(queries.stream().allMatch(q -> q.getSeek().getOffset() == -1));
+    }
+
+    @Test
+    public void testClose() {
+        PagingPayloadCursor<Long> cursor = new PagingPayloadCursor<>(null, 10, page -> dao.search(clazz, page));
+        assertTrue(cursor.hasNext());
+        assertEquals(0, cursor.next().getInt("index"));
+        cursor.close();
+        assertFalse(cursor.hasNext());
+        assertThrows(NoSuchElementException.class, cursor::next);
+        assertEquals(1, queries.size());
+
+        Stream<Payload> stream = dao.streamAllOf(clazz, 10);
+        assertEquals(0, stream.iterator().next().getInt("index"));
+        stream.close();
+        assertEquals(2, queries.size());
+
+        assertThrows(IllegalArgumentException.class, () -> dao.streamAllOf(clazz, 0));
+    }
+}
@@ -0,0 +1,111 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static hu.blackbelt.judo.dao.api.TestModel.attribute;
+import static hu.blackbelt.judo.dao.api.TestModel.type;
+
+/**
+ * Compare list of payloads and columnar {@link PayloadBatch} of a wide numeric result set.
+ * <p>
+ * Run with <code>java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main PayloadBatchBenchmark -prof gc</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadBatchBenchmark {
+
+    private static final int ROWS = 10000;
+
+    private static final int COLUMNS = 20;
+
+    EClass type;
+
+    List<Payload> list;
+
+    PayloadBatch batch;
+
+    @Setup
+    public void setUp() {
+        type = type("ReportRow");
+        for (int c = 0; c < COLUMNS; c++) {
+            type.getEStructuralFeatures().add(attribute("column" + c, EcorePackage.Literals.EDOUBLE));
+        }
+        list = buildList();
+        batch = buildBatch();
+    }
+
+    @Benchmark
+    public List<Payload> buildList() {
+        List<Payload> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            PayloadBuilder builder = Payload.builder();
+            for (int c = 0; c < COLUMNS; c++) {
+                builder.put("column" + c, i * 0.5 + c);
+            }
+            rows.add(builder.build());
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public PayloadBatch buildBatch() {
+        PayloadBatch.Builder builder = PayloadBatch.builder(type, ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            PayloadBuilder row = Payload.builder();
+            for (int c = 0; c < COLUMNS; c++) {
+                row.put("column" + c, i * 0.5 + c);
+            }
+            builder.add(row.build());
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public double scanList() {
+        double sum = 0;
+        for (Payload row : list) {
+            sum += row.getDouble("column7");
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double scanBatch() {
+        PayloadBatch.Column column = batch.getColumn("column7");
+        double sum = 0;
+        for (int row = 0; row < batch.size(); row++) {
+            sum += column.getDouble(row);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,184 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static hu.blackbelt.judo.dao.api.TestModel.attribute;
+import static hu.blackbelt.judo.dao.api.TestModel.reference;
+import static hu.blackbelt.judo.dao.api.TestModel.type;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PayloadBatchTest {
+
+    EClass order;
+
+    @BeforeEach
+    void setUp() {
+        EClass customer = type("Customer", attribute("name", EcorePackage.Literals.ESTRING));
+        order = type("Order",
+                attribute("count", EcorePackage.Literals.ELONG),
+                attribute("lines", EcorePackage.Literals.EINTEGER_OBJECT),
+                attribute("amount", EcorePackage.Literals.EDOUBLE),
+                attribute("closed", EcorePackage.Literals.EBOOLEAN),
+                attribute("label", EcorePackage.Literals.ESTRING),
+                reference("customer", customer, 1));
+    }
+
+    private static List<Payload> createRows(int count) {
+        List<Payload> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("__identifier", "id" + i);
+            row.put("count", (long) i);
+            row.put("lines", i % 3 == 0 ? null : i);
+            row.put("amount", i * 1.5);
+            row.put("closed", i % 2 == 0);
+            row.put("label", "label" + i);
+            if (i == 1) {
+                row.put("customer", ImmutableMap.of("name", "customer"));
+                row.put("__$selected", true);
+            }
+            rows.add(Payload.asPayload(row));
+        }
+        return rows;
+    }
+
+    @Test
+    public void testRows() {
+        List<Payload> rows = createRows(40);
+        PayloadBatch batch = PayloadBatch.of(order, rows);
+
+        assertEquals(40, batch.size());
+        assertThat(batch, equalTo(rows));
+        assertThat(rows, equalTo(batch));
+        assertEquals(rows.hashCode(), batch.hashCode());
+        assertEquals(rows.get(1).toString(), batch.get(1).toString());
+        assertEquals(new ArrayList<>(rows.get(1).keySet()), new ArrayList<>(batch.get(1).keySet()));
+
+        Payload row = batch.get(1);
+        assertEquals(8, row.size());
+        assertEquals(1L, row.getLong("count"));
+        assertEquals(Integer.valueOf(1), row.get("lines"));
+        assertEquals(1.5, row.getDouble("amount"));
+        assertFalse(row.getBoolean("closed"));
+        assertEquals("id1", row.get("__identifier"));
+        assertThat(row.getAsPayload("customer"), instanceOf(CompactPayload.class));
+        assertTrue(batch.get(0).containsKey("lines"));
+        assertNull(batch.get(0).get("lines"));
+        assertFalse(batch.get(0).containsKey("customer"));
+        assertThrows(IllegalArgumentException.class, () -> batch.get(0).getInt("lines"));
+        assertEquals(-1, batch.get(0).getInt("lines", -1));
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.get(40));
+    }
+
+    @Test
+    public void testColumns() {
+        PayloadBatch batch = PayloadBatch.of(order, createRows(100));
+
+        PayloadBatch.Column count = batch.getColumn("count");
+        PayloadBatch.Column amount = batch.getColumn("amount");
+        PayloadBatch.Column closed = batch.getColumn("closed");
+        assertTrue(count.isPrimitive());
+        assertTrue(amount.isPrimitive());
+        assertFalse(batch.getColumn("label").isPrimitive());
+        long total = 0;
+        double sum = 0;
+        int open = 0;
+        for (int row = 0; row < batch.size(); row++) {
+            total += count.getLong(row);
+            sum += amount.getDouble(row);
+            open += closed.getBoolean(row) ? 0 : 1;
+        }
+        assertEquals(4950L, total);
+        assertEquals(7425.0, sum);
+        assertEquals(50, open);
+        assertTrue(batch.getColumn("lines").isNull(0));
+        assertTrue(batch.getColumn("lines").isPresent(0));
+        assertThrows(IllegalArgumentException.class, () -> batch.getColumn("__identifier"));
+    }
+
+    @Test
+    public void testModification() {
+        PayloadBatch batch = PayloadBatch.of(order, createRows(3));
+        PayloadBatch.Column count = batch.getColumn("count");
+
+        Payload row = batch.get(2);
+        assertEquals(Long.valueOf(2L), row.put("count", 20L));
+        assertEquals(20L, count.getLong(2));
+        assertTrue(count.isPrimitive());
+
+        row.put("count", "many");
+        assertFalse(count.isPrimitive());
+        assertEquals("many", count.get(2));
+        assertEquals(Long.valueOf(1L), count.get(1));
+        assertEquals(1L, count.getLong(1));
+        assertThrows(IllegalArgumentException.class, () -> count.getLong(2));
+
+        assertEquals(Boolean.TRUE, row.remove("closed"));
+        assertFalse(row.containsKey("closed"));
+        row.put("__$selected", true);
+        assertEquals(Boolean.TRUE, batch.get(2).get("__$selected"));
+
+        Iterator<Map.Entry<String, Object>> iterator = row.entrySet().iterator();
+        assertEquals("__$selected", iterator.next().getKey());
+        iterator.remove();
+        assertFalse(row.containsKey("__$selected"));
+        for (Map.Entry<String, Object> entry : batch.get(1).entrySet()) {
+            if (entry.getKey().equals("count")) {
+                assertEquals(Long.valueOf(1L), entry.setValue(10L));
+            } else if (entry.getKey().equals("label")) {
+                entry.setValue("changed");
+            }
+        }
+        assertEquals(10L, count.getLong(1));
+        assertEquals("changed", batch.get(1).get("label"));
+
+        row.clear();
+        assertTrue(row.isEmpty());
+        assertEquals(Payload.empty(), batch.get(2));
+
+        PayloadBatch.Builder builder = PayloadBatch.builder(order);
+        builder.add(ImmutableMap.of("label", "only")).add(ImmutableMap.of("lines", ImmutableList.of()));
+        PayloadBatch built = builder.build();
+        assertEquals(2, built.size());
+        assertFalse(built.getColumn("lines").isPrimitive());
+        assertThrows(IllegalStateException.class, () -> builder.add(ImmutableMap.of()));
+    }
+}
@@ -0,0 +1,173 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static hu.blackbelt.judo.dao.api.TestModel.attribute;
+import static hu.blackbelt.judo.dao.api.TestModel.item;
+import static hu.blackbelt.judo.dao.api.TestModel.reference;
+import static hu.blackbelt.judo.dao.api.TestModel.type;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PayloadBinaryCodecTest {
+
+    PayloadBinaryCodec codec = PayloadBinaryCodec.getInstance();
+
+    EClass order;
+
+    @BeforeEach
+    void setUp() {
+        EClass item = item();
+        order = type("Order",
+                attribute("orderNumber", EcorePackage.Literals.ESTRING),
+                attribute("amount", EcorePackage.Literals.EBIG_DECIMAL),
+                attribute("orderDate", EcorePackage.Literals.EJAVA_OBJECT),
+                reference("items", item, -1),
+                reference("mainItem", item, 1));
+    }
+
+    private static Payload createOrder() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("__identifier", UUID.randomUUID());
+        map.put("__$created", true);
+        map.put("orderNumber", "ORD-árvíztűrő-€-😀");
+        map.put("amount", new BigDecimal("-1234.5678"));
+        map.put("orderDate", LocalDate.of(2020, 2, 29));
+        map.put("mainItem", ImmutableMap.of("name", "main", "quantity", 1));
+        map.put("items", ImmutableList.of(
+                ImmutableMap.of("name", "first", "quantity", -2),
+                ImmutableMap.of("name", "second", "quantity", Integer.MAX_VALUE, "__version", 3L)));
+        return Payload.asPayload(map);
+    }
+
+    @Test
+    public void testSchemaRoundTrip() {
+        Payload payload = createOrder();
+        ByteBuffer buffer = codec.encode(payload, order);
+        Payload result = codec.read(buffer, order);
+
+        assertTrue(!buffer.hasRemaining());
+        assertThat(result, instanceOf(CompactPayload.class));
+        assertThat(result.getAsPayload("mainItem"), instanceOf(CompactPayload.class));
+        assertThat(result, equalTo(payload));
+        assertEquals(payload.get("__identifier"), result.get("__identifier"));
+        assertEquals(Boolean.TRUE, result.get("__$created"));
+        assertEquals(payload.toString(), result.toString());
+
+        ByteBuffer selfDescribing = codec.encode(payload, null);
+        assertTrue(buffer.limit() < selfDescribing.limit());
+        assertThrows(IllegalArgumentException.class, () -> codec.read(codec.encode(payload, order)));
+    }
+
+    @Test
+    public void testSelfDescribingRoundTrip() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("null", null);
+        map.put("boolean", false);
+        map.put("integer", Integer.MIN_VALUE);
+        map.put("long", Long.MAX_VALUE);
+        map.put("short", (short) -3);
+        map.put("byte", (byte) 7);
+        map.put("float", 1.5f);
+        map.put("double", -2.25);
+        map.put("bigInteger", new BigInteger("123456789012345678901234567890"));
+        map.put("bigDecimal", new BigDecimal("0.000001"));
+        map.put("character", 'x');
+        map.put("localDate", LocalDate.of(1900, 1, 1));
+        map.put("localTime", LocalTime.of(23, 59, 59, 999_999_999));
+        map.put("localDateTime", LocalDateTime.of(2023, 10, 1, 12, 30));
+        map.put("offsetDateTime", OffsetDateTime.of(2023, 10, 1, 12, 30, 0, 5, ZoneOffset.ofHours(-5)));
+        map.put("zonedDateTime", ZonedDateTime.of(2023, 10, 1, 12, 30, 0, 0, ZoneId.of("Europe/Budapest")));
+        map.put("instant", Instant.ofEpochSecond(-100, 10));
+        map.put("offsetTime", OffsetTime.of(10, 0, 0, 0, ZoneOffset.ofHours(2)));
+        map.put("duration", Duration.ofMillis(-1500));
+        map.put("uuid", UUID.randomUUID());
+        map.put("set", ImmutableSet.of(ImmutableMap.of("k", "v")));
+        map.put("nested", ImmutableMap.of("list", ImmutableList.of(ImmutableMap.of("k", 1))));
+        Payload payload = Payload.asPayload(map);
+        payload.put("scalars", ImmutableList.of("a", 1, 2L));
+        payload.put("bytes", new byte[] {1, 2, 3});
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+        codec.write(payload, buffer);
+        buffer.flip();
+        Payload result = codec.read(buffer);
+
+        assertArrayEquals(new byte[] {1, 2, 3}, (byte[]) result.remove("bytes"));
+        payload.remove("bytes");
+        assertThat(result, equalTo(payload));
+        for (String key : payload.keySet()) {
+            assertEquals(payload.get(key), result.get(key), key);
+        }
+    }
+
+    @Test
+    public void testBufferOverflow() {
+        assertThrows(BufferOverflowException.class, () -> codec.write(createOrder(), order, ByteBuffer.allocate(16)));
+        assertThrows(IllegalArgumentException.class, () -> codec.encode(Payload.map("object", new Object()), null));
+    }
+
+    @Test
+    public void testSchemaMismatch() {
+        EClass other = EcoreFactory.eINSTANCE.createEClass();
+        other.setName("Order");
+        other.getEStructuralFeatures().add(attribute("orderNumber", EcorePackage.Literals.ESTRING));
+        other.getEStructuralFeatures().add(attribute("total", EcorePackage.Literals.EBIG_DECIMAL));
+        other.getEStructuralFeatures().add(attribute("orderDate", EcorePackage.Literals.EJAVA_OBJECT));
+        other.getEStructuralFeatures().add(reference("items", order, -1));
+        other.getEStructuralFeatures().add(reference("mainItem", order, 1));
+        assertEquals(PayloadSchema.of(order).size(), PayloadSchema.of(other).size());
+        assertNotEquals(PayloadSchema.of(order).getFingerprint(), PayloadSchema.of(other).getFingerprint());
+        assertThrows(IllegalArgumentException.class, () -> codec.read(codec.encode(createOrder(), order), other));
+
+        ByteBuffer corrupt = ByteBuffer.allocate(32);
+        corrupt.put((byte) 2);
+        corrupt.putLong(PayloadSchema.of(order).getFingerprint());
+        corrupt.put((byte) 1);
+        corrupt.put((byte) 100);
+        corrupt.flip();
+        assertThrows(IllegalArgumentException.class, () -> codec.read(corrupt, order));
+    }
+}
@@ -0,0 +1,56 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare building payloads with {@link PayloadBuilder} to copying a double-brace initialized map.
+ * <p>
+ * Run with <code>java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main PayloadBuilderBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadBuilderBenchmark {
+
+    String name = "name";
+
+    Integer amount = 10;
+
+    @Benchmark
+    public Payload doubleBraceMap() {
+        return Payload.asPayload(new HashMap<String, Object>() {{ put("name", name); put("amount", amount);
+            put("code", "C1"); put("active", Boolean.TRUE); put("description", null); put("__identifier", 1L); }});
+    }
+
+    @Benchmark
+    public Payload map() {
+        return Payload.map("name", name, "amount", amount, "code", "C1", "active", Boolean.TRUE, "description", null,
+                "__identifier", 1L);
+    }
+}
@@ -0,0 +1,119 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static hu.blackbelt.judo.dao.api.TestModel.attribute;
+import static hu.blackbelt.judo.dao.api.TestModel.type;
+
+/**
+ * Compare binary (schema and self-describing) and JSON serialization of payloads.
+ * <p>
+ * Run with <code>java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main PayloadCodecBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadCodecBenchmark {
+
+    EClass type;
+
+    Payload payload;
+
+    ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+    ByteBuffer schemaEncoded;
+
+    ByteBuffer selfDescribingEncoded;
+
+    String json;
+
+    @Setup
+    public void setUp() {
+        type = type("Order");
+        Map<String, Object> map = new HashMap<>();
+        map.put("__identifier", UUID.randomUUID());
+        for (int i = 0; i < 10; i++) {
+            type.getEStructuralFeatures().add(attribute("name" + i, EcorePackage.Literals.ESTRING));
+            type.getEStructuralFeatures().add(attribute("amount" + i, EcorePackage.Literals.EINTEGER_OBJECT));
+            map.put("name" + i, "value" + i);
+            map.put("amount" + i, i * 1000);
+        }
+        type.getEStructuralFeatures().add(attribute("price", EcorePackage.Literals.EBIG_DECIMAL));
+        type.getEStructuralFeatures().add(attribute("orderDate", EcorePackage.Literals.EJAVA_OBJECT));
+        map.put("price", new BigDecimal("1234.56"));
+        map.put("orderDate", LocalDate.of(2022, 1, 1));
+        payload = Payload.asPayload(map);
+
+        PayloadBinaryCodec codec = PayloadBinaryCodec.getInstance();
+        schemaEncoded = codec.encode(payload, type);
+        selfDescribingEncoded = codec.encode(payload, null);
+        json = PayloadJsonCodec.getInstance().toJson(payload);
+    }
+
+    @Benchmark
+    public ByteBuffer writeBinarySchema() {
+        buffer.clear();
+        PayloadBinaryCodec.getInstance().write(payload, type, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuffer writeBinarySelfDescribing() {
+        buffer.clear();
+        PayloadBinaryCodec.getInstance().write(payload, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public String writeJson() {
+        return PayloadJsonCodec.getInstance().toJson(payload);
+    }
+
+    @Benchmark
+    public Payload readBinarySchema() {
+        return PayloadBinaryCodec.getInstance().read(schemaEncoded.duplicate(), type);
+    }
+
+    @Benchmark
+    public Payload readBinarySelfDescribing() {
+        return PayloadBinaryCodec.getInstance().read(selfDescribingEncoded.duplicate());
+    }
+
+    @Benchmark
+    public Payload readJson() {
+        return PayloadJsonCodec.getInstance().read(json);
+    }
+}
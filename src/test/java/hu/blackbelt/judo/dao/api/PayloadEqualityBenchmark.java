@@ -0,0 +1,68 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure equality and hash code of payloads containing transient keys.
+ * <p>
+ * Run with <code>java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main PayloadEqualityBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadEqualityBenchmark {
+
+    Payload left;
+
+    Payload right;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            map.put("attribute" + i, "value" + i);
+        }
+        map.put("reference", Payload.map("name", "referenced", "amount", 10));
+        left = Payload.asPayload(map);
+        map.put(AbstractPayload.TRANSIENT_PREFIX + "created", true);
+        map.put(AbstractPayload.TRANSIENT_PREFIX + "deleted", false);
+        right = Payload.asPayload(map);
+    }
+
+    @Benchmark
+    public boolean equality() {
+        return left.equals(right);
+    }
+
+    @Benchmark
+    public int hashCode() {
+        return right.hashCode();
+    }
+}
@@ -25,18 +25,25 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.isA;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class PayloadImplTest {
 
@@ -66,6 +73,135 @@ class PayloadImplTest {
 
     }
 
+    @Test
+    public void testWrap() {
+        Map<String, Object> map = new HashMap<>();
+
+        map.put("k1", "string");
+        map.put("null", null);
+        map.put("map", ImmutableMap.of("map2", "map2v", "map1", "map1v"));
+        map.put("collection", ImmutableSet.of(
+                ImmutableMap.of("subcol2_2", "subcolval2_2", "subcol2_1", "subval2_2"),
+                ImmutableMap.of("subcol1_2", "subcolval1_2", "subcol1_1", "subval1_2")
+        ));
+        map.put("list", ImmutableList.of(
+                ImmutableMap.of("sublst2_2", "sublstval2_2", "sublst2_1", "sublst2_2"),
+                ImmutableMap.of("sublst1_2", "sublstval1_2", "sublst1_1", "sublst1_2")
+        ));
+
+        Payload payload = Payload.wrap(map);
+        assertThat(payload.getAsPayload("map"), isA(Payload.class));
+        assertSame(payload.getAsPayload("map"), payload.getAsPayload("map"));
+        assertThat((Set) payload.getAsCollectionPayload("collection"), isA(Set.class));
+        assertThat((List) payload.getAsCollectionPayload("list"), isA(List.class));
+        assertThat(payload.getAsCollectionPayload("list").iterator().next(), isA(Payload.class));
+        assertEquals("string", payload.getAs(String.class, "k1"));
+
+        assertThat(payload, equalTo(map));
+        assertThat(payload, equalTo(Payload.asPayload(map)));
+        assertEquals(Payload.asPayload(map).hashCode(), payload.hashCode());
+        assertEquals(Payload.asPayload(map).toString(), Payload.wrap(map).toString());
+        assertEquals(List.of("collection", "k1", "list", "map", "null"), List.copyOf(Payload.wrap(map).keySet()));
+
+        Payload immutableSource = Payload.wrap(ImmutableMap.of("k2", "v2", "k1", "v1"));
+        immutableSource.put("k3", "v3");
+        assertEquals(List.of("k1", "k2", "k3"), List.copyOf(immutableSource.keySet()));
+
+        Map<String, Object> nullKey = new HashMap<>();
+        nullKey.put(null, "v1");
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> Payload.wrap(nullKey));
+        assertEquals("Payload contains null key(s)", exception.getMessage());
+        assertNull(Payload.wrap(null));
+    }
+
+    @Test
+    public void testWrapConcurrentRead() throws Exception {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put("k" + i, ImmutableMap.of("nested", ImmutableList.of(ImmutableMap.of("v", i))));
+        }
+        Payload payload = Payload.wrap(map);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Payload>>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    List<Payload> read = new ArrayList<>();
+                    for (int i = 0; i < 100; i++) {
+                        read.add(payload.getAsPayload("k" + i));
+                    }
+                    if (thread == 0) {
+                        payload.keySet();
+                    }
+                    return read;
+                }));
+            }
+            List<Payload> first = futures.get(0).get();
+            for (Future<List<Payload>> future : futures) {
+                List<Payload> read = future.get();
+                for (int i = 0; i < 100; i++) {
+                    assertSame(first.get(i), read.get(i));
+                }
+            }
+            assertSame(first.get(0), payload.getAsPayload("k0"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testTypedAccessors() {
+        Payload payload = Payload.map("long", 10L, "integer", 5, "double", 1.5, "boolean", true, "null", null,
+                "string", "value", "big", Long.MAX_VALUE, "integral", 2.0);
+
+        assertEquals(10L, payload.getLong("long"));
+        assertEquals(10, payload.getInt("long"));
+        assertEquals(5L, payload.getLong("integer"));
+        assertEquals(1.5, payload.getDouble("double"));
+        assertEquals(2, payload.getInt("integral"));
+        assertTrue(payload.getBoolean("boolean"));
+        assertEquals(7L, payload.getLong("null", 7L));
+        assertEquals(7, payload.getInt("missing", 7));
+        assertEquals(0.5, payload.getDouble("missing", 0.5));
+        assertTrue(payload.getBoolean("missing", true));
+
+        assertThrows(IllegalArgumentException.class, () -> payload.getLong("null"));
+        assertThrows(IllegalArgumentException.class, () -> payload.getLong("missing"));
+        assertThrows(IllegalArgumentException.class, () -> payload.getLong("string"));
+        assertThrows(IllegalArgumentException.class, () -> payload.getLong("string", 0L));
+        assertThrows(IllegalArgumentException.class, () -> payload.getBoolean("long"));
+        assertThrows(IllegalArgumentException.class, () -> payload.getInt("double"));
+        assertThrows(IllegalArgumentException.class, () -> payload.getLong("double"));
+        assertThrows(IllegalArgumentException.class, () -> payload.getInt("big"));
+        assertThrows(IllegalArgumentException.class, () -> payload.getInt("big", 0));
+    }
+
+    @Test
+    public void testBuilder() {
+        PayloadBuilder builder = Payload.builder()
+                .put("k2", "v2")
+                .put("k1", "v1")
+                .put("map", ImmutableMap.of("k", "v"))
+                .put("list", ImmutableList.of(ImmutableMap.of("k", "v")))
+                .putAll(ImmutableMap.of("k3", "v3", "k1", "overridden"));
+        Payload payload = builder.build();
+
+        assertEquals(List.of("k1", "k2", "k3", "list", "map"), List.copyOf(payload.keySet()));
+        assertEquals("overridden", payload.get("k1"));
+        assertThat(payload.getAsPayload("map"), isA(Payload.class));
+        assertThat(payload.getAsCollectionPayload("list").iterator().next(), isA(Payload.class));
+        assertThat(payload, equalTo(Payload.map("k1", "overridden", "k2", "v2", "k3", "v3",
+                "map", Payload.map("k", "v"), "list", ImmutableList.of(Payload.map("k", "v")))));
+        assertThrows(IllegalStateException.class, () -> builder.put("k4", "v4"));
+        assertThrows(IllegalStateException.class, builder::build);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> Payload.builder().put(null, "v"));
+        assertEquals("Payload contains null key(s)", exception.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> Payload.map("k1", "v1", null, "v2"));
+    }
+
     @Test
     public void testPayloadStatic() {
         Payload payload = Payload.map("k1", null, "k2", "string");
@@ -79,6 +215,12 @@ class PayloadImplTest {
         Payload payload = Payload.map("k1", null, "k2", "string");
         assertThat(Payload.map("k2", "string", "k1", null), equalTo(Payload.map("k1", null, "k2", "string")));
         assertThat(Payload.map("k2", "string", "k1", null, "__$created", true), equalTo(Payload.map("k1", null, "k2", "string")));
+        assertThat(Payload.map("k1", null, "k2", "string"), equalTo(Payload.map("k2", "string", "k1", null, "__$created", true)));
+        assertEquals(Payload.map("k1", null, "k2", "string").hashCode(),
+                Payload.map("k2", "string", "k1", null, "__$created", true).hashCode());
+        assertNotEquals(Payload.map("k1", null, "k2", "string"), Payload.map("k1", null, "k2", "other"));
+        assertNotEquals(Payload.map("k1", null, "k2", "string"), Payload.map("k2", "string"));
+        assertNotEquals(Payload.map("k1", null, "k2", "string"), Payload.map("k1", null, "k2", "string", "k3", null));
 
     }
 
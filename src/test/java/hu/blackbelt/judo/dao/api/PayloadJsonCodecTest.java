@@ -0,0 +1,120 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.isA;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PayloadJsonCodecTest {
+
+    PayloadJsonCodec codec = PayloadJsonCodec.getInstance();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Map<String, Object> map = new HashMap<>();
+        map.put("k1", "string");
+        map.put("number", 12);
+        map.put("long", 12345678901L);
+        map.put("decimal", 1.5);
+        map.put("flag", true);
+        map.put("null", null);
+        map.put("map", ImmutableMap.of("map2", "map2v", "map1", "map1v"));
+        map.put("list", ImmutableList.of(
+                ImmutableMap.of("sublst2_2", "sublstval2_2", "sublst2_1", "sublst2_2"),
+                ImmutableMap.of("sublst1_2", "sublstval1_2", "sublst1_1", "sublst1_2")
+        ));
+        Payload payload = Payload.asPayload(map);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        codec.write(payload, output);
+        Payload result = codec.read(new ByteArrayInputStream(output.toByteArray()));
+
+        assertThat(result, equalTo(payload));
+        assertThat(result.getAsPayload("map"), isA(Payload.class));
+        assertThat(result.getAsCollectionPayload("list").iterator().next(), isA(Payload.class));
+        assertEquals(payload.toString(), result.toString());
+        assertEquals("{\"k1\":\"string\"}", codec.toJson(Payload.map("k1", "string")));
+    }
+
+    @Test
+    public void testStreaming() throws IOException {
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = codec.getMapper().createGenerator(json)) {
+            generator.writeStartArray();
+            codec.write(Payload.map("k1", "v1", "date", LocalDate.of(2020, 1, 31)), generator);
+            generator.writeNull();
+            codec.write(Payload.wrap(ImmutableMap.of("k2", ImmutableList.of("a", "b"))), generator);
+            generator.writeEndArray();
+        }
+        assertEquals("[{\"date\":[2020,1,31],\"k1\":\"v1\"},null,{\"k2\":[\"a\",\"b\"]}]", json.toString());
+
+        try (JsonParser parser = codec.getMapper().createParser(json.toString())) {
+            List<Payload> payloads = codec.readList(parser);
+            assertEquals(3, payloads.size());
+            assertEquals("v1", payloads.get(0).get("k1"));
+            assertEquals(ImmutableList.of(2020, 1, 31), payloads.get(0).get("date"));
+            assertNull(payloads.get(1));
+            assertEquals(ImmutableList.of("a", "b"), payloads.get(2).get("k2"));
+        }
+    }
+
+    @Test
+    public void testInvalidJson() {
+        assertNull(codec.read("null"));
+        assertThrows(Exception.class, () -> codec.read("[1, 2]"));
+        assertThrows(Exception.class, () -> codec.read("{\"k1\": "));
+    }
+
+    @Test
+    public void testCustomMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonSerializer<Object> nullKeySerializer = mapper.getSerializerProvider().getDefaultNullKeySerializer();
+        PayloadJsonCodec custom = new PayloadJsonCodec(mapper);
+
+        assertSame(nullKeySerializer, mapper.getSerializerProvider().getDefaultNullKeySerializer());
+        assertNotSame(mapper, custom.getMapper());
+        assertEquals("{\"k1\":\"v1\"}", custom.toJson(Payload.map("k1", "v1")));
+    }
+}
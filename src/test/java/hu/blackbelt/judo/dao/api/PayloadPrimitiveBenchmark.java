@@ -0,0 +1,112 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static hu.blackbelt.judo.dao.api.TestModel.attribute;
+import static hu.blackbelt.judo.dao.api.TestModel.type;
+
+/**
+ * Compare boxed and primitive storage of numeric attributes of report rows.
+ * <p>
+ * Run with <code>java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main PayloadPrimitiveBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadPrimitiveBenchmark {
+
+    private static final int ROWS = 10000;
+
+    EClass type;
+
+    List<Payload> boxedRows;
+
+    List<CompactPayload> compactRows;
+
+    @Setup
+    public void setUp() {
+        type = type("ReportRow",
+                attribute("count", EcorePackage.Literals.ELONG),
+                attribute("amount", EcorePackage.Literals.EDOUBLE),
+                attribute("closed", EcorePackage.Literals.EBOOLEAN));
+        boxedRows = buildBoxed();
+        compactRows = buildPrimitive();
+    }
+
+    @Benchmark
+    public List<Payload> buildBoxed() {
+        List<Payload> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Payload row = Payload.empty();
+            row.put("count", i * 1000L);
+            row.put("amount", i * 1.5);
+            row.put("closed", i % 2 == 0);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public List<CompactPayload> buildPrimitive() {
+        List<CompactPayload> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            CompactPayload row = new CompactPayload(type);
+            row.putLong("count", i * 1000L);
+            row.putDouble("amount", i * 1.5);
+            row.putBoolean("closed", i % 2 == 0);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public double sumBoxed() {
+        double sum = 0;
+        for (Payload row : boxedRows) {
+            if (!row.getAs(Boolean.class, "closed")) {
+                sum += row.getAs(Long.class, "count") + row.getAs(Double.class, "amount");
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double sumPrimitive() {
+        double sum = 0;
+        for (CompactPayload row : compactRows) {
+            if (!row.getBoolean("closed")) {
+                sum += row.getLong("count") + row.getDouble("amount");
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,81 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare eager (copying) and lazy (adopting) payload creation of deep graphs.
+ * <p>
+ * Run with <code>java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main PayloadWrapBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadWrapBenchmark {
+
+    @Param({"2", "4"})
+    int depth;
+
+    Map<String, Object> graph;
+
+    @Setup
+    public void setUp() {
+        graph = createGraph(depth);
+    }
+
+    static Map<String, Object> createGraph(int depth) {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            map.put("attribute" + i, "value" + i);
+        }
+        if (depth > 0) {
+            map.put("single", createGraph(depth - 1));
+            List<Map<String, Object>> list = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                list.add(createGraph(depth - 1));
+            }
+            map.put("list", list);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Object asPayload() {
+        Payload payload = Payload.asPayload(graph);
+        return payload.getAsPayload("single").get("attribute1");
+    }
+
+    @Benchmark
+    public Object wrap() {
+        Payload payload = Payload.wrap(graph);
+        return payload.getAsPayload("single").get("attribute1");
+    }
+}
@@ -0,0 +1,155 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class PreparedQueryTest {
+
+    EClass clazz;
+
+    EAttribute name;
+
+    DAO<Long> dao;
+
+    @BeforeEach
+    void setUp() {
+        clazz = EcoreFactory.eINSTANCE.createEClass();
+        clazz.setName("Order");
+        name = EcoreFactory.eINSTANCE.createEAttribute();
+        name.setName("name");
+        name.setEType(EcorePackage.Literals.ESTRING);
+        clazz.getEStructuralFeatures().add(name);
+        dao = mock(DAO.class, Mockito.CALLS_REAL_METHODS);
+        Mockito.doReturn(ImmutableList.of(Payload.map("name", "a"))).when(dao).search(eq(clazz), any());
+        Mockito.doReturn(1L).when(dao).count(eq(clazz), any());
+    }
+
+    private DAO.QueryCustomizer<Long> query(String filter, Object parameter, int offset) {
+        return DAO.QueryCustomizer.<Long>builder()
+                .filter(filter)
+                .orderBy(DAO.OrderBy.builder().attribute(name).descending(true).build())
+                .mask(new HashMap<>(ImmutableMap.of("name", true)))
+                .parameters(ImmutableMap.of("p", parameter))
+                .seek(DAO.Seek.builder().offset(offset).limit(10).build())
+                .build();
+    }
+
+    @Test
+    public void testQueryShape() {
+        QueryShape shape = QueryShape.of(clazz, query("this.name == p", "a", 0));
+
+        assertEquals(shape, QueryShape.of(clazz, query("this.name == p", "b", 20)));
+        assertEquals(shape.hashCode(), QueryShape.of(clazz, query("this.name == p", "b", 20)).hashCode());
+        assertNotEquals(shape, QueryShape.of(clazz, query("this.name != p", "a", 0)));
+        assertNotEquals(shape, QueryShape.of(clazz, query("this.name == p", "a", 0).toBuilder().clearOrderByList().build()));
+        assertNotEquals(shape, QueryShape.of(clazz, query("this.name == p", "a", 0).toBuilder().mask(null).build()));
+        assertEquals(QueryShape.of(clazz, null), QueryShape.of(clazz, DAO.QueryCustomizer.<Long>builder().build()));
+    }
+
+    @Test
+    public void testPrepare() {
+        PreparedQuery<Long> preparedQuery = dao.prepare(clazz, query("this.name == p", "a", 0));
+
+        assertEquals(clazz, preparedQuery.getClazz());
+        assertEquals(QueryShape.of(clazz, query("this.name == p", "x", 5)), preparedQuery.getShape());
+        assertEquals(1, preparedQuery.search(ImmutableMap.of("p", "b"), DAO.Seek.builder().offset(5).limit(1).build()).size());
+        assertEquals(1L, preparedQuery.count(ImmutableMap.of("p", "c")));
+
+        ArgumentCaptor<DAO.QueryCustomizer<Long>> captor = ArgumentCaptor.forClass(DAO.QueryCustomizer.class);
+        verify(dao).search(eq(clazz), captor.capture());
+        assertEquals("this.name == p", captor.getValue().getFilter());
+        assertEquals("b", captor.getValue().getParameters().get("p"));
+        assertEquals(5, captor.getValue().getSeek().getOffset());
+        verify(dao).count(eq(clazz), captor.capture());
+        assertEquals("c", captor.getValue().getParameters().get("p"));
+        assertEquals(0, captor.getValue().getSeek().getOffset());
+
+        DAO.QueryCustomizer<Long> bound = preparedQuery.bind(null, null);
+        assertEquals("a", bound.getParameters().get("p"));
+        assertSame(bound, preparedQuery.bind(null, null));
+    }
+
+    @Test
+    public void testPlanCache() {
+        QueryPlanCache<String> cache = new QueryPlanCache<>(2);
+        AtomicInteger planned = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("plan", cache.getPlan(QueryShape.of(clazz, query("this.name == p", i, i)), shape -> {
+                planned.incrementAndGet();
+                return "plan";
+            }));
+        }
+        assertEquals(1, planned.get());
+        assertEquals(4, cache.getStats().hitCount());
+        assertEquals(1, cache.getStats().missCount());
+
+        cache.getPlan(QueryShape.of(clazz, query("f2", 1, 0)), shape -> "f2");
+        cache.getPlan(QueryShape.of(clazz, query("f3", 1, 0)), shape -> "f3");
+        assertEquals(2, cache.size());
+        assertNull(cache.getIfPresent(QueryShape.of(clazz, query("this.name == p", 1, 0))));
+        assertEquals("f3", cache.getIfPresent(QueryShape.of(clazz, query("f3", 2, 0))));
+
+        IllegalArgumentException exception = new IllegalArgumentException("Invalid filter");
+        assertSame(exception, assertThrows(IllegalArgumentException.class,
+                () -> cache.getPlan(QueryShape.of(clazz, query("invalid", 1, 0)), shape -> {
+                    throw exception;
+                })));
+        assertThrows(IllegalArgumentException.class, () -> new QueryPlanCache<>(0));
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testPreparedStream() {
+        PreparedQuery<Long> preparedQuery = dao.prepare(clazz, null);
+        assertEquals(1L, preparedQuery.stream(ImmutableMap.of("p", "a"), 10).count());
+        verify(dao, times(1)).search(eq(clazz), any());
+        List<Payload> result = preparedQuery.search(null);
+        assertEquals(1, result.size());
+    }
+}
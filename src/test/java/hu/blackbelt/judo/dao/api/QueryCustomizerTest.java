@@ -0,0 +1,145 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QueryCustomizerTest {
+
+    EAttribute name;
+
+    @BeforeEach
+    void setUp() {
+        EPackage ePackage = EcoreFactory.eINSTANCE.createEPackage();
+        ePackage.setNsURI("http://example.org/demo");
+        EClass clazz = EcoreFactory.eINSTANCE.createEClass();
+        clazz.setName("Order");
+        ePackage.getEClassifiers().add(clazz);
+        name = EcoreFactory.eINSTANCE.createEAttribute();
+        name.setName("name");
+        name.setEType(EcorePackage.Literals.ESTRING);
+        clazz.getEStructuralFeatures().add(name);
+    }
+
+    private DAO.QueryCustomizer<Long> query(Map<String, Object> parameters) {
+        Map<String, Object> mask = new LinkedHashMap<>();
+        mask.put("name", true);
+        mask.put("items", ImmutableMap.of("quantity", true));
+        return DAO.QueryCustomizer.<Long>builder()
+                .filter("this.name == p")
+                .orderBy(DAO.OrderBy.builder().attribute(name).descending(true).build())
+                .seek(DAO.Seek.builder().limit(10).lastItem(Payload.map("name", "last")).build())
+                .mask(mask)
+                .parameters(parameters)
+                .instanceIds(Arrays.asList(3L, 1L, 2L))
+                .build();
+    }
+
+    @Test
+    public void testValueSemantics() {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("p", "a");
+        parameters.put("date", LocalDate.of(2020, 1, 1));
+        DAO.QueryCustomizer<Long> queryCustomizer = query(parameters);
+
+        Map<String, Object> reordered = new HashMap<>();
+        reordered.put("date", LocalDate.of(2020, 1, 1));
+        reordered.put("p", "a");
+        DAO.QueryCustomizer<Long> other = query(reordered).toBuilder()
+                .instanceIds(ImmutableSet.of(1L, 2L, 3L))
+                .build();
+
+        assertEquals(queryCustomizer, other);
+        assertEquals(queryCustomizer.hashCode(), other.hashCode());
+        assertEquals(queryCustomizer.fingerprint(), other.fingerprint());
+        assertEquals(64, queryCustomizer.fingerprint().length());
+        assertEquals(DAO.Seek.builder().limit(10).build(), DAO.Seek.builder().limit(10).offset(-1).build());
+        assertEquals(DAO.OrderBy.builder().attribute(name).build(), DAO.OrderBy.builder().attribute(name).build());
+
+        parameters.put("p", "b");
+        assertEquals("a", queryCustomizer.getParameters().get("p"));
+        assertNotEquals(queryCustomizer, query(parameters));
+        assertNotEquals(queryCustomizer.fingerprint(), query(parameters).fingerprint());
+        assertNotEquals(queryCustomizer.fingerprint(), queryCustomizer.toBuilder().clearOrderByList().build().fingerprint());
+        assertNotEquals(query(ImmutableMap.of("p", 1)).fingerprint(), query(ImmutableMap.of("p", 1L)).fingerprint());
+        assertNotEquals(query(ImmutableMap.of("p", ImmutableList.of(1, 2))).fingerprint(),
+                query(ImmutableMap.of("p", ImmutableList.of(2, 1))).fingerprint());
+        assertEquals(query(ImmutableMap.of("p", ImmutableSet.of(1, 2))).fingerprint(),
+                query(ImmutableMap.of("p", ImmutableSet.of(2, 1))).fingerprint());
+    }
+
+    @Test
+    public void testTransientKeys() {
+        DAO.QueryCustomizer<Long> queryCustomizer = query(ImmutableMap.of("p", "a"));
+        Map<String, Object> mask = new LinkedHashMap<>(queryCustomizer.getMask());
+        mask.put("__$selected", true);
+        DAO.QueryCustomizer<Long> other = query(ImmutableMap.of("p", "a", "__$source", "cache")).toBuilder()
+                .seek(DAO.Seek.builder().limit(10).lastItem(Payload.map("name", "last", "__$version", 2)).build())
+                .mask(mask)
+                .build();
+
+        assertEquals(queryCustomizer, other);
+        assertEquals(queryCustomizer.hashCode(), other.hashCode());
+        assertEquals(queryCustomizer.fingerprint(), other.fingerprint());
+    }
+
+    @Test
+    public void testImmutability() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("list", new ArrayList<>(ImmutableList.of(1, 2)));
+        DAO.QueryCustomizer<Long> queryCustomizer = query(parameters);
+
+        assertThat(queryCustomizer.getMask(), instanceOf(FrozenPayload.class));
+        assertThat(queryCustomizer.getSeek().getLastItem(), instanceOf(FrozenPayload.class));
+        assertThrows(UnsupportedOperationException.class, () -> queryCustomizer.getParameters().put("k", "v"));
+        assertThrows(UnsupportedOperationException.class, () -> queryCustomizer.getMask().put("k", true));
+        assertThrows(UnsupportedOperationException.class, () -> queryCustomizer.getInstanceIds().add(4L));
+        assertThrows(UnsupportedOperationException.class, () -> queryCustomizer.getOrderByList().clear());
+        assertThrows(UnsupportedOperationException.class,
+                () -> queryCustomizer.getSeek().getLastItem().put("name", "changed"));
+
+        String fingerprint = queryCustomizer.fingerprint();
+        parameters.put("other", "value");
+        assertEquals(fingerprint, query(ImmutableMap.of("list", ImmutableList.of(1, 2))).fingerprint());
+    }
+}
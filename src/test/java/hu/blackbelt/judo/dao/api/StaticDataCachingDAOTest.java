@@ -0,0 +1,127 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class StaticDataCachingDAOTest {
+
+    EClass clazz;
+
+    EAttribute attribute;
+
+    DAO<Long> dao;
+
+    AtomicLong nanos = new AtomicLong();
+
+    Queue<Runnable> refreshes = new ArrayDeque<>();
+
+    StaticDataCachingDAO<Long> cachingDAO;
+
+    @BeforeEach
+    void setUp() {
+        clazz = EcoreFactory.eINSTANCE.createEClass();
+        clazz.setName("Order");
+        attribute = EcoreFactory.eINSTANCE.createEAttribute();
+        attribute.setName("total");
+        dao = mock(DAO.class);
+        AtomicInteger version = new AtomicInteger();
+        Mockito.doAnswer(invocation -> Payload.map("total", version.incrementAndGet())).when(dao).getStaticData(attribute);
+        Mockito.doAnswer(invocation -> Payload.map("total", invocation.getArgument(1, Map.class).get("p")))
+                .when(dao).getParameterizedStaticData(Mockito.eq(attribute), any());
+        Mockito.doAnswer(invocation -> Payload.map("status", "NEW")).when(dao).getDefaultsOf(clazz);
+        Ticker ticker = new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        };
+        cachingDAO = new StaticDataCachingDAO<>(dao, Duration.ofMinutes(1), Duration.ofHours(1), 100,
+                refreshes::add, ticker);
+    }
+
+    @Test
+    public void testRefreshAhead() {
+        assertEquals(1, cachingDAO.getStaticData(attribute).get("total"));
+        assertThat(cachingDAO.getStaticData(attribute), instanceOf(FrozenPayload.class));
+        verify(dao, times(1)).getStaticData(attribute);
+
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        assertEquals(1, cachingDAO.getStaticData(attribute).get("total"));
+        assertEquals(1, refreshes.size());
+        assertEquals(1, cachingDAO.getStaticData(attribute).get("total"));
+
+        refreshes.poll().run();
+        assertEquals(2, cachingDAO.getStaticData(attribute).get("total"));
+        verify(dao, times(2)).getStaticData(attribute);
+
+        nanos.addAndGet(Duration.ofHours(2).toNanos());
+        assertEquals(3, cachingDAO.getStaticData(attribute).get("total"));
+        assertEquals(0, refreshes.size());
+    }
+
+    @Test
+    public void testParametersAndDefaults() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("p", "a");
+        assertEquals("a", cachingDAO.getParameterizedStaticData(attribute, parameters).get("total"));
+        assertEquals("a", cachingDAO.getParameterizedStaticData(attribute, ImmutableMap.of("p", "a")).get("total"));
+        assertEquals("b", cachingDAO.getParameterizedStaticData(attribute, ImmutableMap.of("p", "b")).get("total"));
+        verify(dao, times(2)).getParameterizedStaticData(Mockito.eq(attribute), any());
+
+        Payload defaults = cachingDAO.getDefaultsOf(clazz);
+        defaults.put("status", "CHANGED");
+        assertEquals("NEW", cachingDAO.getDefaultsOf(clazz).get("status"));
+        verify(dao, times(1)).getDefaultsOf(clazz);
+
+        assertNull(cachingDAO.getStaticFeatures(clazz));
+        assertNull(cachingDAO.getStaticFeatures(clazz));
+        verify(dao, times(1)).getStaticFeatures(clazz);
+
+        cachingDAO.invalidateAll();
+        cachingDAO.getDefaultsOf(clazz);
+        verify(dao, times(2)).getDefaultsOf(clazz);
+    }
+}
@@ -0,0 +1,84 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+
+import java.util.Arrays;
+
+/**
+ * Builders of Ecore models used by tests and benchmarks.
+ */
+final class TestModel {
+
+    private TestModel() {
+    }
+
+    static EClass type(String name, EStructuralFeature... features) {
+        EClass type = EcoreFactory.eINSTANCE.createEClass();
+        type.setName(name);
+        type.getEStructuralFeatures().addAll(Arrays.asList(features));
+        return type;
+    }
+
+    static EAttribute attribute(String name, EDataType type) {
+        EAttribute attribute = EcoreFactory.eINSTANCE.createEAttribute();
+        attribute.setName(name);
+        attribute.setEType(type);
+        return attribute;
+    }
+
+    static EAttribute attribute(String name, EDataType type, int lowerBound) {
+        EAttribute attribute = attribute(name, type);
+        attribute.setLowerBound(lowerBound);
+        return attribute;
+    }
+
+    static EReference reference(String name, EClass type, int upperBound) {
+        EReference reference = EcoreFactory.eINSTANCE.createEReference();
+        reference.setName(name);
+        reference.setEType(type);
+        reference.setUpperBound(upperBound);
+        return reference;
+    }
+
+    static EReference containment(String name, EClass type, int lowerBound, int upperBound) {
+        EReference reference = reference(name, type, upperBound);
+        reference.setContainment(true);
+        reference.setLowerBound(lowerBound);
+        return reference;
+    }
+
+    /**
+     * Item type with <code>name</code> (string) and <code>quantity</code> (integer) attributes.
+     */
+    static EClass item() {
+        return type("Item",
+                attribute("name", EcorePackage.Literals.ESTRING),
+                attribute("quantity", EcorePackage.Literals.EINTEGER_OBJECT));
+    }
+}
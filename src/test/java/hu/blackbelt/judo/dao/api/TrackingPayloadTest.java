@@ -0,0 +1,176 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class TrackingPayloadTest {
+
+    private static Payload createPayload() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("__identifier", 1L);
+        map.put("name", "order");
+        map.put("amount", 10);
+        map.put("note", null);
+        map.put("customer", ImmutableMap.of("__identifier", 2L, "name", "customer", "city", "Budapest",
+                "address", ImmutableMap.of("street", "Main")));
+        map.put("items", ImmutableList.of(ImmutableMap.of("__identifier", 3L, "name", "item")));
+        map.put("tags", ImmutableSet.of(ImmutableMap.of("label", "tag")));
+        return Payload.asPayload(map);
+    }
+
+    @Test
+    public void testChangedKeys() {
+        Payload payload = createPayload();
+        TrackingPayload tracking = TrackingPayload.track(payload, "__identifier");
+
+        assertSame(tracking, TrackingPayload.track(tracking));
+        assertFalse(tracking.isDirty());
+        assertThat(tracking, equalTo(payload));
+        assertEquals("customer", tracking.getAsPayload("customer").get("name"));
+        assertFalse(tracking.isDirty());
+
+        tracking.put("name", "changed");
+        tracking.remove("note");
+        tracking.remove("missing");
+        assertEquals(ImmutableSet.of("name", "note"), tracking.getChangedKeys());
+        assertEquals(Payload.map("name", "changed", TrackingPayload.REMOVED_KEYS, ImmutableSet.of("note")),
+                tracking.getDelta());
+        assertFalse(tracking.getDelta().containsKey("note"));
+        assertEquals("changed", payload.get("name"));
+
+        tracking.clearChanges();
+        assertFalse(tracking.isDirty());
+
+        Iterator<Map.Entry<String, Object>> iterator = tracking.entrySet().iterator();
+        Map.Entry<String, Object> entry = iterator.next();
+        assertEquals("__identifier", entry.getKey());
+        entry = iterator.next();
+        assertEquals("amount", entry.getKey());
+        entry.setValue(20);
+        iterator.next();
+        iterator.remove();
+        assertEquals(ImmutableSet.of("amount", "customer"), tracking.getChangedKeys());
+        assertEquals(20, payload.get("amount"));
+        assertFalse(payload.containsKey("customer"));
+    }
+
+    @Test
+    public void testNestedDelta() {
+        TrackingPayload tracking = TrackingPayload.track(createPayload(), "__identifier");
+
+        Payload customer = tracking.getAsPayload("customer");
+        customer.put("city", "Debrecen");
+        customer.getAsPayload("address").put("zip", "4000");
+        tracking.getAsCollectionPayload("items").iterator().next().put("name", "changed");
+        tracking.getAsCollectionPayload("tags");
+
+        assertEquals(ImmutableSet.of("customer", "items"), tracking.getChangedKeys());
+        Payload delta = tracking.getDelta();
+        assertEquals(Payload.map("__identifier", 2L, "city", "Debrecen", "address", Payload.map("zip", "4000")),
+                delta.getAsPayload("customer"));
+        assertEquals(tracking.get("items"), delta.get("items"));
+
+        tracking.put("customer", Payload.map("name", "replaced"));
+        assertEquals(Payload.map("name", "replaced"), tracking.getDelta().getAsPayload("customer"));
+
+        Payload target = createPayload();
+        TrackingPayload.applyDelta(target, Payload.map("amount", 30, "customer", Payload.map("city", "Szeged")));
+        assertEquals(30, target.get("amount"));
+        assertEquals("Szeged", target.getAsPayload("customer").get("city"));
+        assertEquals("customer", target.getAsPayload("customer").get("name"));
+
+        TrackingPayload removing = TrackingPayload.track(createPayload(), "__identifier");
+        removing.put("name", null);
+        removing.remove("amount");
+        removing.getAsPayload("customer").remove("city");
+        Payload removingDelta = removing.getDelta();
+        assertTrue(removingDelta.containsKey("name"));
+        assertNull(removingDelta.get("name"));
+        assertEquals(ImmutableSet.of("amount"), removingDelta.get(TrackingPayload.REMOVED_KEYS));
+        assertEquals(ImmutableSet.of("city"), removingDelta.getAsPayload("customer").get(TrackingPayload.REMOVED_KEYS));
+        TrackingPayload.applyDelta(target, removingDelta);
+        assertTrue(target.containsKey("name"));
+        assertNull(target.get("name"));
+        assertFalse(target.containsKey("amount"));
+        assertFalse(target.getAsPayload("customer").containsKey("city"));
+    }
+
+    @Test
+    public void testUpdateDelta() {
+        EClass clazz = EcoreFactory.eINSTANCE.createEClass();
+        clazz.setName("Order");
+        DAO<Long> dao = mock(DAO.class, Mockito.CALLS_REAL_METHODS);
+        Mockito.doReturn(Optional.of(createPayload())).when(dao).getByIdentifier(clazz, 1L);
+        Mockito.doReturn(Optional.empty()).when(dao).getByIdentifier(clazz, 2L);
+        Mockito.doAnswer(invocation -> invocation.getArgument(1)).when(dao).update(eq(clazz), any(), any());
+
+        Payload updated = dao.updateDelta(clazz, 1L, Payload.map("name", "changed"), null);
+
+        ArgumentCaptor<Payload> captor = ArgumentCaptor.forClass(Payload.class);
+        verify(dao).update(eq(clazz), captor.capture(), any());
+        assertEquals("changed", captor.getValue().get("name"));
+        assertEquals(10, captor.getValue().get("amount"));
+        assertSame(captor.getValue(), updated);
+        assertThrows(IllegalArgumentException.class, () -> dao.updateDelta(clazz, 2L, Payload.empty(), null));
+    }
+
+    @Test
+    public void testNoSnapshotOnRead() {
+        Payload payload = createPayload();
+        TrackingPayload tracking = TrackingPayload.track(payload, "__identifier");
+
+        assertEquals(payload.hashCode(), tracking.hashCode());
+        assertEquals(payload.toString(), tracking.toString());
+        assertThat(tracking, equalTo(payload));
+        payload.getAsCollectionPayload("items").iterator().next().put("name", "direct");
+        assertFalse(tracking.isDirty());
+
+        Payload customer = tracking.getAsPayload("customer");
+        assertSame(payload.get("customer"), ((TrackingPayload) customer).getPayload());
+        assertSame(customer, tracking.getAsPayload("customer"));
+    }
+}
@@ -0,0 +1,180 @@
+package hu.blackbelt.judo.dao.api;
+
+/*-
+ * #%L
+ * Judo DAO API
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class UnitOfWorkTest {
+
+    EClass order;
+
+    EClass item;
+
+    EReference items;
+
+    DAO<Long> dao;
+
+    @BeforeEach
+    void setUp() {
+        order = EcoreFactory.eINSTANCE.createEClass();
+        order.setName("Order");
+        item = EcoreFactory.eINSTANCE.createEClass();
+        item.setName("Item");
+        items = EcoreFactory.eINSTANCE.createEReference();
+        items.setName("items");
+        dao = mock(DAO.class, Mockito.CALLS_REAL_METHODS);
+        AtomicLong sequence = new AtomicLong();
+        Mockito.doAnswer(invocation -> {
+            List<Payload> result = new ArrayList<>();
+            for (Payload payload : (Iterable<Payload>) invocation.getArgument(1)) {
+                Payload created = Payload.asPayload(payload);
+                created.put("__identifier", sequence.incrementAndGet());
+                result.add(created);
+            }
+            return result;
+        }).when(dao).createAll(any(), any(), any());
+        Mockito.doAnswer(invocation -> ImmutableList.copyOf((Iterable<Payload>) invocation.getArgument(1)))
+                .when(dao).updateAll(any(), any(), any());
+        Mockito.doNothing().when(dao).deleteAll(any(), any());
+        Mockito.doNothing().when(dao).addReferences(any(), any(), any());
+        Mockito.doNothing().when(dao).removeReferences(any(), any(), any());
+        Mockito.doNothing().when(dao).setReference(any(), any(), any());
+    }
+
+    @Test
+    public void testFlush() {
+        List<CompletableFuture<Payload>> created = new ArrayList<>();
+        CompletableFuture<Void> deleted;
+        CompletableFuture<Payload> updated;
+        try (UnitOfWork<Long> unitOfWork = dao.beginBatch(2)) {
+            deleted = unitOfWork.delete(order, 100L);
+            unitOfWork.addReferences(items, 1L, ImmutableList.of(10L));
+            for (int i = 0; i < 5; i++) {
+                created.add(unitOfWork.create(i % 2 == 0 ? item : order, Payload.map("index", i), null));
+            }
+            updated = unitOfWork.update(order, Payload.map("__identifier", 1L), null);
+            unitOfWork.removeReferences(items, 1L, ImmutableList.of(10L));
+            assertEquals(9, unitOfWork.size());
+            assertFalse(created.get(0).isDone());
+        }
+
+        InOrder inOrder = inOrder(dao);
+        inOrder.verify(dao).deleteAll(order, ImmutableList.of(100L));
+        inOrder.verify(dao).addReferencesAll(items, ImmutableMap.of(1L, ImmutableSet.of(10L)));
+        inOrder.verify(dao).createAll(eq(item), eq(ImmutableList.of(Payload.map("index", 0), Payload.map("index", 2))), any());
+        inOrder.verify(dao).createAll(eq(item), eq(ImmutableList.of(Payload.map("index", 4))), any());
+        inOrder.verify(dao).createAll(eq(order), eq(ImmutableList.of(Payload.map("index", 1), Payload.map("index", 3))), any());
+        inOrder.verify(dao).updateAll(eq(order), any(), any());
+        inOrder.verify(dao).removeReferencesAll(items, ImmutableMap.of(1L, ImmutableSet.of(10L)));
+
+        assertEquals(0, created.get(0).join().getInt("index"));
+        assertEquals(4, created.get(4).join().getInt("index"));
+        assertEquals(3L, created.get(4).join().get("__identifier"));
+        assertEquals(Payload.map("__identifier", 1L), updated.join());
+        assertTrue(deleted.isDone());
+    }
+
+    @Test
+    public void testRegistrationOrder() {
+        try (UnitOfWork<Long> unitOfWork = dao.beginBatch()) {
+            unitOfWork.delete(order, 1L);
+            unitOfWork.create(order, Payload.map("code", "X"), null);
+            unitOfWork.setReference(items, 2L, ImmutableList.of(10L));
+            unitOfWork.update(order, Payload.map("__identifier", 2L), null);
+            unitOfWork.create(order, Payload.map("code", "Y"), null);
+        }
+
+        InOrder inOrder = inOrder(dao);
+        inOrder.verify(dao).deleteAll(order, ImmutableList.of(1L));
+        inOrder.verify(dao).createAll(eq(order), eq(ImmutableList.of(Payload.map("code", "X"))), any());
+        inOrder.verify(dao).setReferenceAll(items, ImmutableMap.of(2L, ImmutableList.of(10L)));
+        inOrder.verify(dao).updateAll(eq(order), eq(ImmutableList.of(Payload.map("__identifier", 2L))), any());
+        inOrder.verify(dao).createAll(eq(order), eq(ImmutableList.of(Payload.map("code", "Y"))), any());
+    }
+
+    @Test
+    public void testBulkReferences() {
+        try (UnitOfWork<Long> unitOfWork = dao.beginBatch(3)) {
+            for (long owner = 1; owner <= 4; owner++) {
+                unitOfWork.addReferences(items, owner, ImmutableList.of(10L + owner));
+            }
+            unitOfWork.addReferences(items, 1L, ImmutableList.of(20L));
+            unitOfWork.setReference(items, 1L, ImmutableList.of(30L));
+            unitOfWork.setReference(items, 1L, ImmutableList.of(31L));
+        }
+
+        verify(dao).addReferencesAll(items, ImmutableMap.of(
+                1L, ImmutableSet.of(11L), 2L, ImmutableSet.of(12L), 3L, ImmutableSet.of(13L)));
+        verify(dao).addReferencesAll(items, ImmutableMap.of(4L, ImmutableSet.of(14L), 1L, ImmutableSet.of(20L)));
+        verify(dao).setReferenceAll(items, ImmutableMap.of(1L, ImmutableList.of(31L)));
+        verify(dao, times(5)).addReferences(eq(items), any(), any());
+        verify(dao, times(1)).setReference(items, 1L, ImmutableList.of(31L));
+    }
+
+    @Test
+    public void testFailure() {
+        IllegalStateException failure = new IllegalStateException("failed");
+        Mockito.doThrow(failure).when(dao).updateAll(any(), any(), any());
+        UnitOfWork<Long> unitOfWork = dao.beginBatch();
+        CompletableFuture<Payload> created = unitOfWork.create(order, Payload.empty(), null);
+        CompletableFuture<Payload> updated = unitOfWork.update(order, Payload.empty(), null);
+        CompletableFuture<Void> deleted = unitOfWork.delete(order, 1L);
+
+        assertSame(failure, assertThrows(IllegalStateException.class, unitOfWork::flush));
+        assertTrue(created.isDone() && !created.isCompletedExceptionally());
+        assertTrue(updated.isCompletedExceptionally());
+        assertTrue(deleted.isCompletedExceptionally());
+        verify(dao, never()).deleteAll(any(), any());
+        assertEquals(0, unitOfWork.size());
+
+        unitOfWork.close();
+        assertThrows(IllegalStateException.class, () -> unitOfWork.delete(order, 1L));
+        assertThrows(IllegalArgumentException.class, () -> dao.beginBatch(0));
+        verify(dao, times(1)).createAll(any(), any(), any());
+    }
+}